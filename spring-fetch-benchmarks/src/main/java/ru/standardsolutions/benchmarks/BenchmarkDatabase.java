@@ -0,0 +1,119 @@
+package ru.standardsolutions.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import ru.standardsolutions.metadata.EntityMetadataRegistry;
+
+/**
+ * Встроенная база H2 со схемой сотрудников и отделов.
+ * <p>
+ * Hibernate поднимается без Spring, так же как его поднимает автоконфигурация: метамодель регистрируется
+ * в {@link EntityMetadataRegistry}, поэтому первые итерации не тратят время на ее разбор.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    private static final int DEPARTMENTS = 100;
+
+    private final SessionFactory sessionFactory;
+
+    private BenchmarkDatabase(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Создает схему и заполняет ее сотрудниками.
+     *
+     * @param employees количество сотрудников
+     * @return база данных
+     */
+    static BenchmarkDatabase start(int employees) {
+        return start(employees, 0);
+    }
+
+    /**
+     * Создает схему и заполняет ее сотрудниками; каждый SQL-запрос после заполнения задерживается, как при
+     * сетевой задержке до сервера базы данных.
+     *
+     * @param employees     количество сотрудников
+     * @param latencyMillis задержка каждого запроса в миллисекундах
+     * @return база данных
+     */
+    static BenchmarkDatabase start(int employees, long latencyMillis) {
+        LatencyInspector latency = new LatencyInspector();
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL,
+                        "jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .applySetting(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+                .applySetting(AvailableSettings.POOL_SIZE, "4")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.STATEMENT_INSPECTOR, latency)
+                .build();
+        SessionFactory sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Department.class)
+                .addAnnotatedClass(Employee.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        EntityMetadataRegistry.register(sessionFactory.getMetamodel());
+        BenchmarkDatabase database = new BenchmarkDatabase(sessionFactory);
+        database.populate(employees);
+        latency.latencyMillis = latencyMillis;
+        return database;
+    }
+
+    EntityManager entityManager() {
+        return sessionFactory.createEntityManager();
+    }
+
+    EntityManagerFactory entityManagerFactory() {
+        return sessionFactory;
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+    }
+
+    private void populate(int employees) {
+        sessionFactory.inTransaction(session -> {
+            session.createNativeMutationQuery("insert into department (id, name) "
+                            + "select x, 'Department ' || x from system_range(1, " + DEPARTMENTS + ")")
+                    .executeUpdate();
+            session.createNativeMutationQuery("insert into employee (id, name, status, age, salary, hired, "
+                            + "department_id) select x, 'Employee ' || x, "
+                            + "case mod(x, 3) when 0 then 'ACTIVE' when 1 then 'BLOCKED' else 'DELETED' end, "
+                            + "18 + mod(x, 50), mod(x, 1000) * 100, dateadd('DAY', -mod(x, 3650), date '2024-01-01'), "
+                            + "1 + mod(x, " + DEPARTMENTS + ") from system_range(1, " + employees + ")")
+                    .executeUpdate();
+            session.createNativeMutationQuery("create index employee_status_age on employee (status, age)")
+                    .executeUpdate();
+            session.createNativeMutationQuery("analyze").executeUpdate();
+        });
+    }
+
+    /**
+     * Задерживает выполнение каждого SQL-запроса в вызывающем потоке.
+     */
+    private static final class LatencyInspector implements StatementInspector {
+
+        private volatile long latencyMillis;
+
+        @Override
+        public String inspect(String sql) {
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return sql;
+        }
+    }
+}
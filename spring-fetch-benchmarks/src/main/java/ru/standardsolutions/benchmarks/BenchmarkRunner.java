@@ -0,0 +1,147 @@
+package ru.standardsolutions.benchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Запуск бенчмарков с профилированием выделения памяти и сравнение с базовыми результатами.
+ * <p>
+ * Результатом бенчмарка считается среднее время, в режиме {@code SampleTime} - среднее по выборке, поэтому
+ * регрессией считается результат, превышающий базовый более чем на долю {@code benchmarks.tolerance}; при
+ * регрессии процесс завершается с ненулевым кодом. Базовые результаты хранятся в {@code baseline.properties}
+ * как {@code бенчмарк[параметры]=время}; с {@code -Dbenchmarks.updateBaseline=true} файл перезаписывается
+ * результатами текущего запуска. Бенчмарки, отсутствующие в базовом файле, не сравниваются.
+ * <p>
+ * Вместе с результатами сохраняется окружение - JVM, количество процессоров и ОС. Если текущее окружение
+ * отличается, сравнение выполняется с предупреждением: базовые результаты другой машины ориентировочны.
+ * Бенчмарки, имена которых подходят под {@code benchmarks.baselineExclude} (по умолчанию
+ * {@link CountStrategyBenchmark}, результат которого зависит от количества процессоров), в базовый файл
+ * не записываются.
+ * <p>
+ * Настройки задаются системными свойствами: {@code benchmarks.include} (регулярное выражение имен),
+ * {@code benchmarks.baseline}, {@code benchmarks.result} (JSON-результат JMH), {@code benchmarks.tolerance}
+ * и {@code benchmarks.baselineExclude}.
+ */
+public final class BenchmarkRunner {
+
+    private static final String ENVIRONMENT = "environment";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path baseline = Path.of(System.getProperty("benchmarks.baseline", "baseline.properties"));
+        double tolerance = Double.parseDouble(System.getProperty("benchmarks.tolerance", "0.25"));
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmarks.include", BenchmarkRunner.class.getPackageName() + ".*"))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("benchmarks.result", "target/jmh-result.json"))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        if (Boolean.getBoolean("benchmarks.updateBaseline")) {
+            writeBaseline(baseline, results);
+            return;
+        }
+        Properties expected = readBaseline(baseline);
+        String environment = expected.getProperty(ENVIRONMENT);
+        if (environment != null && !environment.equals(environment())) {
+            System.err.printf("Базовые результаты получены в другом окружении (%s), текущее - %s%n",
+                    environment, environment());
+        }
+        List<String> regressions = compare(expected, results, tolerance);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    private static List<String> compare(Properties baseline, Collection<RunResult> results, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result : results) {
+            String key = key(result.getParams());
+            String expected = baseline.getProperty(key);
+            if (expected == null) {
+                continue;
+            }
+            double score = result.getPrimaryResult().getScore();
+            double limit = Double.parseDouble(expected) * (1 + tolerance);
+            if (score > limit) {
+                regressions.add(String.format(Locale.ROOT, "Регрессия %s: %.3f %s при базовом %s (допуск %.0f%%)",
+                        key, score, result.getPrimaryResult().getScoreUnit(), expected, tolerance * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static Properties readBaseline(Path baseline) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(baseline)) {
+            try (Reader reader = Files.newBufferedReader(baseline)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    private static void writeBaseline(Path baseline, Collection<RunResult> results) throws IOException {
+        Pattern exclude = Pattern.compile(System.getProperty("benchmarks.baselineExclude",
+                CountStrategyBenchmark.class.getSimpleName() + "\\..*"));
+        TreeMap<String, String> scores = new TreeMap<>();
+        for (RunResult result : results) {
+            String key = key(result.getParams());
+            if (!exclude.matcher(key).matches()) {
+                scores.put(key, String.format(Locale.ROOT, "%.3f", result.getPrimaryResult().getScore()));
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(baseline)) {
+            writer.write("# Среднее время бенчмарков; обновляется запуском с -Dbenchmarks.updateBaseline=true\n");
+            writer.write(ENVIRONMENT + "=" + environment() + "\n");
+            for (var score : scores.entrySet()) {
+                writer.write(score.getKey().replace("=", "\\=") + "=" + score.getValue() + "\n");
+            }
+        }
+    }
+
+    private static String environment() {
+        return System.getProperty("java.vm.name") + " " + System.getProperty("java.runtime.version") + ", "
+                + Runtime.getRuntime().availableProcessors() + " CPU, " + System.getProperty("os.name") + " "
+                + System.getProperty("os.arch");
+    }
+
+    private static String key(BenchmarkParams params) {
+        String name = params.getBenchmark().substring(BenchmarkRunner.class.getPackageName().length() + 1);
+        StringBuilder key = new StringBuilder(name);
+        if (!params.getParamsKeys().isEmpty()) {
+            key.append('[');
+            for (String param : params.getParamsKeys()) {
+                if (key.charAt(key.length() - 1) != '[') {
+                    key.append(',');
+                }
+                key.append(param).append('=').append(params.getParam(param));
+            }
+            key.append(']');
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package ru.standardsolutions.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.standardsolutions.FetchConfiguration;
+import ru.standardsolutions.FetchManager;
+import ru.standardsolutions.FetchResponse;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время ответа {@code FetchManager.performFetch} с подсчетом {@link CountStrategy#EXACT} после выборки
+ * содержимого и {@link CountStrategy#PARALLEL} одновременно с ней.
+ * <p>
+ * Каждый SQL-запрос задерживается на {@code latency} миллисекунд, как при сетевой задержке до сервера базы
+ * данных, которой у встроенной H2 нет. Режим {@link Mode#SampleTime} показывает распределение времени ответа,
+ * а не только среднее. Выборки идут через общий менеджер сущностей Spring и {@link JpaTransactionManager},
+ * как в приложении. Таблица небольшая, чтобы время ответа определялось задержкой, а не работой H2 в том же
+ * процессе: параллельный подсчет выигрывает, только если запросы ждут базу данных, а не процессор.
+ * <p>
+ * Фоновые задачи выполняются на виртуальных потоках, как по умолчанию, или на пуле из двух платформенных
+ * потоков ({@code executor=platform}). На одном процессоре выигрыша нет: выборка, подсчет и обе транзакции
+ * конкурируют за него, поэтому результаты не входят в {@code baseline.properties} и сравниваются вручную
+ * по процентилям {@code p0.50}/{@code p0.99} на машине с несколькими процессорами.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CountStrategyBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"1", "10"})
+    private long latency;
+
+    @Param({"virtual", "platform"})
+    private String executor;
+
+    private BenchmarkDatabase database;
+
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService defaultExecutor;
+
+    private ExecutorService platformExecutor;
+
+    private SimpleJpaRepository<Employee, Long> repository;
+
+    private FetchRequest exact;
+
+    private FetchRequest parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(ROWS, latency);
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                database.entityManagerFactory());
+        repository = new SimpleJpaRepository<>(Employee.class, entityManager);
+        transactionManager = FetchConfiguration.getTransactionManager();
+        FetchConfiguration.setTransactionManager(new JpaTransactionManager(database.entityManagerFactory()));
+        defaultExecutor = FetchConfiguration.getExecutor();
+        if ("platform".equals(executor)) {
+            platformExecutor = Executors.newFixedThreadPool(2);
+            FetchConfiguration.setExecutor(platformExecutor);
+        }
+        exact = request(CountStrategy.EXACT);
+        parallel = request(CountStrategy.PARALLEL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FetchConfiguration.setTransactionManager(transactionManager);
+        FetchConfiguration.setExecutor(defaultExecutor);
+        if (platformExecutor != null) {
+            platformExecutor.shutdown();
+        }
+        database.close();
+    }
+
+    @Benchmark
+    public FetchResponse<EmployeeDto> performFetchExactCount() {
+        return FetchManager.performFetch(repository, EmployeeDto::of, exact);
+    }
+
+    @Benchmark
+    public FetchResponse<EmployeeDto> performFetchParallelCount() {
+        return FetchManager.performFetch(repository, EmployeeDto::of, parallel);
+    }
+
+    private static FetchRequest request(CountStrategy count) {
+        return new FetchRequestBuilder()
+                .equals("status", "ACTIVE")
+                .greaterThanOrEquals("age", "30")
+                .lessThan("age", "40")
+                .sortDesc("age")
+                .sortAsc("id")
+                .page(3, 50)
+                .count(count)
+                .build();
+    }
+}
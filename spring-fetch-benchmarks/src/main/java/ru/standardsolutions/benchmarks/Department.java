@@ -0,0 +1,20 @@
+package ru.standardsolutions.benchmarks;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Отдел сотрудника.
+ */
+@Getter
+@Setter
+@Entity
+public class Department {
+
+    @Id
+    private Long id;
+
+    private String name;
+}
@@ -0,0 +1,39 @@
+package ru.standardsolutions.benchmarks;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Сотрудник - сущность выборок в бенчмарках.
+ */
+@Getter
+@Setter
+@Entity
+public class Employee {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    private EmployeeStatus status;
+
+    private int age;
+
+    private BigDecimal salary;
+
+    private LocalDate hired;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Department department;
+}
@@ -0,0 +1,16 @@
+package ru.standardsolutions.benchmarks;
+
+/**
+ * DTO сотрудника.
+ *
+ * @param id     идентификатор
+ * @param name   имя
+ * @param status статус
+ * @param age    возраст
+ */
+public record EmployeeDto(Long id, String name, EmployeeStatus status, int age) {
+
+    public static EmployeeDto of(Employee employee) {
+        return new EmployeeDto(employee.getId(), employee.getName(), employee.getStatus(), employee.getAge());
+    }
+}
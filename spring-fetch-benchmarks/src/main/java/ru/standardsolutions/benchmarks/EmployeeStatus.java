@@ -0,0 +1,10 @@
+package ru.standardsolutions.benchmarks;
+
+/**
+ * Статус сотрудника.
+ */
+public enum EmployeeStatus {
+    ACTIVE,
+    BLOCKED,
+    DELETED
+}
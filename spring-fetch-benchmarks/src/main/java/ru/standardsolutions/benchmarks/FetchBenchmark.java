@@ -0,0 +1,95 @@
+package ru.standardsolutions.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import ru.standardsolutions.FetchManager;
+import ru.standardsolutions.FetchResponse;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выборка страницы {@code FetchManager.performFetch} целиком: построение запроса, выборка содержимого,
+ * подсчет и преобразование в DTO на встроенной базе H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FetchBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+
+    private EntityManager entityManager;
+
+    private SimpleJpaRepository<Employee, Long> repository;
+
+    private FetchRequest exact;
+
+    private FetchRequest uncounted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(rows);
+        entityManager = database.entityManager();
+        repository = new SimpleJpaRepository<>(Employee.class, entityManager);
+        exact = request(CountStrategy.EXACT);
+        uncounted = request(CountStrategy.NONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        database.close();
+    }
+
+    /**
+     * Очищает контекст персистентности, чтобы каждая выборка материализовала сущности заново.
+     */
+    @Setup(Level.Invocation)
+    public void clear() {
+        entityManager.clear();
+    }
+
+    @Benchmark
+    public FetchResponse<EmployeeDto> performFetchExactCount() {
+        return FetchManager.performFetch(repository, EmployeeDto::of, exact);
+    }
+
+    @Benchmark
+    public FetchResponse<EmployeeDto> performFetchWithoutCount() {
+        return FetchManager.performFetch(repository, EmployeeDto::of, uncounted);
+    }
+
+    private static FetchRequest request(CountStrategy count) {
+        return new FetchRequestBuilder()
+                .equals("status", "ACTIVE")
+                .greaterThanOrEquals("age", "30")
+                .lessThan("age", "40")
+                .sortDesc("age")
+                .sortAsc("id")
+                .page(3, 50)
+                .count(count)
+                .build();
+    }
+}
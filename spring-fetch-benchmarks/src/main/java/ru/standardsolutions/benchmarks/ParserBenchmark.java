@@ -0,0 +1,71 @@
+package ru.standardsolutions.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.standardsolutions.FetchRequestParser;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.SortRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор строк фильтрации и сортировки.
+ * <p>
+ * {@code parseFilterRepeated} разбирает одну и ту же строку и измеряет попадание в кэш разбора,
+ * {@code parseFilterDistinct} - каждый раз новую строку, как при фильтрах по пользовательскому вводу.
+ * {@code parseAndChainDistinct} и {@code parseAndChainDistinctRegex} сравнивают однопроходный разборщик
+ * с прежним разбором регулярным выражением ({@link RegexFilterParser}) на строке только из условий через
+ * {@code AND}, которую понимают оба.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private static final String FILTER = "status:ACTIVE AND age>:30 AND age<65 AND "
+            + "(name like \"Иван%\" OR department.name in (Sales, Support, \"Research, Development\")) "
+            + "AND NOT hired<2020-01-01";
+
+    private static final String AND_CHAIN = "status:ACTIVE AND age>:30 AND age<65 AND name like \"Иван%\" AND "
+            + "hired>:2020-01-01";
+
+    private static final String SORT = "department.name:asc,age:desc,id:asc";
+
+    private long sequence;
+
+    @Benchmark
+    public List<FilterRequest> parseFilterRepeated() {
+        return FetchRequestParser.parseFilter(FILTER);
+    }
+
+    @Benchmark
+    public List<FilterRequest> parseFilterDistinct() {
+        return FetchRequestParser.parseFilter(FILTER + " AND salary>" + sequence++);
+    }
+
+    @Benchmark
+    public List<FilterRequest> parseAndChainDistinct() {
+        return FetchRequestParser.parseFilter(AND_CHAIN + " AND salary>" + sequence++);
+    }
+
+    @Benchmark
+    public List<FilterRequest> parseAndChainDistinctRegex() {
+        return RegexFilterParser.parseFilter(AND_CHAIN + " AND salary>" + sequence++);
+    }
+
+    @Benchmark
+    public List<SortRequest> parseSort() {
+        return FetchRequestParser.parseSort(SORT);
+    }
+}
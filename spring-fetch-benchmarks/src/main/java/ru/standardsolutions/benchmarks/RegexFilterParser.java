@@ -0,0 +1,45 @@
+package ru.standardsolutions.benchmarks;
+
+import ru.standardsolutions.request.FilterRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор строки фильтрации регулярным выражением в том виде, в котором он был до однопроходного разборщика:
+ * строка делится по {@code AND}, и для каждой части заново компилируется шаблон. Служит точкой отсчета для
+ * {@link ParserBenchmark}; поддерживает только условия через {@code AND}.
+ */
+final class RegexFilterParser {
+
+    private static final String FILTER_PATTERN =
+            "(?<field>[a-zA-Z_][a-zA-Z_0-9]*)\\s*(?<operator><:|>:|<|>|:|!:|like|in|not in)\\s*(?<value>\"[^\"]*\"|[^\\s,]+)";
+
+    private RegexFilterParser() {
+    }
+
+    static List<FilterRequest> parseFilter(String filterString) {
+        List<FilterRequest> filters = new ArrayList<>();
+        if (filterString == null || filterString.isEmpty()) {
+            return filters;
+        }
+        String[] filterParts = filterString.split("(?i) AND ");
+        for (String filterPart : filterParts) {
+            Pattern pattern = Pattern.compile(FILTER_PATTERN, Pattern.CASE_INSENSITIVE);
+            Matcher matcher = pattern.matcher(filterPart);
+            if (!matcher.find()) {
+                continue;
+            }
+            String field = matcher.group("field");
+            String operator = matcher.group("operator");
+            String value = matcher.group("value").replace("\"", "");
+            if (operator.equals("in") || operator.equals("not in")) {
+                value = value.replace("(", "").replace(")", "");
+            }
+            filters.add(new FilterRequest(field, operator, value, List.of()));
+        }
+        return filters;
+    }
+}
@@ -0,0 +1,141 @@
+package ru.standardsolutions.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.standardsolutions.FetchConfiguration;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.request.FilterRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение предиката {@code FetchSpecification.toPredicate} для плоского набора фильтров и для глубоко
+ * вложенного дерева групп {@code AND}, {@code OR} и {@code NOT}.
+ * <p>
+ * {@code toPredicate} берет план построения из кэша по форме запроса, {@code toPredicateColdPlan} - с кэшем
+ * планов нулевого размера, то есть подготавливает план при каждом вызове, как для формы запроса, которая
+ * встречается впервые.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBenchmark {
+
+    @Param({"flat", "nested"})
+    private String tree;
+
+    private BenchmarkDatabase database;
+
+    private EntityManager entityManager;
+
+    private CriteriaBuilder criteriaBuilder;
+
+    private FetchRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(0);
+        entityManager = database.entityManager();
+        criteriaBuilder = entityManager.getCriteriaBuilder();
+        request = "flat".equals(tree) ? flat() : nested();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Predicate toPredicate() {
+        CriteriaQuery<Employee> query = criteriaBuilder.createQuery(Employee.class);
+        Root<Employee> root = query.from(Employee.class);
+        return request.<Employee>toSpecification().toPredicate(root, query, criteriaBuilder);
+    }
+
+    @Benchmark
+    public Predicate toPredicateColdPlan(ColdPlanCache coldPlanCache) {
+        return toPredicate();
+    }
+
+    /**
+     * Отключает кэш планов на время бенчмарка.
+     */
+    @State(Scope.Benchmark)
+    public static class ColdPlanCache {
+
+        private int planCacheSize;
+
+        @Setup(Level.Trial)
+        public void disable() {
+            planCacheSize = FetchConfiguration.getPlanCacheSize();
+            FetchConfiguration.setPlanCacheSize(0);
+        }
+
+        @TearDown(Level.Trial)
+        public void restore() {
+            FetchConfiguration.setPlanCacheSize(planCacheSize);
+        }
+    }
+
+    private static FetchRequest flat() {
+        return new FetchRequestBuilder()
+                .equals("status", "ACTIVE")
+                .greaterThanOrEquals("age", "30")
+                .lessThan("age", "65")
+                .like("name", "Employee 1%")
+                .greaterThan("salary", "1000.50")
+                .lessThanOrEquals("hired", "2023-12-31")
+                .in("department.name", "Department 1", "Department 2", "Department 3")
+                .notEquals("department.id", "7")
+                .build();
+    }
+
+    private static FetchRequest nested() {
+        FilterRequest leaf = or(
+                and(comparison("status", ":", "ACTIVE"), comparison("age", ">", "30")),
+                and(comparison("department.name", "like", "Department 1%"), not(comparison("salary", "<", "100"))));
+        FilterRequest tree = leaf;
+        for (int depth = 0; depth < 4; depth++) {
+            tree = or(and(tree, comparison("hired", ">:", "2015-01-01")), not(and(leaf, comparison("age", "<", "20"))));
+        }
+        return new FetchRequest(List.of(tree), List.of(), null);
+    }
+
+    private static FilterRequest comparison(String field, String operator, String value) {
+        return new FilterRequest(field, operator, value, List.of());
+    }
+
+    private static FilterRequest and(FilterRequest... filters) {
+        return new FilterRequest(null, "AND", null, List.of(filters));
+    }
+
+    private static FilterRequest or(FilterRequest... filters) {
+        return new FilterRequest(null, "OR", null, List.of(filters));
+    }
+
+    private static FilterRequest not(FilterRequest filter) {
+        return new FilterRequest(null, "NOT", null, List.of(filter));
+    }
+}
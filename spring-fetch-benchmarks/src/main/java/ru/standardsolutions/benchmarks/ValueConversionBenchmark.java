@@ -0,0 +1,77 @@
+package ru.standardsolutions.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.standardsolutions.convert.ValueConverters;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование строкового значения фильтра к типу поля для каждого встроенного типа.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueConversionBenchmark {
+
+    private static final Map<String, Class<?>> TYPES = Map.of(
+            "String", String.class,
+            "Integer", Integer.class,
+            "Long", Long.class,
+            "BigDecimal", BigDecimal.class,
+            "Boolean", Boolean.class,
+            "UUID", UUID.class,
+            "LocalDate", LocalDate.class,
+            "LocalDateTime", LocalDateTime.class,
+            "Instant", Instant.class,
+            "Enum", EmployeeStatus.class);
+
+    private static final Map<String, String> VALUES = Map.of(
+            "String", "Employee 42",
+            "Integer", "42",
+            "Long", "9000000000",
+            "BigDecimal", "12345.67",
+            "Boolean", "true",
+            "UUID", "3f2504e0-4f89-11d3-9a0c-0305e82c3301",
+            "LocalDate", "2024-03-15",
+            "LocalDateTime", "2024-03-15 10:30:00",
+            "Instant", "2024-03-15T10:30:00Z",
+            "Enum", "blocked");
+
+    @Param({"String", "Integer", "Long", "BigDecimal", "Boolean", "UUID", "LocalDate", "LocalDateTime", "Instant",
+            "Enum"})
+    private String type;
+
+    private Class<?> fieldType;
+
+    private String value;
+
+    @Setup
+    public void setUp() {
+        fieldType = TYPES.get(type);
+        value = VALUES.get(type);
+    }
+
+    @Benchmark
+    public Comparable<?> convert() {
+        return ValueConverters.convert(value, fieldType);
+    }
+}
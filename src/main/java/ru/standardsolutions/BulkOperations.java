@@ -0,0 +1,258 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.jpa.EntityManagerProxy;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import ru.standardsolutions.metadata.EntityMetadata;
+import ru.standardsolutions.metadata.FieldDescriptor;
+import ru.standardsolutions.request.FetchRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Массовое изменение и удаление строк по фильтрам запроса выборки без загрузки сущностей.
+ * <p>
+ * Фильтры без ассоциаций становятся условием {@code CriteriaUpdate} или {@code CriteriaDelete} напрямую.
+ * Массовые операции JPA не допускают соединений, поэтому фильтры по полям ассоциаций выполняются
+ * подзапросом {@code id in (select id ...)}. При обработке порциями идентификаторы выбираются по возрастанию
+ * первичного ключа с условием {@code id > последний}, и каждая порция изменяется условием {@code id in (...)}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class BulkOperations {
+
+    /**
+     * Изменяет или удаляет строки, прошедшие фильтры.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param metadata      описание полей сущности
+     * @param fetchRequest  запрос после проверки и упрощения фильтров
+     * @param assignments   новые значения полей или {@code null} для удаления
+     * @param chunkSize     размер порции; {@code 0} - одной командой
+     * @return количество измененных строк
+     */
+    static <E> long execute(EntityManager entityManager, Class<E> entityType, EntityMetadata metadata,
+                            FetchRequest fetchRequest, Map<String, ?> assignments, int chunkSize) {
+        final Specification<E> specification = fetchRequest.toSpecification();
+        final EntityType<E> model = entityManager.getMetamodel().entity(entityType);
+        final String id = model.hasSingleIdAttribute() ? model.getId(model.getIdType().getJavaType()).getName() : null;
+        final Map<String, Object> values = assignments == null ? null : convert(metadata, id, assignments);
+        if (chunkSize <= 0) {
+            final boolean joined = isJoined(entityManager, entityType, specification);
+            if (joined && id == null) {
+                throw compositeId(model, "фильтры по полям ассоциаций");
+            }
+            return statement(entityManager, entityType, model, values, (root, statement) ->
+                    restrict(entityManager, entityType, specification, joined, id, root, statement));
+        }
+        if (id == null) {
+            throw compositeId(model, "обработка порциями");
+        }
+
+        final boolean separate = FetchConfiguration.getTransactionManager() != null
+                && entityManager instanceof EntityManagerProxy;
+        final TransactionTemplate transaction = separate ? writeTransaction() : null;
+        long affected = 0;
+        Object last = null;
+        while (true) {
+            final Object after = last;
+            final Chunk chunk = inTransaction(transaction, () -> {
+                List<Object> ids = selectIds(entityManager, entityType, specification, id, after, chunkSize);
+                if (ids.isEmpty()) {
+                    return new Chunk(ids, 0);
+                }
+                return new Chunk(ids, statement(entityManager, entityType, model, values, (root, statement) ->
+                        InListPredicates.create(entityManager.getCriteriaBuilder(), root.get(id), ids, false)));
+            });
+            affected += chunk.affected();
+            if (chunk.ids().size() < chunkSize) {
+                return affected;
+            }
+            last = chunk.ids().get(chunk.ids().size() - 1);
+        }
+    }
+
+    /**
+     * Порция: выбранные идентификаторы и количество измененных строк.
+     */
+    private record Chunk(List<Object> ids, long affected) {
+    }
+
+    /**
+     * Условие массовой операции на корне команды.
+     */
+    private interface Restriction<E> {
+        Predicate apply(Root<E> root, CommonAbstractCriteria statement);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> long statement(EntityManager entityManager, Class<E> entityType, EntityType<E> model,
+                                      Map<String, Object> values, Restriction<E> restriction) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        if (values == null) {
+            final CriteriaDelete<E> delete = criteriaBuilder.createCriteriaDelete(entityType);
+            final Root<E> root = delete.from(entityType);
+            delete.where(restriction.apply(root, delete));
+            return entityManager.createQuery(delete).executeUpdate();
+        }
+        final CriteriaUpdate<E> update = criteriaBuilder.createCriteriaUpdate(entityType);
+        final Root<E> root = update.from(entityType);
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            Path<Object> path = (Path<Object>) path(root, value.getKey());
+            if (value.getValue() == null) {
+                update.<Object>set(path, criteriaBuilder.nullLiteral(path.getJavaType()));
+            } else {
+                update.set(path, value.getValue());
+            }
+        }
+        final SingularAttribute<? super E, ?> version = versionAttribute(model);
+        if (version != null
+                && Number.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(version.getJavaType()))) {
+            Path<Number> versionPath = root.get(version.getName());
+            update.set(versionPath, criteriaBuilder.sum(versionPath, 1));
+        }
+        update.where(restriction.apply(root, update));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Условие по фильтрам: прямое, если фильтры не соединяют ассоциации, иначе подзапрос по идентификаторам.
+     */
+    private static <E> Predicate restrict(EntityManager entityManager, Class<E> entityType,
+                                          Specification<E> specification, boolean joined, String id,
+                                          Root<E> root, CommonAbstractCriteria statement) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        if (!joined) {
+            return toPredicate(specification, root, criteriaBuilder);
+        }
+        final Subquery<?> ids = statement.subquery(entityManager.getMetamodel().entity(entityType).getIdType()
+                .getJavaType());
+        final Root<E> filtered = ids.from(entityType);
+        ids.select(filtered.get(id)).where(toPredicate(specification, filtered, criteriaBuilder));
+        return root.get(id).in(ids);
+    }
+
+    private static <E> Predicate toPredicate(Specification<E> specification, Root<E> root,
+                                             CriteriaBuilder criteriaBuilder) {
+        final Predicate predicate = specification.toPredicate(root, criteriaBuilder.createTupleQuery(),
+                criteriaBuilder);
+        return predicate == null ? criteriaBuilder.conjunction() : predicate;
+    }
+
+    /**
+     * Проверяет, соединяют ли фильтры ассоциации, построив их условие на пробном запросе.
+     */
+    private static <E> boolean isJoined(EntityManager entityManager, Class<E> entityType,
+                                        Specification<E> specification) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> probe = criteriaBuilder.createTupleQuery();
+        final Root<E> root = probe.from(entityType);
+        specification.toPredicate(root, probe, criteriaBuilder);
+        return !root.getJoins().isEmpty();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <E> List<Object> selectIds(EntityManager entityManager, Class<E> entityType,
+                                              Specification<E> specification, String id, Object after,
+                                              int chunkSize) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        final Root<E> root = query.from(entityType);
+        final Path idPath = root.get(id);
+        final List<Predicate> predicates = new ArrayList<>(2);
+        final Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (after != null) {
+            predicates.add(criteriaBuilder.greaterThan((Expression<Comparable>) idPath, (Comparable) after));
+        }
+        query.multiselect(idPath).distinct(true).where(predicates.toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(idPath));
+        return entityManager.createQuery(query).setMaxResults(chunkSize).getResultList().stream()
+                .map(tuple -> tuple.get(0))
+                .toList();
+    }
+
+    /**
+     * Приводит новые значения к типам полей и проверяет, что поля можно изменить массовой командой.
+     */
+    private static Map<String, Object> convert(EntityMetadata metadata, String id, Map<String, ?> assignments) {
+        if (assignments.isEmpty()) {
+            throw new IllegalArgumentException("Не заданы изменяемые поля");
+        }
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> assignment : assignments.entrySet()) {
+            FieldDescriptor field = metadata.resolve(assignment.getKey());
+            if (field.isAssociation() || !field.getAssociationPaths().isEmpty()) {
+                throw new IllegalArgumentException("Поле " + assignment.getKey()
+                        + " нельзя изменить массовой командой: путь содержит ассоциацию");
+            }
+            if (field.getPath().equals(id)) {
+                throw new IllegalArgumentException("Первичный ключ нельзя изменить массовой командой");
+            }
+            Object value = assignment.getValue();
+            values.put(field.getPath(), value == null || field.getJavaType().isInstance(value)
+                    ? value
+                    : field.convert(value));
+        }
+        return values;
+    }
+
+    private static Path<?> path(Root<?> root, String fieldPath) {
+        Path<?> path = root;
+        for (String segment : fieldPath.split("\\.")) {
+            path = path.get(segment);
+        }
+        return path;
+    }
+
+    private static IllegalArgumentException compositeId(EntityType<?> model, String feature) {
+        return new IllegalArgumentException("Для массовой команды требуется простой первичный ключ ("
+                + feature + "): " + model.getName());
+    }
+
+    private static <E> SingularAttribute<? super E, ?> versionAttribute(EntityType<E> model) {
+        if (!model.hasVersionAttribute()) {
+            return null;
+        }
+        for (SingularAttribute<? super E, ?> attribute : model.getSingularAttributes()) {
+            if (attribute.isVersion()) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    private static <V> V inTransaction(TransactionTemplate transaction, Supplier<V> action) {
+        return transaction == null ? action.get() : transaction.execute(status -> action.get());
+    }
+
+    private static TransactionTemplate writeTransaction() {
+        final TransactionTemplate transaction = new TransactionTemplate(FetchConfiguration.getTransactionManager());
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction;
+    }
+}
@@ -0,0 +1,67 @@
+package ru.standardsolutions;
+
+import ru.standardsolutions.request.FilterRequest;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш общего количества записей с ограниченным временем жизни.
+ * <p>
+ * Ключом служат репозиторий и нормализованный набор фильтров: сортировка и страница на количество не влияют,
+ * поэтому все страницы одного списка используют одно значение.
+ */
+final class CountCache {
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Возвращает кэшированное количество либо подсчитывает и сохраняет его.
+     *
+     * @param repository репозиторий
+     * @param filters    фильтры запроса
+     * @param counter    точный подсчет
+     * @return количество записей
+     */
+    long get(Object repository, List<FilterRequest> filters, LongSupplier counter) {
+        Key key = new Key(repository, filters);
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - now > 0) {
+                return entry.count;
+            }
+        }
+        long count = counter.getAsLong();
+        Duration ttl = FetchConfiguration.getCountCacheTtl();
+        synchronized (entries) {
+            entries.remove(key);
+            entries.put(key, new Entry(count, now + ttl.toNanos()));
+            evict(now);
+        }
+        return count;
+    }
+
+    private void evict(long now) {
+        int maxSize = FetchConfiguration.getCountCacheSize();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entries.size() > maxSize || entry.expiresAt - now <= 0) {
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private record Key(Object repository, List<FilterRequest> filters) {
+    }
+
+    private record Entry(long count, long expiresAt) {
+    }
+}
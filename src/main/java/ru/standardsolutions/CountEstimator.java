@@ -0,0 +1,29 @@
+package ru.standardsolutions;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+
+import java.util.OptionalLong;
+
+/**
+ * Оценщик количества записей для {@link CountStrategy#ESTIMATED}.
+ * <p>
+ * Реализация может, например, брать оценку строк из плана запроса или статистики таблицы.
+ * Если оценка недоступна, ответ возвращается без общего количества, как при {@link CountStrategy#NONE}.
+ */
+@FunctionalInterface
+public interface CountEstimator {
+
+    /**
+     * Оценивает количество записей, удовлетворяющих фильтрам запроса.
+     *
+     * @param repository    репозиторий, по которому выполняется выборка
+     * @param specification спецификация фильтров запроса
+     * @param fetchRequest  запрос
+     * @return оценка количества или пустое значение, если оценка недоступна
+     */
+    OptionalLong estimate(JpaSpecificationExecutor<?> repository, Specification<?> specification,
+                          FetchRequest fetchRequest);
+}
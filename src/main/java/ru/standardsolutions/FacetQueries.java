@@ -0,0 +1,231 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import ru.standardsolutions.aggregate.Facet;
+import ru.standardsolutions.aggregate.FacetBucket;
+import ru.standardsolutions.aggregate.FacetResult;
+import ru.standardsolutions.aggregate.Metric;
+import ru.standardsolutions.metadata.EntityMetadata;
+import ru.standardsolutions.metadata.FieldDescriptor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Построение и выполнение запроса фасета: {@code GROUP BY} по полям группировки с агрегатными функциями
+ * над строками, прошедшими фильтры запроса выборки.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class FacetQueries {
+
+    private static final Set<Class<?>> DATE_TYPES = Set.of(LocalDate.class, LocalDateTime.class,
+            OffsetDateTime.class, ZonedDateTime.class, Instant.class);
+
+    /**
+     * Проверяет фасеты по описанию полей сущности до выполнения запросов.
+     *
+     * @param metadata описание полей сущности
+     * @param facets   фасеты
+     * @throws IllegalArgumentException если имена фасетов повторяются, поле не найдено или не подходит для
+     *                                  группировки либо функции
+     */
+    static void validate(EntityMetadata metadata, List<Facet> facets) {
+        if (facets.isEmpty()) {
+            throw new IllegalArgumentException("Не заданы фасеты");
+        }
+        Set<String> names = new HashSet<>();
+        for (Facet facet : facets) {
+            if (!names.add(facet.getName())) {
+                throw new IllegalArgumentException("Повторяющееся имя фасета: " + facet.getName());
+            }
+            for (Facet.Group group : facet.getGroups()) {
+                FieldDescriptor field = value(metadata, facet, group.field());
+                if (group.granularity() != Facet.Granularity.VALUE && !isDate(field.getJavaType())) {
+                    throw invalid(facet, "поле " + group.field() + " не является датой");
+                }
+            }
+            for (Metric metric : facet.getMetrics()) {
+                if (metric.field() == null) {
+                    continue;
+                }
+                FieldDescriptor field = value(metadata, facet, metric.field());
+                Metric.Function function = metric.function();
+                if ((function == Metric.Function.SUM || function == Metric.Function.AVG)
+                        && !Number.class.isAssignableFrom(field.getJavaType())) {
+                    throw invalid(facet, "поле " + metric.field() + " не является числом");
+                }
+                if ((function == Metric.Function.MIN || function == Metric.Function.MAX)
+                        && !Comparable.class.isAssignableFrom(field.getJavaType())) {
+                    throw invalid(facet, "значения поля " + metric.field() + " не сравниваются");
+                }
+            }
+        }
+    }
+
+    /**
+     * Выполняет запрос фасета.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param metadata      описание полей сущности
+     * @param specification фильтры запроса
+     * @param facet         фасет
+     * @return результат фасета
+     */
+    static <E> FacetResult execute(EntityManager entityManager, Class<E> entityType, EntityMetadata metadata,
+                                   Specification<E> specification, Facet facet) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        final Root<E> root = query.from(entityType);
+        final Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        final JoinRegistry joins = new JoinRegistry(root, metadata, Set.of());
+
+        final List<Expression<?>> groupBy = new ArrayList<>();
+        for (Facet.Group group : facet.getGroups()) {
+            Path<?> path = joins.getFieldPath(group.field());
+            switch (group.granularity()) {
+                case VALUE -> groupBy.add(path);
+                case YEAR -> groupBy.add(criteriaBuilder.function("year", Integer.class, path));
+                case MONTH -> {
+                    groupBy.add(criteriaBuilder.function("year", Integer.class, path));
+                    groupBy.add(criteriaBuilder.function("month", Integer.class, path));
+                }
+            }
+        }
+        final List<Expression<?>> metrics = new ArrayList<>();
+        for (Metric metric : facet.getMetrics()) {
+            metrics.add(metric(criteriaBuilder, root, joins, metric));
+        }
+
+        final List<Selection<?>> selection = new ArrayList<>(groupBy);
+        selection.addAll(metrics);
+        query.multiselect(selection);
+        if (!groupBy.isEmpty()) {
+            query.groupBy(groupBy);
+        }
+        final List<Order> orders = new ArrayList<>();
+        if (facet.getLimit() > 0) {
+            orders.add(criteriaBuilder.desc(metrics.get(0)));
+        }
+        groupBy.forEach(expression -> orders.add(criteriaBuilder.asc(expression)));
+        query.orderBy(orders);
+
+        final TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (facet.getLimit() > 0) {
+            typedQuery.setMaxResults(facet.getLimit());
+        }
+        final List<FacetBucket> buckets = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            buckets.add(bucket(facet, tuple.toArray()));
+        }
+        return result(facet, buckets);
+    }
+
+    /**
+     * Результат фасета для заведомо ложных фильтров, такой же, как у запроса без строк: без групп или, для фасета
+     * без полей группировки, одна группа с нулевым количеством.
+     *
+     * @param facet фасет
+     * @return результат фасета
+     */
+    static FacetResult empty(Facet facet) {
+        if (!facet.getGroups().isEmpty()) {
+            return result(facet, List.of());
+        }
+        Object[] values = new Object[facet.getMetrics().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = facet.getMetrics().get(i).function() == Metric.Function.COUNT ? 0L : null;
+        }
+        FacetBucket total = new FacetBucket(List.of(), Collections.unmodifiableList(Arrays.asList(values)));
+        return result(facet, List.of(total));
+    }
+
+    private static FacetResult result(Facet facet, List<FacetBucket> buckets) {
+        return new FacetResult(facet.getName(),
+                facet.getGroups().stream().map(Facet.Group::name).toList(),
+                facet.getMetrics().stream().map(Metric::name).toList(),
+                buckets);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Expression<?> metric(CriteriaBuilder criteriaBuilder, Root<?> root, JoinRegistry joins,
+                                        Metric metric) {
+        if (metric.field() == null) {
+            return criteriaBuilder.count(root);
+        }
+        Path<?> path = joins.getFieldPath(metric.field());
+        return switch (metric.function()) {
+            case COUNT -> criteriaBuilder.count(path);
+            case SUM -> criteriaBuilder.sum((Expression<Number>) path);
+            case AVG -> criteriaBuilder.avg((Expression<Number>) path);
+            case MIN -> criteriaBuilder.least((Expression<Comparable>) path);
+            case MAX -> criteriaBuilder.greatest((Expression<Comparable>) path);
+        };
+    }
+
+    private static FacetBucket bucket(Facet facet, Object[] row) {
+        Object[] key = new Object[facet.getGroups().size()];
+        int column = 0;
+        for (int i = 0; i < key.length; i++) {
+            switch (facet.getGroups().get(i).granularity()) {
+                case VALUE -> key[i] = row[column++];
+                case YEAR -> {
+                    Integer year = (Integer) row[column++];
+                    key[i] = year == null ? null : Year.of(year);
+                }
+                case MONTH -> {
+                    Integer year = (Integer) row[column++];
+                    Integer month = (Integer) row[column++];
+                    key[i] = year == null || month == null ? null : YearMonth.of(year, month);
+                }
+            }
+        }
+        Object[] values = Arrays.copyOfRange(row, column, row.length);
+        return new FacetBucket(Collections.unmodifiableList(Arrays.asList(key)),
+                Collections.unmodifiableList(Arrays.asList(values)));
+    }
+
+    private static FieldDescriptor value(EntityMetadata metadata, Facet facet, String path) {
+        FieldDescriptor field = metadata.resolve(path);
+        if (field.isAssociation()) {
+            throw invalid(facet, path + " - ассоциация, а не поле");
+        }
+        return field;
+    }
+
+    private static boolean isDate(Class<?> type) {
+        return DATE_TYPES.contains(type) || Date.class.isAssignableFrom(type);
+    }
+
+    private static IllegalArgumentException invalid(Facet facet, String message) {
+        return new IllegalArgumentException("Некорректный фасет " + facet.getName() + ": " + message);
+    }
+}
@@ -0,0 +1,179 @@
+package ru.standardsolutions;
+
+import io.micrometer.observation.ObservationRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.standardsolutions.guard.FetchGuard;
+import ru.standardsolutions.guard.PolicyFetchGuard;
+import ru.standardsolutions.search.LikeTextSearch;
+import ru.standardsolutions.search.TextSearchStrategy;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Глобальные настройки выборки, используемые {@link FetchManager}.
+ * <p>
+ * Значения по умолчанию подходят для большинства приложений; настройки задаются один раз при старте.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FetchConfiguration {
+
+    /**
+     * Оценщик количества записей для {@link ru.standardsolutions.request.CountStrategy#ESTIMATED}.
+     * Если не задан, ответ возвращается без общего количества.
+     */
+    @Getter
+    @Setter
+    private static volatile CountEstimator countEstimator;
+
+    /**
+     * Время жизни кэшированного количества для {@link ru.standardsolutions.request.CountStrategy#CACHED}.
+     */
+    @Getter
+    @Setter
+    private static volatile Duration countCacheTtl = Duration.ofSeconds(30);
+
+    /**
+     * Максимальное количество кэшированных значений для {@link ru.standardsolutions.request.CountStrategy#CACHED}.
+     */
+    @Getter
+    @Setter
+    private static volatile int countCacheSize = 10_000;
+
+    /**
+     * Максимальное количество планов построения предиката, кэшируемых по форме запроса.
+     */
+    @Getter
+    @Setter
+    private static volatile int planCacheSize = 1024;
+
+    /**
+     * Дополнять списки {@code in} и {@code not in} до степени двойки, чтобы списки близкой длины давали
+     * одинаковый SQL.
+     */
+    @Getter
+    @Setter
+    private static volatile boolean inListPadding = true;
+
+    /**
+     * Максимальное количество значений в одном {@code in}; более длинные списки разбиваются на группы.
+     */
+    @Getter
+    @Setter
+    private static volatile int inListChunkSize = 1000;
+
+    /**
+     * Количество значений, начиная с которого список передается одним параметром-массивом: {@code in}
+     * выполняется как {@code = any(?)}, {@code not in} - как {@code <> all(?)}. Значение {@code 0} отключает
+     * передачу массивом.
+     */
+    @Getter
+    @Setter
+    private static volatile int inListArrayThreshold = 0;
+
+    /**
+     * Размер порции строк при потоковой выборке: передается драйверу JDBC как fetch size,
+     * после каждой порции контекст персистентности очищается.
+     */
+    @Getter
+    @Setter
+    private static volatile int streamFetchSize = 1000;
+
+    /**
+     * Считать SQL-запросы, выполненные при преобразовании сущностей страницы, и писать предупреждение
+     * о вероятной проблеме N+1. Требует {@link StatementCounter}, который регистрирует автоконфигурация.
+     */
+    @Getter
+    @Setter
+    private static volatile boolean detectNPlusOne = false;
+
+    /**
+     * Исполнитель фоновых задач выборки, по умолчанию - новый виртуальный поток на задачу.
+     */
+    @Getter
+    @Setter
+    private static volatile ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Менеджер транзакций для запросов, выполняемых в фоновых потоках. Задается автоконфигурацией;
+     * без него {@link ru.standardsolutions.request.CountStrategy#PARALLEL} выполняется последовательно.
+     */
+    @Getter
+    @Setter
+    private static volatile PlatformTransactionManager transactionManager;
+
+    /**
+     * Время ожидания параллельного подсчета; по его истечении подсчет прерывается,
+     * а ответ возвращается без общего количества.
+     */
+    @Getter
+    @Setter
+    private static volatile Duration parallelCountTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Максимальное количество запросов фасетов {@link FetchManager#aggregate}, выполняемых одновременно.
+     * Значение {@code 1} выполняет их последовательно в текущей транзакции.
+     */
+    @Getter
+    @Setter
+    private static volatile int facetParallelism = 4;
+
+    /**
+     * Максимальное количество потоков, между которыми распределяются выборки {@link FetchManager#performBatch}.
+     * Значение {@code 1} выполняет их последовательно в текущей транзакции.
+     */
+    @Getter
+    @Setter
+    private static volatile int batchParallelism = 4;
+
+    /**
+     * Хранилище результатов для {@link FetchManager#performCachedFetch}, по умолчанию - в памяти процесса
+     * на 1000 результатов со временем жизни 30 секунд.
+     */
+    @Getter
+    @Setter
+    private static volatile FetchResultCache resultCache = new InMemoryFetchResultCache(Duration.ofSeconds(30), 1000);
+
+    /**
+     * Реестр наблюдений Micrometer для выборок и их этапов. Задается автоконфигурацией; без реестра
+     * наблюдения не создаются.
+     */
+    @Getter
+    @Setter
+    private static volatile ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
+    /**
+     * Получатель событий о медленных выборках.
+     */
+    @Getter
+    @Setter
+    private static volatile SlowFetchListener slowFetchListener;
+
+    /**
+     * Длительность выборки, начиная с которой она считается медленной.
+     */
+    @Getter
+    @Setter
+    private static volatile Duration slowFetchThreshold = Duration.ofSeconds(1);
+
+    /**
+     * Проверка стоимости запроса, выполняемая до построения спецификации. По умолчанию действуют
+     * ограничения {@link ru.standardsolutions.guard.FetchPolicy#defaults()} для всех сущностей.
+     */
+    @Getter
+    @Setter
+    private static volatile FetchGuard fetchGuard = new PolicyFetchGuard();
+
+    /**
+     * Способ построения условия оператора {@code search}. По умолчанию - {@link LikeTextSearch}, который
+     * работает в любой базе данных, но не использует индексы.
+     */
+    @Getter
+    @Setter
+    private static volatile TextSearchStrategy textSearchStrategy = new LikeTextSearch();
+}
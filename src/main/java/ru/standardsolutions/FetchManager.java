@@ -1,21 +1,127 @@
 package ru.standardsolutions;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.ScrollPosition.Direction;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.jpa.EntityManagerProxy;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import ru.standardsolutions.aggregate.AggregateResponse;
+import ru.standardsolutions.aggregate.Facet;
+import ru.standardsolutions.aggregate.FacetResult;
+import ru.standardsolutions.batch.FetchBatchEntry;
+import ru.standardsolutions.batch.FetchBatchResponse;
+import ru.standardsolutions.batch.FetchBatchResult;
 import ru.standardsolutions.dto.generic.GenericFetchRequestDto;
+import ru.standardsolutions.dto.generic.filters.FilterBindings;
+import ru.standardsolutions.guard.FetchRequestRejectedException;
+import ru.standardsolutions.guard.FetchViolation;
+import ru.standardsolutions.metadata.EntityMetadata;
+import ru.standardsolutions.metadata.EntityMetadataRegistry;
+import ru.standardsolutions.metadata.FieldDescriptor;
+import ru.standardsolutions.projection.Projection;
+import ru.standardsolutions.request.CountStrategy;
 import ru.standardsolutions.request.FetchRequest;
 import ru.standardsolutions.request.FetchRequestBuilder;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
+@Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class FetchManager {
 
+    private static final CountCache COUNT_CACHE = new CountCache();
+
+    private static final ResultCacheLoader RESULT_CACHE = new ResultCacheLoader();
+
+    private static final Map<Class<?>, Class<?>> REPOSITORY_ENTITY_TYPES = new ConcurrentHashMap<>();
+
+    private static final Method DOMAIN_CLASS = domainClassMethod();
+
+    /**
+     * Выполняет выборку по DTO запроса, фильтры которого связаны с полями сущности аннотациями
+     * {@link ru.standardsolutions.dto.generic.filters.FilterField}.
+     *
+     * @param repository репозиторий сущностей
+     * @param mapper     преобразование сущности в DTO
+     * @param request    DTO запроса
+     * @param <E>        тип сущности
+     * @param <T>        тип DTO
+     * @param <R>        тип DTO запроса
+     * @return страница DTO
+     */
+    public static <E, T, R extends GenericFetchRequestDto<?, ?>> FetchResponse<T> performFetch(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            R request
+    ) {
+        return performFetch(repository, mapper, request, builder -> {
+        });
+    }
+
+    /**
+     * Выполняет выборку по DTO запроса: к фильтрам из аннотаций
+     * {@link ru.standardsolutions.dto.generic.filters.FilterField} добавляются фильтры {@code filterConfigurator}.
+     *
+     * @param repository         репозиторий сущностей
+     * @param mapper             преобразование сущности в DTO
+     * @param request            DTO запроса
+     * @param filterConfigurator дополнительные фильтры
+     * @param <E>                тип сущности
+     * @param <T>                тип DTO
+     * @param <R>                тип DTO запроса
+     * @return страница DTO
+     */
     public static <E, T, R extends GenericFetchRequestDto<?, ?>> FetchResponse<T> performFetch(
             JpaSpecificationExecutor<E> repository,
             Function<E, T> mapper,
@@ -29,18 +135,1038 @@ public class FetchManager {
                     .sort(sortField.getField().getValue(), sortField.getDirection().getValue()));
         }
 
+        FilterBindings.apply(request.getFilters(), fetchRequestBuilder);
         filterConfigurator.accept(fetchRequestBuilder);
 
         final FetchRequest fetchRequest = fetchRequestBuilder
                 .page(request.getPage().getNumber(), request.getPage().getSize())
+                .cursor(request.getPage().getCursor())
                 .build();
 
-        final Page<E> entityPage = repository.findAll(fetchRequest.toSpecification(), fetchRequest.toPageable());
+        return performFetch(repository, mapper, fetchRequest);
+    }
+
+    /**
+     * Выполняет выборку по готовому запросу.
+     * <p>
+     * В режиме выборки по ключу ответ содержит курсоры соседних страниц вместо номера страницы и общего
+     * количества. Перед выполнением запрос проверяется {@link FetchConfiguration#getFetchGuard()}, а его фильтры
+     * упрощаются; заведомо ложные фильтры дают пустую страницу без обращения к базе данных. Тип сущности
+     * определяется по параметру {@link JpaSpecificationExecutor} класса репозитория, а у созданного напрямую
+     * {@code SimpleJpaRepository} - по его классу сущности; если его определить не удалось, запрос отклоняется.
+     *
+     * @param repository   репозиторий сущностей
+     * @param mapper       преобразование сущности в DTO
+     * @param fetchRequest запрос
+     * @param <E>          тип сущности
+     * @param <T>          тип DTO
+     * @return страница DTO
+     * @throws ru.standardsolutions.guard.FetchRequestRejectedException если запрос превышает допустимую стоимость
+     */
+    public static <E, T> FetchResponse<T> performFetch(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest
+    ) {
+        final Class<?> entityType = entityType(repository);
+        return performCheckedFetch(repository, mapper, entityType,
+                prepare(entityType, EntityMetadataRegistry.find(entityType), fetchRequest));
+    }
 
-        final List<T> dtoList = entityPage.getContent().stream()
-                .map(mapper)
-                .toList();
+    private static <E, T> FetchResponse<T> performCheckedFetch(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            Class<?> entityType,
+            FetchRequest checkedRequest
+    ) {
+        final FetchObservation observation = FetchObservation.of(() -> entityType, checkedRequest);
+        return observation.observe(() -> performFetch(repository, mapper, checkedRequest, observation));
+    }
+
+    private static <E, T> FetchResponse<T> performFetch(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest,
+            FetchObservation observation
+    ) {
+        if (FilterOptimizer.isEmptyResult(fetchRequest)) {
+            return emptyResponse(fetchRequest);
+        }
+        if (fetchRequest.isKeyset()) {
+            return performKeysetFetch(repository, mapper, fetchRequest, observation);
+        }
+        if (fetchRequest.getCount() == CountStrategy.PARALLEL && FetchConfiguration.getTransactionManager() != null) {
+            return performParallelFetch(repository, mapper, fetchRequest, observation);
+        }
+        if (fetchRequest.getCount() != CountStrategy.EXACT && fetchRequest.getCount() != CountStrategy.PARALLEL) {
+            return performApproximateFetch(repository, mapper, fetchRequest, observation);
+        }
+
+        final Specification<E> specification = fetchRequest.toSpecification();
+        final Pageable pageable = fetchRequest.toPageable();
+
+        final Window<E> window = observation.stage(FetchObservation.CONTENT,
+                () -> scrollPage(repository, specification, pageable));
+        final Page<E> entityPage = PageableExecutionUtils.getPage(window.getContent(), pageable,
+                () -> observation.stage(FetchObservation.COUNT, () -> repository.count(specification)));
+
+        final List<T> dtoList = mapContent(repository, entityPage.getContent(), mapper, fetchRequest, observation);
 
         return new FetchResponse<>(entityPage, dtoList);
     }
+
+    /**
+     * Выполняет выборку по готовому запросу через кэш результатов {@link FetchConfiguration#getResultCache()}.
+     * <p>
+     * Ключом служат тип сущности репозитория, запрос после проверки и упрощения фильтров и идентификатор
+     * маппера: равносильные запросы, например {@code status:NEW OR status:PAID} и {@code status in NEW,PAID},
+     * попадают в одну запись, а разные преобразования одной выборки кэшируются раздельно. Одновременные
+     * промахи по одному ключу выполняют одну выборку. Результаты сбрасываются при фиксации вставки, изменения
+     * или удаления сущности этого типа через Hibernate, а также вызовом {@link #invalidateResults(Class)};
+     * массовые JPQL-запросы и изменения связанных сущностей сброс не вызывают, их устаревание ограничено
+     * временем жизни результата. Закэшированный ответ общий для всех вызывающих, поэтому DTO не должны
+     * изменяться.
+     *
+     * @param repository   репозиторий сущностей
+     * @param mapperId     идентификатор преобразования, одинаковый для одинаковых мапперов
+     * @param mapper       преобразование сущности в DTO
+     * @param fetchRequest запрос
+     * @param <E>          тип сущности
+     * @param <T>          тип DTO
+     * @return страница DTO
+     */
+    public static <E, T> FetchResponse<T> performCachedFetch(
+            JpaSpecificationExecutor<E> repository,
+            String mapperId,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest
+    ) {
+        final Class<?> entityType = entityType(repository);
+        final FetchRequest checkedRequest = prepare(entityType, EntityMetadataRegistry.find(entityType), fetchRequest);
+        final FetchResultKey key = new FetchResultKey(entityType, checkedRequest, mapperId);
+        return RESULT_CACHE.get(FetchConfiguration.getResultCache(), key,
+                () -> performCheckedFetch(repository, mapper, entityType, checkedRequest));
+    }
+
+    /**
+     * Сбрасывает кэшированные результаты выборок сущностей указанного типа и его суперклассов.
+     *
+     * @param entityType тип сущности
+     */
+    public static void invalidateResults(Class<?> entityType) {
+        RESULT_CACHE.invalidate(FetchConfiguration.getResultCache(), entityType);
+    }
+
+    /**
+     * Возвращает статистику кэша результатов.
+     *
+     * @return количество попаданий, промахов, объединенных промахов и сбросов
+     */
+    public static FetchResultCacheStatistics resultCacheStatistics() {
+        return RESULT_CACHE.statistics();
+    }
+
+    /**
+     * Тип сущности репозитория: по параметру {@link JpaSpecificationExecutor} класса репозитория, для прокси -
+     * по его цели, для {@link SimpleJpaRepository} без параметра в классе - по его классу сущности.
+     *
+     * @throws FetchRequestRejectedException если тип сущности определить не удалось: без него запрос нельзя
+     *                                       проверить {@link FetchConfiguration#getFetchGuard()}
+     */
+    private static Class<?> entityType(JpaSpecificationExecutor<?> repository) {
+        final Class<?> resolved = REPOSITORY_ENTITY_TYPES.computeIfAbsent(repository.getClass(), repositoryClass -> {
+            Class<?> entityType = ResolvableType.forClass(repositoryClass)
+                    .as(JpaSpecificationExecutor.class).resolveGeneric(0);
+            return entityType == null ? Object.class : entityType;
+        });
+        if (resolved != Object.class) {
+            return resolved;
+        }
+        if (AopProxyUtils.getSingletonTarget(repository) instanceof JpaSpecificationExecutor<?> target
+                && target != repository) {
+            return entityType(target);
+        }
+        if (repository instanceof SimpleJpaRepository<?, ?> simpleRepository) {
+            return (Class<?>) ReflectionUtils.invokeMethod(DOMAIN_CLASS, simpleRepository);
+        }
+        throw new FetchRequestRejectedException(null, List.of(new FetchViolation(FetchViolation.Code.ENTITY_TYPE,
+                null, "не удалось определить тип сущности репозитория " + repository.getClass().getName())));
+    }
+
+    private static Method domainClassMethod() {
+        final Method method = ReflectionUtils.findMethod(SimpleJpaRepository.class, "getDomainClass");
+        ReflectionUtils.makeAccessible(method);
+        return method;
+    }
+
+    /**
+     * Выполняет выборку по готовому запросу асинхронно на {@link FetchConfiguration#getExecutor()}.
+     *
+     * @see #performFetchAsync(JpaSpecificationExecutor, Function, FetchRequest, Executor)
+     */
+    public static <E, T> CompletableFuture<FetchResponse<T>> performFetchAsync(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest
+    ) {
+        return performFetchAsync(repository, mapper, fetchRequest, FetchConfiguration.getExecutor());
+    }
+
+    /**
+     * Выполняет выборку по готовому запросу асинхронно, не занимая вызывающий поток.
+     * <p>
+     * Выборка и преобразование в DTO выполняются на исполнителе в отдельной транзакции только для чтения, если
+     * задан {@link FetchConfiguration#getTransactionManager()}, поэтому ленивые ассоциации доступны в маппере.
+     * Ошибки выборки завершают результат исключительно.
+     *
+     * @param repository   репозиторий сущностей
+     * @param mapper       преобразование сущности в DTO
+     * @param fetchRequest запрос
+     * @param executor     исполнитель выборки
+     * @param <E>          тип сущности
+     * @param <T>          тип DTO
+     * @return будущая страница DTO
+     */
+    public static <E, T> CompletableFuture<FetchResponse<T>> performFetchAsync(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest,
+            Executor executor
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (FetchConfiguration.getTransactionManager() == null) {
+                return performFetch(repository, mapper, fetchRequest);
+            }
+            return readOnlyTransaction(TransactionDefinition.TIMEOUT_DEFAULT)
+                    .execute(status -> performFetch(repository, mapper, fetchRequest));
+        }, executor);
+    }
+
+    /**
+     * Выполняет несколько независимых выборок одним вызовом, например для экрана из нескольких таблиц.
+     * <p>
+     * Запросы проверяются {@link FetchConfiguration#getFetchGuard()} и упрощаются до выполнения; одинаковые
+     * выборки (тот же тип сущности, тот же экземпляр маппера и равные запросы) выполняются один раз, и их ответ
+     * общий. Если задан {@link FetchConfiguration#getTransactionManager()}, выборки распределяются между
+     * не более чем {@link FetchConfiguration#getBatchParallelism()} потоками исполнителя; выборки одного потока
+     * выполняются в общей транзакции только для чтения с одним соединением и не видят незафиксированных
+     * изменений текущей транзакции. При параллельности {@code 1} выборки выполняются последовательно в текущей
+     * транзакции, а если ее нет - в одной новой транзакции только для чтения. Подсчет
+     * {@link CountStrategy#PARALLEL} в пакете выполняется как {@link CountStrategy#EXACT} в потоке выборки:
+     * выборки пакета уже занимают потоки исполнителя, и ожидание ими собственных фоновых задач могло бы
+     * исчерпать исполнитель и пул соединений.
+     * <p>
+     * Ошибка одной выборки, в том числе отказ проверки запроса, не прерывает остальные: она сохраняется
+     * в результате этой выборки и выбрасывается при получении ее ответа. Общая транзакция после ошибки
+     * откатывается, и следующие выборки потока продолжаются в новой; если транзакцию не удалось начать,
+     * ошибка сохраняется для всех оставшихся выборок потока. Выборка в текущей транзакции может при ошибке
+     * пометить ее для отката, как и отдельный вызов {@link #performFetch(JpaSpecificationExecutor, Function,
+     * FetchRequest)}.
+     *
+     * @param entries выборки, например {@code FetchBatchEntry.of(orderRepository, OrderDto::of, request)}
+     * @return результаты в порядке выборок
+     * @throws IllegalStateException если ожидание пакета прервано
+     */
+    public static FetchBatchResponse performBatch(List<? extends FetchBatchEntry<?, ?>> entries) {
+        final List<FetchBatchEntry<?, ?>> ordered = List.copyOf(entries);
+        final FetchBatchResult<?>[] results = new FetchBatchResult<?>[ordered.size()];
+        final Map<BatchKey, BatchTask> tasks = new LinkedHashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            final FetchBatchEntry<?, ?> entry = ordered.get(i);
+            try {
+                final Class<?> entityType = entityType(entry.repository());
+                final FetchRequest checkedRequest = batchRequest(prepare(entityType,
+                        EntityMetadataRegistry.find(entityType), entry.request()));
+                tasks.computeIfAbsent(new BatchKey(entry.repository(), entry.mapper(), checkedRequest),
+                        key -> new BatchTask(entry, entityType, checkedRequest, new ArrayList<>())).positions().add(i);
+            } catch (RuntimeException e) {
+                results[i] = FetchBatchResult.failure(e);
+            }
+        }
+
+        final List<BatchTask> unique = new ArrayList<>(tasks.values());
+        final List<FetchBatchResult<?>> computed = performBatchTasks(unique);
+        for (int i = 0; i < unique.size(); i++) {
+            for (int position : unique.get(i).positions()) {
+                results[position] = computed.get(i);
+            }
+        }
+        return new FetchBatchResponse(ordered, List.of(results));
+    }
+
+    /**
+     * Выполняет несколько независимых выборок одним вызовом, см. {@link #performBatch(List)}.
+     *
+     * @param entries выборки
+     * @return результаты в порядке выборок
+     */
+    public static FetchBatchResponse performBatch(FetchBatchEntry<?, ?>... entries) {
+        return performBatch(List.of(entries));
+    }
+
+    /**
+     * Запрос выборки пакета: параллельный подсчет заменяется точным.
+     */
+    private static FetchRequest batchRequest(FetchRequest request) {
+        if (request.getCount() != CountStrategy.PARALLEL) {
+            return request;
+        }
+        return new FetchRequest(request.getFilters(), request.getSort(), request.getPage(), request.getPagination(),
+                CountStrategy.EXACT, request.getPrefetch());
+    }
+
+    /**
+     * Ключ одинаковых выборок пакета. Репозиторий и маппер сравниваются как объекты: ссылки на один метод,
+     * созданные в разных местах, считаются разными.
+     */
+    private record BatchKey(JpaSpecificationExecutor<?> repository, Function<?, ?> mapper, FetchRequest request) {
+    }
+
+    /**
+     * Выборка пакета после проверки запроса и индексы выборок, получающих ее ответ.
+     */
+    private record BatchTask(FetchBatchEntry<?, ?> entry, Class<?> entityType, FetchRequest request,
+                             List<Integer> positions) {
+
+        FetchBatchResult<?> perform() {
+            return performBatchEntry(entry, entityType, request);
+        }
+    }
+
+    private static <E, T> FetchBatchResult<T> performBatchEntry(FetchBatchEntry<E, T> entry, Class<?> entityType,
+                                                                FetchRequest checkedRequest) {
+        try {
+            return FetchBatchResult.success(
+                    performCheckedFetch(entry.repository(), entry.mapper(), entityType, checkedRequest));
+        } catch (RuntimeException e) {
+            return FetchBatchResult.failure(e);
+        }
+    }
+
+    private static List<FetchBatchResult<?>> performBatchTasks(List<BatchTask> tasks) {
+        final int parallelism = Math.min(FetchConfiguration.getBatchParallelism(), tasks.size());
+        if (parallelism < 2 || FetchConfiguration.getTransactionManager() == null) {
+            final TransactionTemplate transaction = FetchConfiguration.getTransactionManager() == null
+                    || TransactionSynchronizationManager.isActualTransactionActive()
+                    ? null
+                    : readOnlyTransaction(TransactionDefinition.TIMEOUT_DEFAULT);
+            return performBatchGroup(tasks, transaction);
+        }
+
+        final TransactionTemplate transaction = readOnlyTransaction(TransactionDefinition.TIMEOUT_DEFAULT);
+        final List<Future<List<FetchBatchResult<?>>>> groups = new ArrayList<>(parallelism);
+        for (int group = 0; group < parallelism; group++) {
+            final List<BatchTask> assigned = new ArrayList<>();
+            for (int i = group; i < tasks.size(); i += parallelism) {
+                assigned.add(tasks.get(i));
+            }
+            groups.add(FetchConfiguration.getExecutor().submit(() -> performBatchGroup(assigned, transaction)));
+        }
+        try {
+            final FetchBatchResult<?>[] ordered = new FetchBatchResult<?>[tasks.size()];
+            for (int group = 0; group < groups.size(); group++) {
+                final List<FetchBatchResult<?>> computed = groups.get(group).get();
+                for (int i = 0; i < computed.size(); i++) {
+                    ordered[group + i * parallelism] = computed.get(i);
+                }
+            }
+            return List.of(ordered);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Выполнение пакета выборок прервано", e);
+        } finally {
+            groups.forEach(group -> group.cancel(true));
+        }
+    }
+
+    /**
+     * Выполняет выборки одного потока пакета по порядку. Общая транзакция всегда откатывается, так как
+     * изменений в ней нет; после ошибки выборки она завершается, и оставшиеся выборки получают новую.
+     */
+    private static List<FetchBatchResult<?>> performBatchGroup(List<BatchTask> tasks, TransactionTemplate transaction) {
+        final List<FetchBatchResult<?>> results = new ArrayList<>(tasks.size());
+        if (transaction == null) {
+            tasks.forEach(task -> results.add(task.perform()));
+            return results;
+        }
+        while (results.size() < tasks.size()) {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    status.setRollbackOnly();
+                    while (results.size() < tasks.size()) {
+                        FetchBatchResult<?> result = tasks.get(results.size()).perform();
+                        results.add(result);
+                        if (!result.isSuccess()) {
+                            return;
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                while (results.size() < tasks.size()) {
+                    results.add(FetchBatchResult.failure(e));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Выборка страницы без точного {@code COUNT(*)}: содержимое выбирается с лимитом на одну запись больше
+     * размера страницы, а общее количество берется из кэша, от оценщика или не вычисляется вовсе.
+     */
+    private static <E, T> FetchResponse<T> performApproximateFetch(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest,
+            FetchObservation observation
+    ) {
+        final Specification<E> specification = fetchRequest.toSpecification();
+        final Pageable pageable = fetchRequest.toPageable();
+
+        final Window<E> window = observation.stage(FetchObservation.CONTENT,
+                () -> scrollPage(repository, specification, pageable));
+
+        final List<T> dtoList = mapContent(repository, window.getContent(), mapper, fetchRequest, observation);
+
+        final OptionalLong total = switch (fetchRequest.getCount()) {
+            case CACHED -> OptionalLong.of(COUNT_CACHE.get(repository, fetchRequest.getFilters(),
+                    () -> observation.stage(FetchObservation.COUNT, () -> repository.count(specification))));
+            case ESTIMATED -> observation.stage(FetchObservation.COUNT,
+                    () -> estimateCount(repository, specification, fetchRequest));
+            default -> OptionalLong.empty();
+        };
+        if (total.isEmpty()) {
+            return new FetchResponse<>(window, pageable, dtoList);
+        }
+        return new FetchResponse<>(new PageImpl<>(window.getContent(), pageable, total.getAsLong()), dtoList, false);
+    }
+
+    /**
+     * Выборка содержимого и точный подсчет в двух фоновых задачах, каждая в своей транзакции только для чтения
+     * и со своим соединением. Содержимое выбирается с лимитом на одну запись больше размера страницы: если
+     * страница последняя и непустая (или первая), количество известно без подсчета и подсчет отменяется.
+     * Подсчет ограничен {@link FetchConfiguration#getParallelCountTimeout()} как таймаутом транзакции, так и
+     * ожиданием результата; при превышении ответ возвращается без общего количества.
+     */
+    private static <E, T> FetchResponse<T> performParallelFetch(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest,
+            FetchObservation observation
+    ) {
+        final Specification<E> specification = fetchRequest.toSpecification();
+        final Pageable pageable = fetchRequest.toPageable();
+        final Duration timeout = FetchConfiguration.getParallelCountTimeout();
+        final ExecutorService executor = FetchConfiguration.getExecutor();
+        final TransactionTemplate contentTransaction = readOnlyTransaction(TransactionDefinition.TIMEOUT_DEFAULT);
+        final TransactionTemplate countTransaction = readOnlyTransaction((int) Math.max(1, timeout.toSeconds()));
+
+        final Future<Long> count = executor.submit(() -> countTransaction.execute(
+                status -> observation.stage(FetchObservation.COUNT, () -> repository.count(specification))));
+        final Future<FetchResponse<T>> content = executor.submit(() -> contentTransaction.execute(status -> {
+            Window<E> window = observation.stage(FetchObservation.CONTENT,
+                    () -> scrollPage(repository, specification, pageable));
+            return new FetchResponse<>(window, pageable, mapContent(repository, window.getContent(), mapper,
+                    fetchRequest, observation));
+        }));
+
+        try {
+            final FetchResponse<T> window = content.get();
+            final List<T> dtoList = window.getContent();
+            if (window.getLast() && (pageable.getOffset() == 0 || !dtoList.isEmpty())) {
+                count.cancel(true);
+                return new FetchResponse<>(new PageImpl<>(dtoList, pageable, pageable.getOffset() + dtoList.size()),
+                        dtoList);
+            }
+            final long total;
+            try {
+                total = count.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                count.cancel(true);
+                log.warn("Подсчет количества не завершился за {}, ответ возвращен без общего количества", timeout);
+                return window;
+            }
+            return new FetchResponse<>(new PageImpl<>(dtoList, pageable, total), dtoList);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Выборка прервана", e);
+        } finally {
+            content.cancel(true);
+            count.cancel(true);
+        }
+    }
+
+    /**
+     * Выбирает страницу с лимитом на одну запись больше ее размера, чтобы определить наличие следующей.
+     */
+    private static <E> Window<E> scrollPage(JpaSpecificationExecutor<E> repository, Specification<E> specification,
+                                            Pageable pageable) {
+        final ScrollPosition position = pageable.getOffset() == 0
+                ? ScrollPosition.offset()
+                : ScrollPosition.offset(pageable.getOffset() - 1);
+        return repository.findBy(specification,
+                query -> query.sortBy(pageable.getSort()).limit(pageable.getPageSize()).scroll(position));
+    }
+
+    private static TransactionTemplate readOnlyTransaction(int timeoutSeconds) {
+        final TransactionTemplate transaction = new TransactionTemplate(FetchConfiguration.getTransactionManager());
+        transaction.setReadOnly(true);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setTimeout(timeoutSeconds);
+        return transaction;
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("Ошибка фоновой выборки", e.getCause());
+    }
+
+    private static <E> OptionalLong estimateCount(JpaSpecificationExecutor<E> repository,
+                                                  Specification<E> specification,
+                                                  FetchRequest fetchRequest) {
+        CountEstimator estimator = FetchConfiguration.getCountEstimator();
+        return estimator == null ? OptionalLong.empty() : estimator.estimate(repository, specification, fetchRequest);
+    }
+
+    /**
+     * Выборка по ключу: условие на значения ключей сортировки из курсора и сортировка с добавленным
+     * первичным ключом строятся Spring Data, количество записей не подсчитывается.
+     */
+    private static <E, T> FetchResponse<T> performKeysetFetch(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest,
+            FetchObservation observation
+    ) {
+        final String cursor = fetchRequest.getPage().getCursor();
+        final KeysetScrollPosition position = cursor == null ? ScrollPosition.keyset() : KeysetCursor.decode(cursor);
+        final int pageSize = fetchRequest.getPage().getSize();
+        final Specification<E> specification = fetchRequest.toSpecification();
+        final Sort sort = fetchRequest.toSort();
+
+        final Window<E> window = observation.stage(FetchObservation.CONTENT, () -> repository.findBy(specification,
+                query -> query.sortBy(sort).limit(pageSize).scroll(position)));
+
+        final List<T> dtoList = mapContent(repository, window.getContent(), mapper, fetchRequest, observation);
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!window.isEmpty()) {
+            Map<String, Object> firstKeys = keysAt(window, 0);
+            Map<String, Object> lastKeys = keysAt(window, window.size() - 1);
+            if (position.scrollsBackward()) {
+                nextCursor = KeysetCursor.encode(lastKeys, Direction.FORWARD);
+                prevCursor = window.hasNext() ? KeysetCursor.encode(firstKeys, Direction.BACKWARD) : null;
+            } else {
+                nextCursor = window.hasNext() ? KeysetCursor.encode(lastKeys, Direction.FORWARD) : null;
+                prevCursor = position.isInitial() ? null : KeysetCursor.encode(firstKeys, Direction.BACKWARD);
+            }
+        }
+
+        return new FetchResponse<>(dtoList, pageSize, nextCursor, prevCursor);
+    }
+
+    /**
+     * Выборка страницы проекций: выбираются только поля, перечисленные в проекции, без загрузки сущностей
+     * в контекст персистентности, строки результата собираются непосредственно из значений полей.
+     * <p>
+     * Фильтры и сортировка применяются так же, как в {@link #performFetch(JpaSpecificationExecutor, Function,
+     * FetchRequest)}; поля проекции через ассоциации соединяются через LEFT JOIN, если фильтр не создал
+     * соединение раньше. Выборка по ключу для проекций не поддерживается. Для {@link CountStrategy#NONE}
+     * общее количество не подсчитывается, для остальных способов выполняется точный подсчет
+     * ({@link CountStrategy#CACHED} переиспользует его для одинаковых фильтров).
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param projection    проекция, например {@code Projection.of(OrderRow.class)}
+     * @param fetchRequest  запрос
+     * @param <E>           тип сущности
+     * @param <R>           тип строки результата
+     * @return страница проекций
+     */
+    public static <E, R> FetchResponse<R> performFetch(
+            EntityManager entityManager,
+            Class<E> entityType,
+            Projection<R> projection,
+            FetchRequest fetchRequest
+    ) {
+        if (fetchRequest.isKeyset()) {
+            throw new IllegalArgumentException("Выборка по ключу не поддерживается для проекций");
+        }
+        final FetchRequest checkedRequest = prepare(entityType, metadata(entityManager, entityType), fetchRequest);
+        final FetchObservation observation = FetchObservation.of(() -> entityType, checkedRequest);
+        return observation.observe(
+                () -> performProjectionFetch(entityManager, entityType, projection, checkedRequest, observation));
+    }
+
+    private static <E, R> FetchResponse<R> performProjectionFetch(
+            EntityManager entityManager,
+            Class<E> entityType,
+            Projection<R> projection,
+            FetchRequest fetchRequest,
+            FetchObservation observation
+    ) {
+        if (FilterOptimizer.isEmptyResult(fetchRequest)) {
+            return emptyResponse(fetchRequest);
+        }
+        final Specification<E> specification = fetchRequest.toSpecification();
+        final Pageable pageable = fetchRequest.toPageable();
+        final boolean counted = fetchRequest.getCount() != CountStrategy.NONE;
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        final Root<E> root = query.from(entityType);
+        final Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        final JoinRegistry joins = new JoinRegistry(root, Set.of());
+        query.multiselect(projection.getPaths().stream().<Selection<?>>map(joins::getFieldPath).toList());
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        final List<Tuple> tuples = observation.stage(FetchObservation.CONTENT, () -> entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(counted ? pageable.getPageSize() : pageable.getPageSize() + 1)
+                .getResultList());
+        final boolean hasNext = tuples.size() > pageable.getPageSize();
+        final List<R> content = observation.stage(FetchObservation.MAP, () -> tuples.stream()
+                .limit(pageable.getPageSize())
+                .map(tuple -> projection.create(tuple.toArray()))
+                .toList());
+
+        if (!counted) {
+            return new FetchResponse<>(Window.from(content, ScrollPosition::offset, hasNext), pageable, content);
+        }
+        final LongSupplier counter = () -> observation.stage(FetchObservation.COUNT,
+                () -> countProjection(entityManager, entityType, specification));
+        final long total = fetchRequest.getCount() == CountStrategy.CACHED
+                ? COUNT_CACHE.get(entityType, fetchRequest.getFilters(), counter)
+                : counter.getAsLong();
+        return new FetchResponse<>(new PageImpl<>(content, pageable, total), content);
+    }
+
+    private static <E> long countProjection(EntityManager entityManager, Class<E> entityType,
+                                            Specification<E> specification) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        final Root<E> root = query.from(entityType);
+        final Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Потоковая выборка всех записей по запросу для выгрузок.
+     * <p>
+     * Выполняет один запрос с прокруткой вперед без подсчета и без постраничной выборки: параметры страницы
+     * запроса игнорируются, фильтры и сортировка применяются. Строки читаются из JDBC порциями по
+     * {@link FetchConfiguration#getStreamFetchSize()}, сущности загружаются только для чтения и после
+     * каждой порции контекст персистентности очищается, поэтому память не растет с количеством строк.
+     * <p>
+     * Очистка отсоединяет и другие сущности контекста, поэтому вызывать метод следует в отдельной транзакции
+     * только для чтения; транзакция нужна и для того, чтобы драйвер (например, PostgreSQL) читал строки
+     * порциями. Поток нужно закрыть, например через try-with-resources.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param mapper        преобразование сущности в DTO, выполняется до очистки контекста
+     * @param fetchRequest  запрос
+     * @param <E>           тип сущности
+     * @param <T>           тип DTO
+     * @return поток DTO
+     */
+    public static <E, T> Stream<T> stream(
+            EntityManager entityManager,
+            Class<E> entityType,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest
+    ) {
+        final FetchRequest checkedRequest = prepare(entityType, metadata(entityManager, entityType), fetchRequest);
+        if (FilterOptimizer.isEmptyResult(checkedRequest)) {
+            return Stream.empty();
+        }
+        final int fetchSize = FetchConfiguration.getStreamFetchSize();
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<E> query = criteriaBuilder.createQuery(entityType);
+        final Root<E> root = query.from(entityType);
+        final Predicate predicate = checkedRequest.<E>toSpecification().toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(checkedRequest.toSort(), root, criteriaBuilder));
+
+        final Stream<E> entities = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+
+        final int[] loaded = {0};
+        return entities.map(entity -> {
+            T dto = mapper.apply(entity);
+            if (++loaded[0] == fetchSize) {
+                entityManager.clear();
+                loaded[0] = 0;
+            }
+            return dto;
+        });
+    }
+
+    /**
+     * Потоковая обработка всех записей по запросу, см. {@link #stream(EntityManager, Class, Function, FetchRequest)}.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param mapper        преобразование сущности в DTO
+     * @param fetchRequest  запрос
+     * @param action        обработчик DTO
+     * @param <E>           тип сущности
+     * @param <T>           тип DTO
+     */
+    public static <E, T> void forEach(
+            EntityManager entityManager,
+            Class<E> entityType,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest,
+            Consumer<? super T> action
+    ) {
+        try (Stream<T> stream = stream(entityManager, entityType, mapper, fetchRequest)) {
+            stream.forEach(action);
+        }
+    }
+
+    /**
+     * Вычисляет фасеты по фильтрам запроса: для каждого фасета выполняется {@code GROUP BY} по его полям
+     * с агрегатными функциями над строками, прошедшими фильтры. Сортировка и параметры страницы запроса
+     * не учитываются.
+     * <p>
+     * Если фасетов несколько, задан {@link FetchConfiguration#getTransactionManager() менеджер транзакций}
+     * и передан общий менеджер сущностей Spring (внедренный через {@code @PersistenceContext}), запросы
+     * фасетов выполняются одновременно, не более {@link FetchConfiguration#getFacetParallelism()}, каждый
+     * поток - в своей транзакции только для чтения; такие запросы не видят незафиксированных изменений
+     * текущей транзакции. Иначе фасеты вычисляются последовательно в текущей транзакции.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param fetchRequest  запрос, из которого используются фильтры
+     * @param facets        фасеты, например {@code new FacetBuilder("byStatus").by("status").count().build()}
+     * @param <E>           тип сущности
+     * @return результаты фасетов в порядке их перечисления
+     * @throws IllegalArgumentException если имена фасетов повторяются или поле фасета не подходит для
+     *                                  группировки либо функции
+     */
+    public static <E> AggregateResponse aggregate(
+            EntityManager entityManager,
+            Class<E> entityType,
+            FetchRequest fetchRequest,
+            List<Facet> facets
+    ) {
+        final EntityMetadata metadata = metadata(entityManager, entityType);
+        FacetQueries.validate(metadata, facets);
+        final FetchRequest checkedRequest = prepare(entityType, metadata, fetchRequest);
+        final FetchObservation observation = FetchObservation.of(() -> entityType, checkedRequest);
+        return observation.observe(
+                () -> performAggregate(entityManager, entityType, metadata, facets, checkedRequest, observation));
+    }
+
+    /**
+     * Вычисляет фасеты по фильтрам запроса, см. {@link #aggregate(EntityManager, Class, FetchRequest, List)}.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param fetchRequest  запрос, из которого используются фильтры
+     * @param facets        фасеты
+     * @param <E>           тип сущности
+     * @return результаты фасетов в порядке их перечисления
+     */
+    public static <E> AggregateResponse aggregate(
+            EntityManager entityManager,
+            Class<E> entityType,
+            FetchRequest fetchRequest,
+            Facet... facets
+    ) {
+        return aggregate(entityManager, entityType, fetchRequest, List.of(facets));
+    }
+
+    private static <E> AggregateResponse performAggregate(
+            EntityManager entityManager,
+            Class<E> entityType,
+            EntityMetadata metadata,
+            List<Facet> facets,
+            FetchRequest fetchRequest,
+            FetchObservation observation
+    ) {
+        final Map<String, FacetResult> results = new LinkedHashMap<>();
+        if (FilterOptimizer.isEmptyResult(fetchRequest)) {
+            facets.forEach(facet -> results.put(facet.getName(), FacetQueries.empty(facet)));
+            return new AggregateResponse(Collections.unmodifiableMap(results));
+        }
+        final Specification<E> specification = fetchRequest.toSpecification();
+        final Function<Facet, FacetResult> query = facet -> observation.stage(FetchObservation.AGGREGATE,
+                () -> FacetQueries.execute(entityManager, entityType, metadata, specification, facet));
+        final int parallelism = Math.min(FetchConfiguration.getFacetParallelism(), facets.size());
+        if (parallelism < 2 || FetchConfiguration.getTransactionManager() == null
+                || !(entityManager instanceof EntityManagerProxy)) {
+            facets.forEach(facet -> results.put(facet.getName(), query.apply(facet)));
+            return new AggregateResponse(Collections.unmodifiableMap(results));
+        }
+
+        final TransactionTemplate transaction = readOnlyTransaction(TransactionDefinition.TIMEOUT_DEFAULT);
+        final List<Future<List<FacetResult>>> tasks = new ArrayList<>(parallelism);
+        for (int task = 0; task < parallelism; task++) {
+            final List<Facet> assigned = new ArrayList<>();
+            for (int i = task; i < facets.size(); i += parallelism) {
+                assigned.add(facets.get(i));
+            }
+            tasks.add(FetchConfiguration.getExecutor().submit(
+                    () -> transaction.execute(status -> assigned.stream().map(query).toList())));
+        }
+        try {
+            final FacetResult[] ordered = new FacetResult[facets.size()];
+            for (int task = 0; task < tasks.size(); task++) {
+                final List<FacetResult> computed = tasks.get(task).get();
+                for (int i = 0; i < computed.size(); i++) {
+                    ordered[task + i * parallelism] = computed.get(i);
+                }
+            }
+            for (FacetResult result : ordered) {
+                results.put(result.name(), result);
+            }
+            return new AggregateResponse(Collections.unmodifiableMap(results));
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Вычисление фасетов прервано", e);
+        } finally {
+            tasks.forEach(task -> task.cancel(true));
+        }
+    }
+
+    /**
+     * Изменяет поля всех строк, прошедших фильтры запроса, одной командой {@code UPDATE} без загрузки сущностей.
+     * См. {@link #updateWhere(EntityManager, Class, FetchRequest, Map, int)}.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param fetchRequest  запрос, из которого используются фильтры
+     * @param assignments   новые значения по путям полей
+     * @param <E>           тип сущности
+     * @return количество измененных строк
+     */
+    public static <E> long updateWhere(
+            EntityManager entityManager,
+            Class<E> entityType,
+            FetchRequest fetchRequest,
+            Map<String, ?> assignments
+    ) {
+        return updateWhere(entityManager, entityType, fetchRequest, assignments, 0);
+    }
+
+    /**
+     * Изменяет поля всех строк, прошедших фильтры запроса, без загрузки сущностей.
+     * <p>
+     * Фильтры проверяются так же, как при выборке, в том числе ограничениями
+     * {@link FetchConfiguration#getFetchGuard()}. Запрос без фильтров отклоняется. Значения приводятся к типам
+     * полей так же, как значения фильтров; поля на пути через ассоциацию и первичный ключ изменить нельзя.
+     * Числовая версия оптимистической блокировки увеличивается на единицу. Слушатели сущностей и контекст
+     * персистентности не затрагиваются: загруженные ранее сущности не обновляются, кэш результатов выборок
+     * сбрасывается.
+     * <p>
+     * При {@code chunkSize > 0} строки изменяются порциями по возрастанию первичного ключа; если задан
+     * {@link FetchConfiguration#getTransactionManager() менеджер транзакций} и передан общий менеджер сущностей
+     * Spring, каждая порция выполняется и фиксируется в своей транзакции, чтобы не удерживать блокировки
+     * на все строки. При ошибке уже зафиксированные порции не откатываются.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param fetchRequest  запрос, из которого используются фильтры
+     * @param assignments   новые значения по путям полей, например {@code Map.of("status", Status.ARCHIVED)}
+     * @param chunkSize     размер порции; {@code 0} - одной командой в текущей транзакции
+     * @param <E>           тип сущности
+     * @return количество измененных строк
+     * @throws IllegalArgumentException если фильтры не заданы или не прошли проверку, либо поле нельзя изменить
+     */
+    public static <E> long updateWhere(
+            EntityManager entityManager,
+            Class<E> entityType,
+            FetchRequest fetchRequest,
+            Map<String, ?> assignments,
+            int chunkSize
+    ) {
+        if (assignments == null) {
+            throw new IllegalArgumentException("Не заданы изменяемые поля");
+        }
+        return performBulk(entityManager, entityType, fetchRequest, assignments, chunkSize);
+    }
+
+    /**
+     * Удаляет все строки, прошедшие фильтры запроса, одной командой {@code DELETE} без загрузки сущностей.
+     * См. {@link #deleteWhere(EntityManager, Class, FetchRequest, int)}.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param fetchRequest  запрос, из которого используются фильтры
+     * @param <E>           тип сущности
+     * @return количество удаленных строк
+     */
+    public static <E> long deleteWhere(EntityManager entityManager, Class<E> entityType, FetchRequest fetchRequest) {
+        return deleteWhere(entityManager, entityType, fetchRequest, 0);
+    }
+
+    /**
+     * Удаляет все строки, прошедшие фильтры запроса, без загрузки сущностей. Проверка фильтров, обработка
+     * порциями и транзакции - как у {@link #updateWhere(EntityManager, Class, FetchRequest, Map, int)}; каскадное
+     * удаление и {@code orphanRemoval} не применяются.
+     *
+     * @param entityManager менеджер сущностей
+     * @param entityType    класс сущности
+     * @param fetchRequest  запрос, из которого используются фильтры
+     * @param chunkSize     размер порции; {@code 0} - одной командой в текущей транзакции
+     * @param <E>           тип сущности
+     * @return количество удаленных строк
+     * @throws IllegalArgumentException если фильтры не заданы или не прошли проверку
+     */
+    public static <E> long deleteWhere(
+            EntityManager entityManager,
+            Class<E> entityType,
+            FetchRequest fetchRequest,
+            int chunkSize
+    ) {
+        return performBulk(entityManager, entityType, fetchRequest, null, chunkSize);
+    }
+
+    private static <E> long performBulk(
+            EntityManager entityManager,
+            Class<E> entityType,
+            FetchRequest fetchRequest,
+            Map<String, ?> assignments,
+            int chunkSize
+    ) {
+        if (fetchRequest.getFilters().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Массовое изменение без фильтров не допускается: " + entityType.getName());
+        }
+        final EntityMetadata metadata = metadata(entityManager, entityType);
+        final FetchRequest checkedRequest = prepare(entityType, metadata, fetchRequest);
+        if (FilterOptimizer.isEmptyResult(checkedRequest)) {
+            return 0;
+        }
+        try {
+            return BulkOperations.execute(entityManager, entityType, metadata, checkedRequest, assignments, chunkSize);
+        } finally {
+            invalidateResults(entityType);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        invalidateResults(entityType);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Проверяет запрос через {@link FetchConfiguration#getFetchGuard()} и упрощает его фильтры.
+     */
+    private static FetchRequest prepare(Class<?> entityType, EntityMetadata metadata, FetchRequest fetchRequest) {
+        return FilterOptimizer.optimize(metadata, FetchConfiguration.getFetchGuard().check(entityType, fetchRequest));
+    }
+
+    private static EntityMetadata metadata(EntityManager entityManager, Class<?> entityType) {
+        return EntityMetadataRegistry.forEntity(entityManager.getMetamodel().entity(entityType));
+    }
+
+    /**
+     * Пустой ответ для заведомо ложных фильтров: общее количество известно и равно нулю.
+     */
+    private static <T> FetchResponse<T> emptyResponse(FetchRequest fetchRequest) {
+        if (fetchRequest.isKeyset()) {
+            return new FetchResponse<>(List.of(), fetchRequest.getPage().getSize(), null, null);
+        }
+        return new FetchResponse<>(new PageImpl<>(List.of(), fetchRequest.toPageable(), 0), List.of());
+    }
+
+    /**
+     * Загружает коллекции из {@link FetchRequest#getPrefetch()} для всей страницы и преобразует сущности.
+     * Если включено {@link FetchConfiguration#isDetectNPlusOne()}, считает запросы, выполненные во время
+     * преобразования, и предупреждает, если их не меньше, чем записей на странице.
+     */
+    private static <E, T> List<T> mapContent(JpaSpecificationExecutor<E> repository, List<E> entities,
+                                             Function<E, T> mapper, FetchRequest fetchRequest,
+                                             FetchObservation observation) {
+        return observation.stage(FetchObservation.MAP, () -> mapContent(repository, entities, mapper, fetchRequest));
+    }
+
+    private static <E, T> List<T> mapContent(JpaSpecificationExecutor<E> repository, List<E> entities,
+                                             Function<E, T> mapper, FetchRequest fetchRequest) {
+        prefetchCollections(repository, entities, fetchRequest.getPrefetch());
+        if (!FetchConfiguration.isDetectNPlusOne()) {
+            return entities.stream().map(mapper).toList();
+        }
+        StatementCounter.start();
+        List<T> dtoList;
+        try {
+            dtoList = entities.stream().map(mapper).toList();
+        } finally {
+            int statements = StatementCounter.stop();
+            if (entities.size() > 1 && statements >= entities.size()) {
+                log.warn("Преобразование {} записей выполнило {} SQL-запросов: вероятна проблема N+1, "
+                        + "укажите ассоциации в FetchRequestBuilder.prefetch(...)", entities.size(), statements);
+            }
+        }
+        return dtoList;
+    }
+
+    /**
+     * Загружает коллекции страницы отдельным запросом на каждый путь: {@code where e in (:page)} с
+     * {@code left join fetch}. Сущности страницы и результат запроса - одни и те же объекты контекста
+     * персистентности, поэтому коллекции инициализируются у сущностей страницы без размножения строк
+     * в основном запросе с пагинацией.
+     */
+    private static <E> void prefetchCollections(JpaSpecificationExecutor<E> repository, List<E> entities,
+                                                List<String> paths) {
+        if (paths.isEmpty() || entities.isEmpty()) {
+            return;
+        }
+        EntityMetadata metadata = EntityMetadataRegistry.find(entities.get(0).getClass());
+        for (String path : paths) {
+            FieldDescriptor association = metadata == null ? null : metadata.resolve(path);
+            if (association != null && !association.isAssociation()) {
+                throw new IllegalArgumentException("Путь '" + path + "' не является ассоциацией");
+            }
+            if (association != null && !association.isCollectionValued()) {
+                continue;
+            }
+            List<String> segments = association != null
+                    ? association.getSegments()
+                    : List.of(StringUtils.tokenizeToStringArray(path, "."));
+            repository.findAll((root, query, criteriaBuilder) -> {
+                if (query.getResultType() == root.getJavaType()) {
+                    FetchParent<?, ?> parent = root;
+                    for (String segment : segments) {
+                        parent = parent.fetch(segment, JoinType.LEFT);
+                    }
+                    query.distinct(true);
+                }
+                return root.in(entities);
+            });
+        }
+    }
+
+    private static Map<String, Object> keysAt(Window<?> window, int index) {
+        return ((KeysetScrollPosition) window.positionAt(index)).getKeys();
+    }
 }
@@ -0,0 +1,171 @@
+package ru.standardsolutions;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Наблюдение за одной выборкой через Micrometer Observation.
+ * <p>
+ * Выборка целиком наблюдается как {@code spring.fetch}, ее этапы - как {@code spring.fetch.<этап>}
+ * (содержимое, подсчет, преобразование в DTO, фасеты, построение предиката, разбор строки запроса). Наблюдения
+ * этапов вложены в наблюдение выборки, в том числе выполняемые в других потоках, поэтому трассировка
+ * показывает их одним деревом, а обработчики метрик получают таймеры по каждому этапу. Теги: тип сущности,
+ * хэш формы запроса, набор операторов, корзина размера страницы и способ подсчета.
+ * <p>
+ * Без {@link FetchConfiguration#getObservationRegistry() реестра} и
+ * {@link FetchConfiguration#getSlowFetchListener() получателя медленных выборок} наблюдение не создается
+ * и этапы выполняются напрямую.
+ */
+final class FetchObservation {
+
+    static final String FETCH = "spring.fetch";
+
+    static final String CONTENT = "content";
+
+    static final String COUNT = "count";
+
+    static final String MAP = "map";
+
+    static final String AGGREGATE = "aggregate";
+
+    private static final FetchObservation DISABLED = new FetchObservation(null, null, null, null, null);
+
+    private final ObservationRegistry registry;
+
+    private final Class<?> entityType;
+
+    private final FetchRequest request;
+
+    private final String shape;
+
+    private final KeyValues keyValues;
+
+    private Observation parent;
+
+    private FetchObservation(ObservationRegistry registry, Class<?> entityType, FetchRequest request, String shape,
+                             KeyValues keyValues) {
+        this.registry = registry;
+        this.entityType = entityType;
+        this.request = request;
+        this.shape = shape;
+        this.keyValues = keyValues;
+    }
+
+    /**
+     * Создает наблюдение выборки.
+     *
+     * @param entityType тип сущности, определяется только если наблюдение создается
+     * @param request    запрос
+     * @return наблюдение, не выполняющее никаких действий, если наблюдать некому
+     */
+    static FetchObservation of(Supplier<Class<?>> entityType, FetchRequest request) {
+        ObservationRegistry registry = FetchConfiguration.getObservationRegistry();
+        if (registry.isNoop() && FetchConfiguration.getSlowFetchListener() == null) {
+            return DISABLED;
+        }
+        String shape = FetchPlan.shapeOf(request);
+        Class<?> type = entityType.get();
+        KeyValues keyValues = KeyValues.of(
+                "entity", type.getSimpleName(),
+                "shape", Integer.toHexString(shape.hashCode()),
+                "operators", operators(request.getFilters()),
+                "page.size", Integer.toString(sizeBucket(request.getPage().getSize())),
+                "count", request.getCount().name());
+        return new FetchObservation(registry, type, request, shape, keyValues);
+    }
+
+    /**
+     * Выполняет выборку под наблюдением {@code spring.fetch} и сообщает о ней получателю медленных выборок.
+     *
+     * @param fetch выборка
+     * @return результат выборки
+     */
+    <V> V observe(Supplier<V> fetch) {
+        if (this == DISABLED) {
+            return fetch.get();
+        }
+        long start = System.nanoTime();
+        Observation observation = Observation.createNotStarted(FETCH, registry)
+                .lowCardinalityKeyValues(keyValues)
+                .highCardinalityKeyValue("request.shape", shape);
+        parent = observation;
+        V result = observation.observe(fetch);
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        SlowFetchListener listener = FetchConfiguration.getSlowFetchListener();
+        if (listener != null && duration.compareTo(FetchConfiguration.getSlowFetchThreshold()) >= 0) {
+            listener.onSlowFetch(new SlowFetchEvent(entityType, shape, request, duration));
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет этап выборки под наблюдением {@code spring.fetch.<stage>}, вложенным в наблюдение выборки.
+     *
+     * @param stage  этап
+     * @param action действие этапа
+     * @return результат этапа
+     */
+    <V> V stage(String stage, Supplier<V> action) {
+        if (this == DISABLED || registry.isNoop()) {
+            return action.get();
+        }
+        return Observation.createNotStarted(FETCH + "." + stage, registry)
+                .parentObservation(parent)
+                .lowCardinalityKeyValues(keyValues)
+                .observe(action);
+    }
+
+    /**
+     * Выполняет действие под отдельным наблюдением {@code spring.fetch.<stage>}, родителем которого становится
+     * текущее наблюдение потока.
+     *
+     * @param stage     этап
+     * @param keyValues теги, вычисляются только если наблюдение создается
+     * @param action    действие этапа
+     * @return результат этапа
+     */
+    static <V> V observeStage(String stage, Supplier<KeyValues> keyValues, Supplier<V> action) {
+        ObservationRegistry registry = FetchConfiguration.getObservationRegistry();
+        if (registry.isNoop()) {
+            return action.get();
+        }
+        return Observation.createNotStarted(FETCH + "." + stage, registry)
+                .lowCardinalityKeyValues(keyValues.get())
+                .observe(action);
+    }
+
+    /**
+     * Возвращает отсортированный набор операторов фильтров через запятую.
+     *
+     * @param filters фильтры
+     * @return набор операторов
+     */
+    static String operators(List<FilterRequest> filters) {
+        Set<String> operators = new TreeSet<>();
+        collectOperators(filters, operators);
+        return operators.isEmpty() ? "none" : String.join(",", operators);
+    }
+
+    private static void collectOperators(List<FilterRequest> filters, Set<String> operators) {
+        if (filters == null) {
+            return;
+        }
+        for (FilterRequest filter : filters) {
+            operators.add(Operator.fromString(filter.getOperator()).name());
+            collectOperators(filter.getFilters(), operators);
+        }
+    }
+
+    private static int sizeBucket(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+}
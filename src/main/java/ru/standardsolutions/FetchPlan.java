@@ -0,0 +1,158 @@
+package ru.standardsolutions;
+
+import ru.standardsolutions.metadata.EntityMetadata;
+import ru.standardsolutions.metadata.FieldDescriptor;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.SortRequest;
+import ru.standardsolutions.search.TextSearchFields;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static ru.standardsolutions.Operator.*;
+
+/**
+ * Заранее подготовленный план построения предиката для формы запроса.
+ * <p>
+ * Форма запроса - это поля, операторы, структура логических групп, сортировка и размер списков {@code in},
+ * округленный до степени двойки, без конкретных значений. Запросы одной формы отличаются только значениями,
+ * которые Hibernate передает в SQL параметрами, поэтому разрешенные поля, операторы и типы соединений
+ * вычисляются один раз на форму и переиспользуются. Узлы плана соответствуют фильтрам запроса по позиции.
+ */
+final class FetchPlan {
+
+    private final EntityMetadata metadata;
+
+    private final List<Node> nodes;
+
+    private final Set<String> innerJoinPaths;
+
+    private FetchPlan(EntityMetadata metadata, List<Node> nodes, Set<String> innerJoinPaths) {
+        this.metadata = metadata;
+        this.nodes = nodes;
+        this.innerJoinPaths = innerJoinPaths;
+    }
+
+    EntityMetadata getMetadata() {
+        return metadata;
+    }
+
+    List<Node> getNodes() {
+        return nodes;
+    }
+
+    Set<String> getInnerJoinPaths() {
+        return innerJoinPaths;
+    }
+
+    /**
+     * Узел плана: оператор, описание поля для условий и вложенные узлы для логических групп.
+     */
+    record Node(Operator operator, FieldDescriptor field, List<Node> children) {
+    }
+
+    /**
+     * Строит ключ формы запроса.
+     *
+     * @param fetchRequest запрос
+     * @return ключ формы
+     */
+    static String shapeOf(FetchRequest fetchRequest) {
+        StringBuilder shape = new StringBuilder();
+        appendShape(shape, fetchRequest.getFilters());
+        shape.append('|');
+        for (SortRequest sort : fetchRequest.getSort()) {
+            shape.append(sort.getField()).append(' ').append(sort.getDirection()).append(',');
+        }
+        return shape.toString();
+    }
+
+    private static void appendShape(StringBuilder shape, List<FilterRequest> filters) {
+        for (FilterRequest filter : filters) {
+            Operator operator = fromString(filter.getOperator());
+            if (operator.isLogical()) {
+                shape.append(operator.name()).append('(');
+                appendShape(shape, filter.getFilters());
+                shape.append(')');
+            } else {
+                shape.append(filter.getField()).append(' ').append(operator.name());
+                if (operator == IN || operator == NOT_IN) {
+                    shape.append(' ').append(sizeBucket(filter.getValueCount()));
+                }
+            }
+            shape.append(';');
+        }
+    }
+
+    private static int sizeBucket(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * Подготавливает план: разрешает поля фильтров и сортировки по метамодели, поэтому неизвестное поле
+     * отклоняется до создания объектов Criteria API, и определяет соединения, допускающие INNER JOIN.
+     *
+     * @param metadata     описание полей сущности
+     * @param fetchRequest запрос
+     * @return план
+     */
+    static FetchPlan compile(EntityMetadata metadata, FetchRequest fetchRequest) {
+        fetchRequest.getSort().forEach(sort -> metadata.resolve(sort.getField()));
+        Set<String> inner = new HashSet<>();
+        Set<String> outer = new HashSet<>();
+        List<Node> nodes = compile(metadata, fetchRequest.getFilters(), false, inner, outer);
+        inner.removeAll(outer);
+        return new FetchPlan(metadata, nodes, Set.copyOf(inner));
+    }
+
+    /**
+     * Все операторы сравнения ложны или неопределены для {@code null}, поэтому строка без связанной записи
+     * не проходит фильтр, стоящий под цепочкой И, в том числе под отрицанием одиночного условия. Если же хотя бы
+     * одно использование пути находится внутри группы ИЛИ или под отрицанием группы (которое раскрывается в ИЛИ),
+     * строка может пройти по другой ветке, и соединение должно остаться LEFT.
+     */
+    private static List<Node> compile(EntityMetadata metadata, List<FilterRequest> filters, boolean underOr,
+                                      Set<String> inner, Set<String> outer) {
+        List<Node> nodes = new ArrayList<>(filters.size());
+        for (FilterRequest filter : filters) {
+            Operator operator = fromString(filter.getOperator());
+            if (operator == OR || operator == AND) {
+                nodes.add(new Node(operator, null,
+                        compile(metadata, filter.getFilters(), underOr || operator == OR, inner, outer)));
+            } else if (operator == NOT) {
+                boolean singleCondition = filter.getFilters().size() == 1
+                        && !fromString(filter.getFilters().get(0).getOperator()).isLogical();
+                nodes.add(new Node(operator, null,
+                        compile(metadata, filter.getFilters(), underOr || !singleCondition, inner, outer)));
+            } else if (filter.getField() == null) {
+                throw new IllegalArgumentException("Не задано поле фильтра с оператором " + filter.getOperator());
+            } else if (operator == SEARCH) {
+                nodes.add(compileSearch(metadata, filter.getField(), underOr, inner, outer));
+            } else {
+                FieldDescriptor field = metadata.resolve(filter.getField());
+                (underOr ? outer : inner).addAll(field.getAssociationPaths());
+                nodes.add(new Node(operator, field, List.of()));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Узел поиска содержит по узлу на каждое поле набора {@link TextSearchFields}. Поиск по нескольким полям
+     * объединяет их через ИЛИ, поэтому их соединения остаются LEFT.
+     */
+    private static Node compileSearch(EntityMetadata metadata, String field, boolean underOr,
+                                      Set<String> inner, Set<String> outer) {
+        List<String> paths = TextSearchFields.resolve(metadata.getEntityType().getJavaType(), field);
+        List<Node> children = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            FieldDescriptor descriptor = metadata.resolve(path);
+            (underOr || paths.size() > 1 ? outer : inner).addAll(descriptor.getAssociationPaths());
+            children.add(new Node(SEARCH, descriptor, List.of()));
+        }
+        return new Node(SEARCH, null, children);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.standardsolutions;
+
+import ru.standardsolutions.search.TextSearchFields;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный LRU-кэш планов построения предиката по сущности и форме запроса. Ключ включает версию наборов
+ * {@link TextSearchFields}: после регистрации набора планы строятся заново, а прежние вытесняются.
+ */
+final class FetchPlanCache {
+
+    private final Map<Key, FetchPlan> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, FetchPlan> eldest) {
+            return size() > FetchConfiguration.getPlanCacheSize();
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Возвращает план из кэша либо подготавливает и сохраняет его.
+     *
+     * @param entityType тип сущности
+     * @param shape      ключ формы запроса
+     * @param compiler   подготовка плана
+     * @return план
+     */
+    FetchPlan get(Class<?> entityType, String shape, Supplier<FetchPlan> compiler) {
+        Key key = new Key(entityType, shape, TextSearchFields.version());
+        FetchPlan plan;
+        synchronized (entries) {
+            plan = entries.get(key);
+        }
+        if (plan != null) {
+            hits.increment();
+            return plan;
+        }
+        misses.increment();
+        plan = compiler.get();
+        synchronized (entries) {
+            entries.put(key, plan);
+        }
+        return plan;
+    }
+
+    FetchPlanStatistics statistics() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new FetchPlanStatistics(hits.sum(), misses.sum(), size);
+    }
+
+    private record Key(Class<?> entityType, String shape, long searchFieldsVersion) {
+    }
+}
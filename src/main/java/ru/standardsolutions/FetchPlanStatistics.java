@@ -0,0 +1,11 @@
+package ru.standardsolutions;
+
+/**
+ * Статистика кэша планов построения предиката.
+ *
+ * @param hits   количество запросов, для формы которых план уже был подготовлен
+ * @param misses количество подготовленных планов
+ * @param size   текущее количество планов в кэше
+ */
+public record FetchPlanStatistics(long hits, long misses, int size) {
+}
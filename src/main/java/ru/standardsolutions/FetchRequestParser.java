@@ -1,12 +1,11 @@
 package ru.standardsolutions;
 
+import io.micrometer.common.KeyValues;
 import ru.standardsolutions.request.FilterRequest;
 import ru.standardsolutions.request.SortRequest;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Парсер запроса по строке.
@@ -16,36 +15,46 @@ import java.util.regex.Pattern;
  */
 public class FetchRequestParser {
 
-    private static final String FILTER_PATTERN =
-            "(?<field>[a-zA-Z_][a-zA-Z_0-9]*)\\s*(?<operator><:|>:|<|>|:|!:|like|in|not in)\\s*(?<value>\"[^\"]*\"|[^\\s,]+)";
+    /**
+     * Максимальное количество разобранных строк фильтрации в кэше.
+     */
+    private static final int FILTER_CACHE_SIZE = 1024;
 
-    private static final String LOGICAL_OPERATOR_PATTERN = "and|or";
+    /**
+     * Максимальная длина строки фильтрации, результат разбора которой кэшируется.
+     */
+    private static final int FILTER_CACHE_MAX_KEY_LENGTH = 2048;
 
+    private static final ParsedFilterCache FILTER_CACHE =
+            new ParsedFilterCache(FILTER_CACHE_SIZE, FILTER_CACHE_MAX_KEY_LENGTH);
+
+    private static final String PARSE = "parse";
+
+    private static final KeyValues FILTER_PART = KeyValues.of("part", "filter");
+
+    private static final KeyValues SORT_PART = KeyValues.of("part", "sort");
+
+    /**
+     * Разбирает строку фильтрации.
+     * <p>
+     * Повторные вызовы с той же строкой возвращают результат из кэша без повторного разбора.
+     *
+     * @param filterString строка фильтрации
+     * @return неизменяемый список фильтров
+     */
     public static List<FilterRequest> parseFilter(String filterString) {
-        List<FilterRequest> filters = new ArrayList<>();
         if (filterString == null || filterString.isEmpty()) {
-            return filters;
+            return List.of();
         }
-        String[] filterParts = filterString.split("(?i) AND ");
-        for (String filterPart : filterParts) {
-            Pattern pattern = Pattern.compile(FILTER_PATTERN, Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(filterPart);
-            if (!matcher.find()) {
-                continue;
-            }
-            String field = matcher.group("field");
-            String operator = matcher.group("operator");
-            String value = matcher.group("value").replace("\"", "");
-            if (operator.equals("in") || operator.equals("not in")) {
-                value = value.replace("(", "").replace(")", ""); // Удаляем скобки
-            }
-            FilterRequest filterRequest = new FilterRequest(field, operator, value, List.of());
-            filters.add(filterRequest);
-        }
-        return filters;
+        return FetchObservation.observeStage(PARSE, () -> FILTER_PART,
+                () -> FILTER_CACHE.computeIfAbsent(filterString, FilterExpressionParser::parse));
     }
 
     public static List<SortRequest> parseSort(String sortString) {
+        return FetchObservation.observeStage(PARSE, () -> SORT_PART, () -> doParseSort(sortString));
+    }
+
+    private static List<SortRequest> doParseSort(String sortString) {
         List<SortRequest> sortRequest = new ArrayList<>();
         String[] sortFields = sortString.split(",");
         for (String sortField : sortFields) {
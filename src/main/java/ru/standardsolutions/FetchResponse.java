@@ -9,6 +9,8 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 
@@ -25,10 +27,9 @@ public class FetchResponse<T> {
     @Schema(description = "Содержимое страницы")
     private final List<T> content;
 
-    @NotNull
     @Min(value = 1, message = "Номер страницы не может быть меньше {value}")
     @Max(value = Integer.MAX_VALUE, message = "Номер страницы не может быть больше {value}")
-    @Schema(description = "Номер страницы, начинается с 1")
+    @Schema(description = "Номер страницы, начинается с 1; отсутствует при выборке по ключу")
     private final Integer pageNumber;
 
     @NotNull
@@ -43,10 +44,9 @@ public class FetchResponse<T> {
     @Schema(description = "Количество ресурсов на странице")
     private final Integer numberOfElements;
 
-    @NotNull
     @Min(value = 1, message = "Индекс первого ресурса на странице не может быть меньше {value}")
     @Max(value = Integer.MAX_VALUE, message = "Индекс первого ресурса на странице не может быть больше {value}")
-    @Schema(description = "Индекс первого ресурса на странице, начинается с 1")
+    @Schema(description = "Индекс первого ресурса на странице, начинается с 1; отсутствует при выборке по ключу")
     private final Long offset;
 
     @NotNull
@@ -57,19 +57,41 @@ public class FetchResponse<T> {
     @Schema(description = "Признак последней страницы")
     private final Boolean last;
 
-    @NotNull
     @Min(value = 0, message = "Количество страниц не может быть меньше {value}")
     @Max(value = Integer.MAX_VALUE, message = "Количество страниц не может быть больше {value}")
-    @Schema(description = "Количество страниц")
+    @Schema(description = "Количество страниц; отсутствует при выборке по ключу и если количество не подсчитано")
     private final Integer totalPages;
 
-    @NotNull
     @Min(value = 0, message = "Количество ресурсов в коллекции не может быть меньше {value}")
     @Max(value = Integer.MAX_VALUE, message = "Количество ресурсов в коллекции не может быть больше {value}")
-    @Schema(description = "Количество ресурсов в коллекции")
+    @Schema(description = "Количество ресурсов в коллекции; отсутствует при выборке по ключу и если количество "
+            + "не подсчитано")
     private final Long totalElements;
 
+    @NotNull
+    @Schema(description = "Признак точного значения общего количества ресурсов и страниц")
+    private final Boolean totalExact;
+
+    @Size(max = 1024, message = "Длина строки должна быть не более {max} символов")
+    @Schema(description = "Курсор следующей страницы при выборке по ключу, отсутствует на последней странице")
+    private final String nextCursor;
+
+    @Size(max = 1024, message = "Длина строки должна быть не более {max} символов")
+    @Schema(description = "Курсор предыдущей страницы при выборке по ключу, отсутствует на первой странице")
+    private final String prevCursor;
+
     public FetchResponse(Page<?> page, List<T> content) {
+        this(page, content, true);
+    }
+
+    /**
+     * Ответ по странице с общим количеством, которое может быть приблизительным.
+     *
+     * @param page       страница
+     * @param content    содержимое страницы
+     * @param totalExact признак точного общего количества
+     */
+    public FetchResponse(Page<?> page, List<T> content, boolean totalExact) {
         this.content = content;
         this.pageNumber = page.getNumber() + 1;
         this.pageSize = page.getSize();
@@ -79,11 +101,49 @@ public class FetchResponse<T> {
         this.last = page.isLast();
         this.totalPages = page.getTotalPages();
         this.totalElements = page.getTotalElements();
+        this.totalExact = totalExact;
+        this.nextCursor = null;
+        this.prevCursor = null;
+    }
+
+    /**
+     * Ответ по странице без подсчета общего количества: признак последней страницы определяется
+     * по наличию следующей записи, количество страниц и ресурсов не заполняется. Так отвечают выборки
+     * с {@code count=NONE}, с {@code count=ESTIMATED} без оценки и с {@code count=PARALLEL}, подсчет которых
+     * не завершился вовремя.
+     *
+     * @param window   окно выборки
+     * @param pageable параметры страницы
+     * @param content  содержимое страницы
+     */
+    public FetchResponse(Window<?> window, Pageable pageable, List<T> content) {
+        this(content, pageable.getPageNumber() + 1, pageable.getPageSize(), content.size(), pageable.getOffset() + 1,
+                pageable.getOffset() == 0, !window.hasNext(), null, null, false, null, null);
+    }
+
+    /**
+     * Ответ на выборку по ключу. Номер страницы, смещение и общее количество в этом режиме не вычисляются.
+     *
+     * @param content    содержимое страницы
+     * @param pageSize   размер страницы
+     * @param nextCursor курсор следующей страницы или {@code null}
+     * @param prevCursor курсор предыдущей страницы или {@code null}
+     */
+    public FetchResponse(List<T> content, Integer pageSize, String nextCursor, String prevCursor) {
+        this(content, null, pageSize, content.size(), null, prevCursor == null, nextCursor == null, null, null,
+                false, nextCursor, prevCursor);
     }
 
-    @JsonCreator
     public FetchResponse(List<T> content, Integer pageNumber, Integer pageSize, Integer numberOfElements, Long offset,
                          Boolean first, Boolean last, Integer totalPages, Long totalElements) {
+        this(content, pageNumber, pageSize, numberOfElements, offset, first, last, totalPages, totalElements,
+                true, null, null);
+    }
+
+    @JsonCreator
+    public FetchResponse(List<T> content, Integer pageNumber, Integer pageSize, Integer numberOfElements, Long offset,
+                         Boolean first, Boolean last, Integer totalPages, Long totalElements, Boolean totalExact,
+                         String nextCursor, String prevCursor) {
         this.content = content;
         this.pageNumber = pageNumber;
         this.pageSize = pageSize;
@@ -93,5 +153,8 @@ public class FetchResponse<T> {
         this.last = last;
         this.totalPages = totalPages;
         this.totalElements = totalElements;
+        this.totalExact = totalExact;
+        this.nextCursor = nextCursor;
+        this.prevCursor = prevCursor;
     }
 }
@@ -0,0 +1,35 @@
+package ru.standardsolutions;
+
+/**
+ * Хранилище кэша результатов выборки для {@link FetchManager#performCachedFetch}.
+ * <p>
+ * Реализация отвечает только за хранение и вытеснение: объединение одновременных промахов, учет попаданий
+ * и защита от записи устаревших результатов выполняются {@link FetchManager}. По умолчанию используется
+ * {@link InMemoryFetchResultCache}; распределенное хранилище подключается через
+ * {@link FetchConfiguration#setResultCache(FetchResultCache)}. Методы вызываются из разных потоков.
+ */
+public interface FetchResultCache {
+
+    /**
+     * Возвращает сохраненный результат.
+     *
+     * @param key ключ результата
+     * @return результат или {@code null}, если его нет или срок его жизни истек
+     */
+    FetchResponse<?> get(FetchResultKey key);
+
+    /**
+     * Сохраняет результат.
+     *
+     * @param key      ключ результата
+     * @param response результат
+     */
+    void put(FetchResultKey key, FetchResponse<?> response);
+
+    /**
+     * Удаляет все результаты выборок сущностей указанного типа.
+     *
+     * @param entityType тип сущности
+     */
+    void invalidate(Class<?> entityType);
+}
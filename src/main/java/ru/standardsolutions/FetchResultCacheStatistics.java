@@ -0,0 +1,22 @@
+package ru.standardsolutions;
+
+/**
+ * Статистика кэша результатов выборки.
+ *
+ * @param hits          количество запросов, получивших результат из кэша
+ * @param misses        количество выполненных выборок
+ * @param coalesced     количество промахов, дождавшихся одновременной выборки по тому же ключу
+ * @param invalidations количество сбросов результатов по типу сущности
+ */
+public record FetchResultCacheStatistics(long hits, long misses, long coalesced, long invalidations) {
+
+    /**
+     * Возвращает долю запросов, обслуженных без собственной выборки.
+     *
+     * @return доля от 0 до 1
+     */
+    public double hitRatio() {
+        long total = hits + misses + coalesced;
+        return total == 0 ? 0 : (double) (hits + coalesced) / total;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.standardsolutions;
+
+import ru.standardsolutions.request.FetchRequest;
+
+/**
+ * Ключ кэша результатов выборки.
+ *
+ * @param entityType тип сущности репозитория
+ * @param request    запрос
+ * @param mapperId   идентификатор преобразования сущности в DTO
+ */
+public record FetchResultKey(Class<?> entityType, FetchRequest request, String mapperId) {
+}
@@ -1,10 +1,14 @@
 package ru.standardsolutions;
 
+import io.micrometer.common.KeyValues;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
+import ru.standardsolutions.metadata.EntityMetadataRegistry;
+import ru.standardsolutions.metadata.FieldDescriptor;
 import ru.standardsolutions.request.FetchRequest;
 import ru.standardsolutions.request.FilterRequest;
 
@@ -15,35 +19,95 @@ import static ru.standardsolutions.Operator.*;
 
 /**
  * Спецификация для набора фильтров.
+ * <p>
+ * Поля, операторы и типы соединений берутся из {@link FetchPlan}, подготовленного один раз для формы запроса,
+ * поэтому при повторных запросах той же формы предикат строится без разрешения полей по метамодели.
+ * Ассоциации к одному из {@link FetchRequest#getPrefetch()} загружаются соединением в запросе сущностей
+ * (но не в запросе количества и не в проекциях), коллекции загружает {@link FetchManager} отдельным запросом.
  * @param <T>
  */
 public class FetchSpecification<T> implements Specification<T> {
 
+    private static final FetchPlanCache PLAN_CACHE = new FetchPlanCache();
+
+    private static final String PREDICATE = "predicate";
+
     /**
      * Запрос с фильтрацией, сортировкой и пагинацией.
      */
     private final FetchRequest fetchRequest;
 
+    /**
+     * Ключ формы запроса, вычисляется при первом построении предиката.
+     */
+    private String shape;
+
     public FetchSpecification(FetchRequest fetchRequest) {
         this.fetchRequest = fetchRequest;
     }
 
+    /**
+     * Возвращает статистику кэша планов.
+     *
+     * @return количество попаданий, промахов и размер кэша
+     */
+    public static FetchPlanStatistics planCacheStatistics() {
+        return PLAN_CACHE.statistics();
+    }
+
     @Override
     public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-        return buildPredicates(root, criteriaBuilder, fetchRequest.getFilters(), AND);
+        if (shape == null) {
+            shape = FetchPlan.shapeOf(fetchRequest);
+        }
+        return FetchObservation.observeStage(PREDICATE, () -> KeyValues.of(
+                        "entity", root.getJavaType().getSimpleName(),
+                        "shape", Integer.toHexString(shape.hashCode())),
+                () -> buildPredicate(root, query, criteriaBuilder));
+    }
+
+    private Predicate buildPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        FetchPlan plan = PLAN_CACHE.get(root.getJavaType(), shape,
+                () -> FetchPlan.compile(EntityMetadataRegistry.forEntity(root.getModel()), fetchRequest));
+        JoinRegistry joins = new JoinRegistry(root, plan.getMetadata(), plan.getInnerJoinPaths());
+        if (!fetchRequest.getPrefetch().isEmpty() && query.getResultType() == root.getJavaType()) {
+            for (String path : fetchRequest.getPrefetch()) {
+                FieldDescriptor association = plan.getMetadata().resolve(path);
+                if (!association.isAssociation()) {
+                    throw new IllegalArgumentException("Путь '" + path + "' не является ассоциацией");
+                }
+                if (!association.isCollectionValued()) {
+                    joins.fetch(association);
+                }
+            }
+        }
+        return buildPredicates(joins, criteriaBuilder, fetchRequest.getFilters(), plan.getNodes(), AND);
     }
 
-    private Predicate buildPredicates(Root<T> root, CriteriaBuilder criteriaBuilder, List<FilterRequest> filters,
-                                      Operator groupOperator) {
+    private Predicate buildPredicates(JoinRegistry joins, CriteriaBuilder criteriaBuilder, List<FilterRequest> filters,
+                                      List<FetchPlan.Node> nodes, Operator groupOperator) {
         List<Predicate> predicates = new ArrayList<>();
-        for (FilterRequest filter : filters) {
-            Operator operator = fromString(filter.getOperator());
+        for (int i = 0; i < filters.size(); i++) {
+            FilterRequest filter = filters.get(i);
+            FetchPlan.Node node = nodes.get(i);
+            Operator operator = node.operator();
             boolean isGroupOperator = (operator == OR || operator == AND);
             if (isGroupOperator) {
-                Predicate groupPredicate = buildPredicates(root, criteriaBuilder, filter.getFilters(), operator);
+                Predicate groupPredicate = buildPredicates(joins, criteriaBuilder, filter.getFilters(),
+                        node.children(), operator);
                 predicates.add(groupPredicate);
+            } else if (operator == SEARCH) {
+                List<Expression<String>> fields = node.children().stream()
+                        .<Expression<String>>map(child -> joins.getFieldPath(child.field()).as(String.class))
+                        .toList();
+                predicates.add(FetchConfiguration.getTextSearchStrategy()
+                        .createPredicate(criteriaBuilder, fields, filter.getValue()));
+            } else if (operator == NOT) {
+                Predicate groupPredicate = buildPredicates(joins, criteriaBuilder, filter.getFilters(),
+                        node.children(), AND);
+                predicates.add(criteriaBuilder.not(groupPredicate));
             } else {
-                Predicate predicate = operator.createPredicate(root, criteriaBuilder, filter);
+                Predicate predicate = operator.createPredicate(joins, criteriaBuilder, node.field(), filter);
                 predicates.add(predicate);
             }
         }
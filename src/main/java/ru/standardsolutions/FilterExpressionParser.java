@@ -0,0 +1,356 @@
+package ru.standardsolutions;
+
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.FilterValues;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Однопроходный разборщик строки фильтрации.
+ * <p>
+ * Поддерживает грамматику:
+ * <pre>
+ * expression := or
+ * or         := and ( OR and )*
+ * and        := unary ( AND unary )*
+ * unary      := NOT unary | '(' expression ')' | comparison
+ * comparison := field operator value
+ * </pre>
+ * Приоритет операторов: {@code NOT} выше {@code AND}, {@code AND} выше {@code OR}. Разбор выполняется
+ * за линейное время без регулярных выражений: позиция в строке сдвигается посимвольно, подстроки создаются
+ * только для итоговых значений поля и фильтра. Результат строится из тех же групп {@code AND}, {@code OR}
+ * и {@code NOT}, которые понимает {@link FetchSpecification}; вложенные группы с одинаковым оператором
+ * схлопываются. Ошибка в любой части выражения приводит к {@link IllegalArgumentException}.
+ * <p>
+ * Ключевые слова допустимы в имени поля, кроме {@code not} в начале пути: в начале условия оно читается
+ * как {@code NOT}, поэтому {@code not:1} отклоняется.
+ */
+final class FilterExpressionParser {
+
+    private static final String AND = "AND";
+
+    private static final String OR = "OR";
+
+    private static final String NOT = "NOT";
+
+    private final String input;
+
+    private final int length;
+
+    private int position;
+
+    private FilterExpressionParser(String input) {
+        this.input = input;
+        this.length = input.length();
+    }
+
+    /**
+     * Разбирает строку фильтрации в неизменяемый список фильтров, объединяемых через И.
+     *
+     * @param input строка фильтрации
+     * @return неизменяемый список фильтров
+     * @throws IllegalArgumentException если строка не соответствует грамматике
+     */
+    static List<FilterRequest> parse(String input) {
+        FilterExpressionParser parser = new FilterExpressionParser(input);
+        parser.skipWhitespace();
+        if (parser.position >= parser.length) {
+            return List.of();
+        }
+        FilterRequest expression = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.position < parser.length) {
+            throw parser.error("ожидался логический оператор или конец выражения");
+        }
+        if (AND.equals(expression.getOperator())) {
+            return expression.getFilters();
+        }
+        return List.of(expression);
+    }
+
+    private FilterRequest parseOr() {
+        FilterRequest first = parseAnd();
+        List<FilterRequest> operands = null;
+        while (matchBinaryKeyword(OR)) {
+            if (operands == null) {
+                operands = new ArrayList<>();
+                addOperand(operands, first, OR);
+            }
+            addOperand(operands, parseAnd(), OR);
+        }
+        return operands == null ? first : new FilterRequest(null, OR, null, List.copyOf(operands));
+    }
+
+    private FilterRequest parseAnd() {
+        FilterRequest first = parseUnary();
+        List<FilterRequest> operands = null;
+        while (matchBinaryKeyword(AND)) {
+            if (operands == null) {
+                operands = new ArrayList<>();
+                addOperand(operands, first, AND);
+            }
+            addOperand(operands, parseUnary(), AND);
+        }
+        return operands == null ? first : new FilterRequest(null, AND, null, List.copyOf(operands));
+    }
+
+    private FilterRequest parseUnary() {
+        skipWhitespace();
+        if (position >= length) {
+            throw error("ожидалось условие");
+        }
+        if (matchKeyword(NOT)) {
+            FilterRequest operand = parseUnary();
+            return new FilterRequest(null, NOT, null, List.of(operand));
+        }
+        if (input.charAt(position) == '(') {
+            position++;
+            FilterRequest expression = parseOr();
+            skipWhitespace();
+            if (position >= length || input.charAt(position) != ')') {
+                throw error("ожидалась закрывающая скобка");
+            }
+            position++;
+            return expression;
+        }
+        return parseComparison();
+    }
+
+    private FilterRequest parseComparison() {
+        String field = readIdentifier();
+        if (field == null) {
+            throw error("ожидалось имя поля");
+        }
+        skipWhitespace();
+        String operator = readOperator();
+        if (operator == null) {
+            throw error("ожидался оператор сравнения");
+        }
+        skipWhitespace();
+        String value = isListOperator(operator) ? readList() : readValue();
+        return new FilterRequest(field, operator, value, List.of());
+    }
+
+    /**
+     * Проверяет, что после пробела следует ключевое слово логического оператора, и пропускает его.
+     */
+    private boolean matchBinaryKeyword(String keyword) {
+        int start = position;
+        skipWhitespace();
+        if (matchKeyword(keyword)) {
+            return true;
+        }
+        position = start;
+        return false;
+    }
+
+    private static void addOperand(List<FilterRequest> operands, FilterRequest operand, String groupOperator) {
+        if (groupOperator.equals(operand.getOperator())) {
+            operands.addAll(operand.getFilters());
+        } else {
+            operands.add(operand);
+        }
+    }
+
+    private String readIdentifier() {
+        int start = position;
+        if (position >= length || !isIdentifierStart(input.charAt(position))) {
+            return null;
+        }
+        position++;
+        while (position < length) {
+            char c = input.charAt(position);
+            if (isIdentifierPart(c)) {
+                position++;
+            } else if (c == '.' && position + 1 < length && isIdentifierStart(input.charAt(position + 1))) {
+                position += 2;
+            } else {
+                break;
+            }
+        }
+        return input.substring(start, position);
+    }
+
+    private String readOperator() {
+        if (position >= length) {
+            return null;
+        }
+        char c = input.charAt(position);
+        switch (c) {
+            case ':':
+                position++;
+                return ":";
+            case '~':
+                position++;
+                return "search";
+            case '!':
+                if (position + 1 < length && input.charAt(position + 1) == ':') {
+                    position += 2;
+                    return "!:";
+                }
+                return null;
+            case '>':
+                return readComparisonOperator(">", ">:");
+            case '<':
+                return readComparisonOperator("<", "<:");
+            default:
+                break;
+        }
+        if (matchKeyword("like")) {
+            return "like";
+        }
+        if (matchKeyword("ilike")) {
+            return "ilike";
+        }
+        if (matchKeyword("in")) {
+            return "in";
+        }
+        if (matchKeyword("between")) {
+            return "between";
+        }
+        if (matchKeyword("search")) {
+            return "search";
+        }
+        int start = position;
+        if (matchKeyword("not")) {
+            skipWhitespace();
+            if (matchKeyword("in")) {
+                return "not in";
+            }
+            position = start;
+        }
+        return null;
+    }
+
+    private String readComparisonOperator(String strict, String inclusive) {
+        position++;
+        if (position < length && input.charAt(position) == ':') {
+            position++;
+            return inclusive;
+        }
+        return strict;
+    }
+
+    private String readValue() {
+        if (position >= length) {
+            throw error("ожидалось значение");
+        }
+        if (input.charAt(position) == '"') {
+            return readQuoted();
+        }
+        int start = position;
+        while (position < length && !isValueTerminator(input.charAt(position))) {
+            position++;
+        }
+        if (position == start) {
+            throw error("ожидалось значение");
+        }
+        return input.substring(start, position);
+    }
+
+    /**
+     * Читает список значений для операторов {@code in}, {@code not in} и {@code between}: {@code (a, b, "c d")}
+     * или {@code a,b,c}. Значения объединяются через {@link FilterValues}.
+     */
+    private String readList() {
+        boolean parenthesized = position < length && input.charAt(position) == '(';
+        if (parenthesized) {
+            position++;
+        }
+        StringBuilder values = new StringBuilder();
+        while (true) {
+            skipWhitespace();
+            String value = readValue();
+            if (!values.isEmpty()) {
+                values.append(',');
+            }
+            FilterValues.appendEscaped(values, value);
+            int beforeSeparator = position;
+            skipWhitespace();
+            if (position < length && input.charAt(position) == ',') {
+                position++;
+                continue;
+            }
+            if (!parenthesized) {
+                position = beforeSeparator;
+            }
+            break;
+        }
+        if (parenthesized) {
+            if (position >= length || input.charAt(position) != ')') {
+                throw error("ожидалась закрывающая скобка списка значений");
+            }
+            position++;
+        }
+        return values.toString();
+    }
+
+    private String readQuoted() {
+        int quoteStart = position;
+        position++;
+        int start = position;
+        StringBuilder escaped = null;
+        while (position < length) {
+            char c = input.charAt(position);
+            if (c == '"') {
+                String value = escaped == null
+                        ? input.substring(start, position)
+                        : escaped.append(input, start, position).toString();
+                position++;
+                return value;
+            }
+            if (c == '\\' && position + 1 < length) {
+                if (escaped == null) {
+                    escaped = new StringBuilder();
+                }
+                escaped.append(input, start, position).append(input.charAt(position + 1));
+                position += 2;
+                start = position;
+                continue;
+            }
+            position++;
+        }
+        position = quoteStart;
+        throw error("незакрытая кавычка");
+    }
+
+    private boolean matchKeyword(String keyword) {
+        int end = position + keyword.length();
+        if (end > length || !input.regionMatches(true, position, keyword, 0, keyword.length())) {
+            return false;
+        }
+        if (end < length && isIdentifierPart(input.charAt(end))) {
+            return false;
+        }
+        position = end;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < length && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(
+                "Ошибка разбора фильтра в позиции " + position + ": " + message + " (" + input + ")");
+    }
+
+    private static boolean isListOperator(String operator) {
+        return "in".equals(operator) || "not in".equals(operator) || "between".equals(operator);
+    }
+
+    private static boolean isValueTerminator(char c) {
+        return Character.isWhitespace(c) || c == ',' || c == '(' || c == ')';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,480 @@
+package ru.standardsolutions;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.standardsolutions.metadata.EntityMetadata;
+import ru.standardsolutions.metadata.FieldDescriptor;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.FilterValues;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import static ru.standardsolutions.Operator.*;
+
+/**
+ * Упрощение дерева фильтров перед построением предиката.
+ * <p>
+ * Вложенные группы с тем же оператором раскрываются, повторяющиеся условия и пустые группы удаляются
+ * ({@code AND()} истинна, {@code OR()} ложна), двойное отрицание снимается. Равенства одного поля под ИЛИ
+ * объединяются в {@code in}. Под И условия одного поля сводятся к одному: пересечение {@code :} и {@code in},
+ * из которого исключены {@code !:} и {@code not in}, либо диапазон - {@code between} для двух нестрогих
+ * границ. Противоречивые условия под И, например {@code a:1 AND a:2} или {@code a>5 AND a<3}, заменяются
+ * ложью, и выборка возвращает пустой результат без обращения к базе данных.
+ * <p>
+ * Значения сравниваются после преобразования к типу поля и только для типов, сравнение которых в базе
+ * данных совпадает со сравнением в Java: порядок и равенство - для целых чисел, {@link BigDecimal}, дат
+ * и времени без часового пояса и {@link Instant}, только равенство - для логических значений, перечислений
+ * и {@link UUID}. Строки не сравниваются: результат зависит от правил сортировки базы данных. Замена
+ * противоречия ложью выполняется только вне отрицания, так как для {@code null} в поле условие
+ * неопределено, а не ложно. Объединенные условия сохраняют исходные значения: строковые остаются строками,
+ * типизированные - типизированными.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class FilterOptimizer {
+
+    private static final FilterRequest TRUE = new FilterRequest(null, AND.getStrValue(), null, List.of());
+
+    private static final FilterRequest FALSE = new FilterRequest(null, OR.getStrValue(), null, List.of());
+
+    private static final Set<Operator> MERGEABLE = Set.of(EQUAL, NOT_EQUAL, GREATER, GREATER_OR_EQUAL, LESS,
+            LESS_OR_EQUAL, BETWEEN, IN, NOT_IN);
+
+    private static final Set<Class<?>> ORDERED_TYPES = Set.of(Integer.class, Long.class, Short.class, Byte.class,
+            BigDecimal.class, BigInteger.class, LocalDate.class, LocalDateTime.class, LocalTime.class, Instant.class);
+
+    /**
+     * Упрощает фильтры запроса.
+     *
+     * @param metadata     описание полей сущности или {@code null}, если сущность еще не описана; без него
+     *                     значения не сравниваются
+     * @param fetchRequest запрос
+     * @return исходный запрос, если упрощать нечего, иначе запрос с упрощенными фильтрами
+     */
+    static FetchRequest optimize(EntityMetadata metadata, FetchRequest fetchRequest) {
+        List<FilterRequest> filters = fetchRequest.getFilters();
+        if (filters.isEmpty()) {
+            return fetchRequest;
+        }
+        List<FilterRequest> optimized = optimizeAnd(metadata, filters, false);
+        if (optimized.equals(filters)) {
+            return fetchRequest;
+        }
+        return new FetchRequest(optimized, fetchRequest.getSort(), fetchRequest.getPage(),
+                fetchRequest.getPagination(), fetchRequest.getCount(), fetchRequest.getPrefetch());
+    }
+
+    /**
+     * Проверяет, что фильтры запроса заведомо ложны.
+     *
+     * @param fetchRequest запрос после {@link #optimize(EntityMetadata, FetchRequest)}
+     * @return {@code true}, если выборка пуста
+     */
+    static boolean isEmptyResult(FetchRequest fetchRequest) {
+        List<FilterRequest> filters = fetchRequest.getFilters();
+        return filters.size() == 1 && isFalse(filters.get(0));
+    }
+
+    private static FilterRequest optimize(EntityMetadata metadata, FilterRequest filter, boolean negated) {
+        if (filter.getField() != null) {
+            return filter;
+        }
+        Operator operator = fromString(filter.getOperator());
+        if (operator == AND) {
+            return group(AND, optimizeAnd(metadata, filter.getFilters(), negated));
+        }
+        if (operator == OR) {
+            return optimizeOr(metadata, filter.getFilters(), negated);
+        }
+        List<FilterRequest> operands = optimizeAnd(metadata, filter.getFilters(), !negated);
+        if (operands.isEmpty()) {
+            return FALSE;
+        }
+        if (operands.size() == 1 && isFalse(operands.get(0))) {
+            return TRUE;
+        }
+        if (operands.size() == 1 && NOT.getStrValue().equalsIgnoreCase(operands.get(0).getOperator())
+                && operands.get(0).getField() == null) {
+            return group(AND, operands.get(0).getFilters());
+        }
+        return new FilterRequest(null, NOT.getStrValue(), null, operands);
+    }
+
+    /**
+     * Упрощает операнды группы И. Возвращает пустой список для истины и список из одной лжи для противоречия.
+     */
+    private static List<FilterRequest> optimizeAnd(EntityMetadata metadata, List<FilterRequest> filters,
+                                                   boolean negated) {
+        Set<FilterRequest> operands = new LinkedHashSet<>();
+        for (FilterRequest filter : filters) {
+            FilterRequest optimized = optimize(metadata, filter, negated);
+            if (isFalse(optimized)) {
+                return List.of(FALSE);
+            }
+            if (isGroup(optimized, AND)) {
+                operands.addAll(optimized.getFilters());
+            } else {
+                operands.add(optimized);
+            }
+        }
+        if (metadata == null || operands.size() < 2) {
+            return List.copyOf(operands);
+        }
+        return mergeConjunction(metadata, new ArrayList<>(operands), negated);
+    }
+
+    private static FilterRequest optimizeOr(EntityMetadata metadata, List<FilterRequest> filters, boolean negated) {
+        Set<FilterRequest> operands = new LinkedHashSet<>();
+        for (FilterRequest filter : filters) {
+            FilterRequest optimized = optimize(metadata, filter, negated);
+            if (isTrue(optimized)) {
+                return TRUE;
+            }
+            if (isGroup(optimized, OR)) {
+                operands.addAll(optimized.getFilters());
+            } else {
+                operands.add(optimized);
+            }
+        }
+        return group(OR, mergeDisjunction(new ArrayList<>(operands)));
+    }
+
+    /**
+     * Объединяет {@code :} и {@code in} одного поля под ИЛИ в один {@code in}. Равенства со строкой, у которой
+     * есть пробелы по краям, не объединяются: {@link FilterValues#split(String)} отбросил бы их.
+     */
+    private static List<FilterRequest> mergeDisjunction(List<FilterRequest> operands) {
+        Map<String, List<FilterRequest>> byField = new LinkedHashMap<>();
+        for (FilterRequest operand : operands) {
+            Operator operator = operand.getField() == null ? null : fromString(operand.getOperator());
+            if ((operator == EQUAL || operator == IN) && operand.getOperand() != null && !isPadded(operand)) {
+                byField.computeIfAbsent(operand.getField(), field -> new ArrayList<>()).add(operand);
+            }
+        }
+        List<FilterRequest> merged = operands;
+        for (Map.Entry<String, List<FilterRequest>> field : byField.entrySet()) {
+            if (field.getValue().size() < 2) {
+                continue;
+            }
+            Set<Object> values = new LinkedHashSet<>();
+            for (FilterRequest filter : field.getValue()) {
+                if (fromString(filter.getOperator()) == IN) {
+                    values.addAll(filter.getValues());
+                } else {
+                    values.add(filter.getOperand());
+                }
+            }
+            merged = replace(merged, field.getValue(), List.of(equalOrIn(field.getKey(), values)));
+        }
+        return merged;
+    }
+
+    /**
+     * Сводит условия каждого поля группы И к одному, а противоречивые условия вне отрицания - ко лжи.
+     */
+    private static List<FilterRequest> mergeConjunction(EntityMetadata metadata, List<FilterRequest> operands,
+                                                        boolean negated) {
+        Map<String, List<FilterRequest>> byField = new LinkedHashMap<>();
+        for (FilterRequest operand : operands) {
+            if (operand.getField() != null && operand.getOperand() != null
+                    && MERGEABLE.contains(fromString(operand.getOperator()))) {
+                byField.computeIfAbsent(operand.getField(), field -> new ArrayList<>()).add(operand);
+            }
+        }
+        List<FilterRequest> merged = operands;
+        for (Map.Entry<String, List<FilterRequest>> field : byField.entrySet()) {
+            if (field.getValue().size() < 2) {
+                continue;
+            }
+            FieldDescriptor descriptor = metadata.resolve(field.getKey());
+            if (descriptor.isAssociation()) {
+                continue;
+            }
+            FieldConstraint constraint = new FieldConstraint(descriptor);
+            field.getValue().forEach(constraint::add);
+            List<FilterRequest> consumed = constraint.consumed();
+            if (consumed.size() < 2) {
+                continue;
+            }
+            List<FilterRequest> replacement = constraint.toFilters();
+            if (replacement == null) {
+                if (!negated) {
+                    return List.of(FALSE);
+                }
+                continue;
+            }
+            merged = replace(merged, consumed, replacement);
+        }
+        return merged;
+    }
+
+    private static List<FilterRequest> replace(List<FilterRequest> operands, List<FilterRequest> removed,
+                                               List<FilterRequest> replacement) {
+        List<FilterRequest> result = new ArrayList<>(operands.size());
+        boolean inserted = false;
+        for (FilterRequest operand : operands) {
+            if (!removed.contains(operand)) {
+                result.add(operand);
+            } else if (!inserted) {
+                result.addAll(replacement);
+                inserted = true;
+            }
+        }
+        return result;
+    }
+
+    private static FilterRequest group(Operator operator, List<FilterRequest> operands) {
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        if (operands.isEmpty()) {
+            return operator == AND ? TRUE : FALSE;
+        }
+        return new FilterRequest(null, operator.getStrValue(), null, List.copyOf(operands));
+    }
+
+    private static FilterRequest equalOrIn(String field, Set<Object> values) {
+        if (values.size() == 1) {
+            return valueFilter(field, EQUAL, values.iterator().next());
+        }
+        return valuesFilter(field, IN, values);
+    }
+
+    /**
+     * Создает фильтр с одним значением: строковым, если значение было задано строкой, иначе типизированным.
+     */
+    private static FilterRequest valueFilter(String field, Operator operator, Object value) {
+        return value instanceof String string
+                ? new FilterRequest(field, operator.getStrValue(), string, List.of())
+                : FilterRequest.of(field, operator.getStrValue(), value);
+    }
+
+    /**
+     * Создает фильтр со списком значений: строковым, если все значения были заданы строками,
+     * иначе типизированным.
+     */
+    private static FilterRequest valuesFilter(String field, Operator operator, Collection<?> values) {
+        for (Object value : values) {
+            if (!(value instanceof String)) {
+                return FilterRequest.of(field, operator.getStrValue(), values);
+            }
+        }
+        return new FilterRequest(field, operator.getStrValue(), FilterValues.join(values), List.of());
+    }
+
+    private static boolean isPadded(FilterRequest filter) {
+        return fromString(filter.getOperator()) == EQUAL && filter.getOperand() instanceof String string
+                && !string.equals(string.trim());
+    }
+
+    private static boolean isGroup(FilterRequest filter, Operator operator) {
+        return filter.getField() == null && operator.getStrValue().equalsIgnoreCase(filter.getOperator());
+    }
+
+    private static boolean isTrue(FilterRequest filter) {
+        return isGroup(filter, AND) && filter.getFilters().isEmpty();
+    }
+
+    private static boolean isFalse(FilterRequest filter) {
+        return isGroup(filter, OR) && filter.getFilters().isEmpty();
+    }
+
+    /**
+     * Граница диапазона: значение в типе поля и исходное значение фильтра.
+     */
+    private record Bound(Comparable<Object> value, Object raw, boolean inclusive) {
+    }
+
+    /**
+     * Ограничение на значение одного поля, накопленное из условий группы И.
+     */
+    private static final class FieldConstraint {
+
+        private final FieldDescriptor field;
+
+        private final boolean ordered;
+
+        private final boolean comparable;
+
+        private final List<FilterRequest> restrictions = new ArrayList<>();
+
+        private final List<FilterRequest> exclusions = new ArrayList<>();
+
+        /**
+         * Допустимые значения или {@code null}, если равенств не было.
+         */
+        private TreeMap<Comparable<Object>, Object> allowed;
+
+        private final TreeSet<Comparable<Object>> excluded = new TreeSet<>();
+
+        private Bound lower;
+
+        private Bound upper;
+
+        FieldConstraint(FieldDescriptor field) {
+            this.field = field;
+            Class<?> type = field.getJavaType();
+            this.ordered = ORDERED_TYPES.contains(type);
+            this.comparable = ordered || type == Boolean.class || type == UUID.class || type.isEnum();
+        }
+
+        void add(FilterRequest filter) {
+            if (!comparable) {
+                return;
+            }
+            Operator operator = fromString(filter.getOperator());
+            switch (operator) {
+                case EQUAL -> restrict(List.of(filter.getOperand()));
+                case IN -> restrict(filter.getValues());
+                case NOT_EQUAL -> exclude(List.of(filter.getOperand()), filter);
+                case NOT_IN -> exclude(filter.getValues(), filter);
+                case GREATER, GREATER_OR_EQUAL -> {
+                    if (!ordered) {
+                        return;
+                    }
+                    lower = tighter(lower, bound(filter.getOperand(), operator == GREATER_OR_EQUAL), 1);
+                }
+                case LESS, LESS_OR_EQUAL -> {
+                    if (!ordered) {
+                        return;
+                    }
+                    upper = tighter(upper, bound(filter.getOperand(), operator == LESS_OR_EQUAL), -1);
+                }
+                case BETWEEN -> {
+                    List<?> bounds = filter.getValues();
+                    if (!ordered || bounds.size() != 2) {
+                        return;
+                    }
+                    lower = tighter(lower, bound(bounds.get(0), true), 1);
+                    upper = tighter(upper, bound(bounds.get(1), true), -1);
+                }
+                default -> {
+                    return;
+                }
+            }
+            if (operator != NOT_EQUAL && operator != NOT_IN) {
+                restrictions.add(filter);
+            }
+        }
+
+        /**
+         * Возвращает условия, учтенные в ограничении и заменяемые результатом. Исключения значений
+         * учитываются только вместе с равенствами, иначе остаются как есть.
+         *
+         * @return учтенные условия
+         */
+        List<FilterRequest> consumed() {
+            if (allowed == null) {
+                return restrictions;
+            }
+            List<FilterRequest> consumed = new ArrayList<>(restrictions);
+            consumed.addAll(exclusions);
+            return consumed;
+        }
+
+        /**
+         * Строит условия, равносильные накопленному ограничению.
+         *
+         * @return условия или {@code null}, если ограничение противоречиво
+         */
+        List<FilterRequest> toFilters() {
+            if (allowed != null) {
+                Set<Object> values = new LinkedHashSet<>();
+                for (Map.Entry<Comparable<Object>, Object> value : allowed.entrySet()) {
+                    if (!excluded.contains(value.getKey()) && within(value.getKey())) {
+                        values.add(value.getValue());
+                    }
+                }
+                return values.isEmpty() ? null : List.of(equalOrIn(field.getPath(), values));
+            }
+            if (lower == null || upper == null) {
+                return List.of(lower != null ? rangeFilter(lower, GREATER_OR_EQUAL, GREATER)
+                        : rangeFilter(upper, LESS_OR_EQUAL, LESS));
+            }
+            int order = lower.value().compareTo(upper.value());
+            if (order > 0 || (order == 0 && !(lower.inclusive() && upper.inclusive()))) {
+                return null;
+            }
+            if (order == 0) {
+                return List.of(valueFilter(field.getPath(), EQUAL, lower.raw()));
+            }
+            if (lower.inclusive() && upper.inclusive()) {
+                return List.of(valuesFilter(field.getPath(), BETWEEN, List.of(lower.raw(), upper.raw())));
+            }
+            return List.of(rangeFilter(lower, GREATER_OR_EQUAL, GREATER), rangeFilter(upper, LESS_OR_EQUAL, LESS));
+        }
+
+        private void restrict(List<?> values) {
+            TreeMap<Comparable<Object>, Object> restricted = new TreeMap<>();
+            for (Object value : values) {
+                Comparable<Object> converted = convert(value);
+                if (allowed == null || allowed.containsKey(converted)) {
+                    restricted.putIfAbsent(converted, value);
+                }
+            }
+            allowed = restricted;
+        }
+
+        private void exclude(List<?> values, FilterRequest filter) {
+            values.forEach(value -> excluded.add(convert(value)));
+            exclusions.add(filter);
+        }
+
+        private boolean within(Comparable<Object> value) {
+            if (lower != null) {
+                int order = value.compareTo(lower.value());
+                if (order < 0 || (order == 0 && !lower.inclusive())) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                int order = value.compareTo(upper.value());
+                return order < 0 || (order == 0 && upper.inclusive());
+            }
+            return true;
+        }
+
+        private Bound bound(Object value, boolean inclusive) {
+            return new Bound(convert(value), value, inclusive);
+        }
+
+        /**
+         * Выбирает более узкую границу: большую из нижних ({@code direction = 1}) или меньшую из верхних
+         * ({@code direction = -1}); при равных значениях строгая граница уже нестрогой.
+         */
+        private static Bound tighter(Bound current, Bound candidate, int direction) {
+            if (current == null) {
+                return candidate;
+            }
+            int order = candidate.value().compareTo(current.value()) * direction;
+            if (order > 0 || (order == 0 && !candidate.inclusive())) {
+                return candidate;
+            }
+            return current;
+        }
+
+        private FilterRequest rangeFilter(Bound bound, Operator inclusive, Operator strict) {
+            return valueFilter(field.getPath(), bound.inclusive() ? inclusive : strict, bound.raw());
+        }
+
+        @SuppressWarnings("unchecked")
+        private Comparable<Object> convert(Object value) {
+            return (Comparable<Object>) field.convert(value);
+        }
+    }
+}
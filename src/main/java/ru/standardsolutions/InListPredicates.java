@@ -0,0 +1,97 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Построение условий {@code in} и {@code not in} со стабильным SQL.
+ * <p>
+ * Список значений дополняется повтором последнего значения до степени двойки, поэтому списки близкой длины дают
+ * одинаковый SQL и не переполняют кэши запросов и планов. Список длиннее
+ * {@link FetchConfiguration#getInListChunkSize()} разбивается на группы, объединяемые через ИЛИ (для
+ * {@code not in} - через И), чтобы не превысить ограничение базы данных на количество параметров. Если задан
+ * {@link FetchConfiguration#getInListArrayThreshold()}, список такой длины и больше передается одним
+ * параметром-массивом в условии {@code = any(?)} или {@code <> all(?)} (PostgreSQL, H2 и другие базы
+ * с массивами). Для перечислений Hibernate не выводит тип массива, поэтому они всегда передаются списком.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class InListPredicates {
+
+    /**
+     * Создает условие вхождения поля в список значений.
+     *
+     * @param cb      построитель критериев
+     * @param path    выражение поля
+     * @param values  значения, приведенные к типу поля
+     * @param negated {@code true} для {@code not in}
+     * @return предикат
+     */
+    static Predicate create(CriteriaBuilder cb, Expression<?> path, List<?> values, boolean negated) {
+        int arrayThreshold = FetchConfiguration.getInListArrayThreshold();
+        if (arrayThreshold > 0 && values.size() >= arrayThreshold && !path.getJavaType().isEnum()
+                && cb instanceof HibernateCriteriaBuilder hcb) {
+            return compareWithArray(hcb, path, values, negated);
+        }
+        int chunkSize = Math.max(1, FetchConfiguration.getInListChunkSize());
+        if (values.size() <= chunkSize) {
+            return in(path, values, chunkSize, negated);
+        }
+        List<Predicate> chunks = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += chunkSize) {
+            List<?> chunk = values.subList(start, Math.min(start + chunkSize, values.size()));
+            chunks.add(in(path, chunk, chunkSize, negated));
+        }
+        Predicate[] predicates = chunks.toArray(new Predicate[0]);
+        return negated ? cb.and(predicates) : cb.or(predicates);
+    }
+
+    private static Predicate in(Expression<?> path, List<?> values, int chunkSize, boolean negated) {
+        Predicate in = path.in(FetchConfiguration.isInListPadding() ? pad(values, chunkSize) : values);
+        return negated ? in.not() : in;
+    }
+
+    /**
+     * Дополняет список повтором последнего значения до ближайшей степени двойки, но не больше размера группы.
+     */
+    private static List<?> pad(List<?> values, int chunkSize) {
+        int size = values.size();
+        int padded = Math.min(size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1, chunkSize);
+        if (padded <= size) {
+            return values;
+        }
+        List<Object> result = new ArrayList<>(padded);
+        result.addAll(values);
+        Object last = values.get(size - 1);
+        while (result.size() < padded) {
+            result.add(last);
+        }
+        return result;
+    }
+
+    /**
+     * Условие {@code поле = any(?)} или {@code поле <> all(?)} с массивом в одном параметре: в отличие от
+     * {@code array_contains}, которое Hibernate для PostgreSQL переводит в {@code ? @> array[поле]}, такое
+     * сравнение использует индекс по полю. Условие передается одним логическим выражением: сравнение
+     * с {@code any(?)} Hibernate при отрицании превратил бы в {@code поле <> any(?)}, что меняет смысл.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Predicate compareWithArray(HibernateCriteriaBuilder cb, Expression<T> path, List<?> values,
+                                                  boolean negated) {
+        Class<T> type = (Class<T>) ClassUtils.resolvePrimitiveIfNecessary(path.getJavaType());
+        T[] array = (T[]) Array.newInstance(type, values.size());
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (T) values.get(i);
+        }
+        String condition = negated ? "? <> all(?)" : "? = any(?)";
+        return cb.isTrue(cb.sql(condition, Boolean.class, path, cb.value(array)));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.standardsolutions;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Хранилище результатов в памяти процесса с вытеснением по размеру (LRU) и времени жизни.
+ */
+public final class InMemoryFetchResultCache implements FetchResultCache {
+
+    private final Duration ttl;
+
+    private final int maxSize;
+
+    private final Map<FetchResultKey, Entry> entries;
+
+    /**
+     * @param ttl     время жизни результата
+     * @param maxSize максимальное количество результатов
+     */
+    public InMemoryFetchResultCache(Duration ttl, int maxSize) {
+        if (ttl.isNegative() || ttl.isZero() || maxSize < 1) {
+            throw new IllegalArgumentException("Время жизни и размер кэша результатов должны быть положительными");
+        }
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FetchResultKey, Entry> eldest) {
+                return size() > InMemoryFetchResultCache.this.maxSize;
+            }
+        };
+    }
+
+    @Override
+    public FetchResponse<?> get(FetchResultKey key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response;
+        }
+    }
+
+    @Override
+    public void put(FetchResultKey key, FetchResponse<?> response) {
+        Entry entry = new Entry(response, System.nanoTime() + ttl.toNanos());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    @Override
+    public void invalidate(Class<?> entityType) {
+        synchronized (entries) {
+            Iterator<FetchResultKey> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().entityType() == entityType) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private record Entry(FetchResponse<?> response, long expiresAt) {
+    }
+}
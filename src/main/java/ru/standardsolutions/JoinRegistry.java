@@ -0,0 +1,146 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import ru.standardsolutions.metadata.EntityMetadata;
+import ru.standardsolutions.metadata.EntityMetadataRegistry;
+import ru.standardsolutions.metadata.FieldDescriptor;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Реестр соединений одного запроса.
+ * <p>
+ * Разрешает путь поля вида {@code customer.address.city} в выражение Criteria API по заранее вычисленному
+ * {@link FieldDescriptor}, соединяя каждую ассоциацию на пути не более одного раза: повторные фильтры
+ * и сортировка по тому же пути используют уже созданное соединение. Соединения ищутся среди
+ * {@link From#getJoins()}, поэтому их же переиспользует сортировка Spring Data. Тип соединения задается
+ * при создании: {@link JoinType#INNER} для путей из {@code innerJoinPaths}, для остальных {@link JoinType#LEFT}.
+ */
+public final class JoinRegistry {
+
+    private final Root<?> root;
+
+    private final EntityMetadata metadata;
+
+    private final Set<String> innerJoinPaths;
+
+    /**
+     * @param root           корень запроса
+     * @param innerJoinPaths пути ассоциаций, которые безопасно соединять через {@link JoinType#INNER}
+     */
+    public JoinRegistry(Root<?> root, Set<String> innerJoinPaths) {
+        this(root, EntityMetadataRegistry.forEntity(root.getModel()), innerJoinPaths);
+    }
+
+    /**
+     * @param root           корень запроса
+     * @param metadata       описание полей сущности корня
+     * @param innerJoinPaths пути ассоциаций, которые безопасно соединять через {@link JoinType#INNER}
+     */
+    public JoinRegistry(Root<?> root, EntityMetadata metadata, Set<String> innerJoinPaths) {
+        this.root = root;
+        this.metadata = metadata;
+        this.innerJoinPaths = innerJoinPaths;
+    }
+
+    public Root<?> getRoot() {
+        return root;
+    }
+
+    /**
+     * Возвращает описание поля.
+     *
+     * @param fieldName путь поля через точку
+     * @return описание поля
+     * @throws IllegalArgumentException если у сущности нет такого поля
+     */
+    public FieldDescriptor describe(String fieldName) {
+        return metadata.resolve(fieldName);
+    }
+
+    /**
+     * Возвращает выражение для пути поля, создавая недостающие соединения.
+     *
+     * @param fieldName путь поля через точку
+     * @return выражение поля
+     */
+    public Path<?> getFieldPath(String fieldName) {
+        return getFieldPath(describe(fieldName));
+    }
+
+    /**
+     * Возвращает выражение для поля, создавая недостающие соединения.
+     *
+     * @param field описание поля
+     * @return выражение поля
+     */
+    public Path<?> getFieldPath(FieldDescriptor field) {
+        List<String> segments = field.getSegments();
+        int last = segments.size() - 1;
+        Path<?> path = root;
+        int association = 0;
+        for (int i = 0; i < last; i++) {
+            if (!field.isJoinable(i)) {
+                path = path.get(segments.get(i));
+            } else if (path instanceof From<?, ?> from) {
+                path = join(from, segments.get(i), field.getAssociationPaths().get(association++));
+            } else {
+                association++;
+                path = path.get(segments.get(i));
+            }
+        }
+        return path.get(segments.get(last));
+    }
+
+    /**
+     * Загружает ассоциацию к одному вместе с корнем через {@link From#fetch(String, JoinType)}. Последующие
+     * фильтры по полям этой ассоциации используют то же соединение.
+     *
+     * @param association описание пути ассоциации, все атрибуты которого - ассоциации к одному
+     */
+    public void fetch(FieldDescriptor association) {
+        From<?, ?> from = root;
+        StringBuilder associationPath = new StringBuilder();
+        for (String segment : association.getSegments()) {
+            if (!associationPath.isEmpty()) {
+                associationPath.append('.');
+            }
+            associationPath.append(segment);
+            From<?, ?> fetched = findFetch(from, segment);
+            if (fetched == null) {
+                boolean inner = innerJoinPaths.contains(associationPath.toString());
+                fetched = (From<?, ?>) from.fetch(segment, inner ? JoinType.INNER : JoinType.LEFT);
+            }
+            from = fetched;
+        }
+    }
+
+    private Join<?, ?> join(From<?, ?> from, String attribute, String associationPath) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) {
+                return join;
+            }
+        }
+        Join<?, ?> fetch = findFetch(from, attribute);
+        if (fetch != null) {
+            return fetch;
+        }
+        JoinType joinType = innerJoinPaths.contains(associationPath) ? JoinType.INNER : JoinType.LEFT;
+        return from.join(attribute, joinType);
+    }
+
+    private static Join<?, ?> findFetch(From<?, ?> from, String attribute) {
+        for (Fetch<?, ?> fetch : from.getFetches()) {
+            if (fetch instanceof Join<?, ?> join && fetch.getAttribute().getName().equals(attribute)) {
+                return join;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,181 @@
+package ru.standardsolutions;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.ScrollPosition.Direction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Кодирование позиции выборки по ключу в непрозрачный курсор и обратно.
+ * <p>
+ * Курсор хранит направление прокрутки и значения ключей сортировки строки вместе с их типами,
+ * чтобы при следующем запросе значения были привязаны к параметрам запроса с исходным типом.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class KeysetCursor {
+
+    private static final byte VERSION = 1;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Кодирует значения ключей в курсор.
+     *
+     * @param keys      значения ключей сортировки
+     * @param direction направление прокрутки
+     * @return курсор
+     */
+    static String encode(Map<String, ?> keys, Direction direction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeBoolean(direction == Direction.BACKWARD);
+            out.writeShort(keys.size());
+            for (Map.Entry<String, ?> key : keys.entrySet()) {
+                out.writeUTF(key.getKey());
+                writeValue(out, key.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сформировать курсор", e);
+        }
+        return ENCODER.encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Восстанавливает позицию прокрутки из курсора.
+     *
+     * @param cursor курсор, полученный из {@link #encode(Map, Direction)}
+     * @return позиция прокрутки
+     * @throws IllegalArgumentException если курсор поврежден
+     */
+    static KeysetScrollPosition decode(String cursor) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(DECODER.decode(cursor)))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия курсора");
+            }
+            Direction direction = in.readBoolean() ? Direction.BACKWARD : Direction.FORWARD;
+            int size = in.readShort();
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                keys.put(in.readUTF(), readValue(in));
+            }
+            return ScrollPosition.of(keys, direction);
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            throw new IllegalStateException("Ключ сортировки для выборки по курсору не может быть null");
+        }
+        if (value instanceof Enum<?> enumValue) {
+            out.writeByte('E');
+            out.writeUTF(enumValue.getDeclaringClass().getName());
+            out.writeUTF(enumValue.name());
+            return;
+        }
+        out.writeByte(typeTag(value.getClass()));
+        out.writeUTF(value.toString());
+    }
+
+    private static char typeTag(Class<?> type) {
+        if (type == String.class) {
+            return 'S';
+        } else if (type == Integer.class) {
+            return 'I';
+        } else if (type == Long.class) {
+            return 'J';
+        } else if (type == Short.class) {
+            return 'H';
+        } else if (type == Byte.class) {
+            return 'B';
+        } else if (type == Double.class) {
+            return 'D';
+        } else if (type == Float.class) {
+            return 'F';
+        } else if (type == Boolean.class) {
+            return 'Z';
+        } else if (type == Character.class) {
+            return 'C';
+        } else if (type == BigDecimal.class) {
+            return 'M';
+        } else if (type == BigInteger.class) {
+            return 'N';
+        } else if (type == UUID.class) {
+            return 'U';
+        } else if (type == LocalDate.class) {
+            return 'd';
+        } else if (type == LocalDateTime.class) {
+            return 't';
+        } else if (type == LocalTime.class) {
+            return 'h';
+        } else if (type == Instant.class) {
+            return 'i';
+        } else if (type == OffsetDateTime.class) {
+            return 'o';
+        } else if (type == ZonedDateTime.class) {
+            return 'z';
+        }
+        throw new IllegalStateException("Неподдерживаемый тип ключа сортировки для курсора: " + type);
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException, ReflectiveOperationException {
+        char tag = (char) in.readByte();
+        if (tag == 'E') {
+            Class<?> enumType = Class.forName(in.readUTF(), false, KeysetCursor.class.getClassLoader());
+            if (!enumType.isEnum()) {
+                throw new IllegalArgumentException("Тип ключа не является перечислением: " + enumType);
+            }
+            return enumValue(enumType, in.readUTF());
+        }
+        String value = in.readUTF();
+        return switch (tag) {
+            case 'S' -> value;
+            case 'I' -> Integer.valueOf(value);
+            case 'J' -> Long.valueOf(value);
+            case 'H' -> Short.valueOf(value);
+            case 'B' -> Byte.valueOf(value);
+            case 'D' -> Double.valueOf(value);
+            case 'F' -> Float.valueOf(value);
+            case 'Z' -> Boolean.valueOf(value);
+            case 'C' -> value.charAt(0);
+            case 'M' -> new BigDecimal(value);
+            case 'N' -> new BigInteger(value);
+            case 'U' -> UUID.fromString(value);
+            case 'd' -> LocalDate.parse(value);
+            case 't' -> LocalDateTime.parse(value);
+            case 'h' -> LocalTime.parse(value);
+            case 'i' -> Instant.parse(value);
+            case 'o' -> OffsetDateTime.parse(value);
+            case 'z' -> ZonedDateTime.parse(value);
+            default -> throw new IllegalArgumentException("Неизвестный тип ключа: " + tag);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> enumType, String name) {
+        return Enum.valueOf((Class<? extends Enum>) enumType, name);
+    }
+}
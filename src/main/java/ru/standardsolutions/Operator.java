@@ -2,16 +2,13 @@ package ru.standardsolutions;
 
 import jakarta.persistence.criteria.*;
 import lombok.extern.slf4j.Slf4j;
+import ru.standardsolutions.metadata.FieldDescriptor;
 import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.FilterValues;
+import ru.standardsolutions.search.TextSearchFields;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * Набор поддерживаемых операторов и создания предиката.
@@ -24,9 +21,10 @@ public enum Operator {
      */
     EQUAL(":") {
         @SuppressWarnings({"rawtypes"})
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            Comparable comparableValue = Operator.castToComparable(fieldPath.getJavaType(), filter.getValue());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            Comparable comparableValue = field.convert(filter.getOperand());
             return cb.equal(fieldPath, comparableValue);
         }
     },
@@ -36,9 +34,10 @@ public enum Operator {
      */
     NOT_EQUAL("!:") {
         @SuppressWarnings({"rawtypes"})
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            Comparable comparableValue = Operator.castToComparable(fieldPath.getJavaType(), filter.getValue());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            Comparable comparableValue = field.convert(filter.getOperand());
             return cb.notEqual(fieldPath, comparableValue);
         }
     },
@@ -48,9 +47,10 @@ public enum Operator {
      */
     GREATER(">") {
         @SuppressWarnings({"rawtypes", "unchecked"})
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            Comparable comparableValue = Operator.castToComparable(fieldPath.getJavaType(), filter.getValue());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            Comparable comparableValue = field.convert(filter.getOperand());
             return cb.greaterThan((Expression<Comparable>) fieldPath, comparableValue);
         }
     },
@@ -60,9 +60,10 @@ public enum Operator {
      */
     GREATER_OR_EQUAL(">:") {
         @SuppressWarnings({"rawtypes", "unchecked"})
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            Comparable comparableValue = Operator.castToComparable(fieldPath.getJavaType(), filter.getValue());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            Comparable comparableValue = field.convert(filter.getOperand());
             return cb.greaterThanOrEqualTo((Expression<Comparable>) fieldPath, comparableValue);
         }
     },
@@ -72,9 +73,10 @@ public enum Operator {
      */
     LESS("<") {
         @SuppressWarnings({"rawtypes", "unchecked"})
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            Comparable comparableValue = Operator.castToComparable(fieldPath.getJavaType(), filter.getValue());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            Comparable comparableValue = field.convert(filter.getOperand());
             return cb.lessThan((Expression<Comparable>) fieldPath, comparableValue);
         }
     },
@@ -84,19 +86,39 @@ public enum Operator {
      */
     LESS_OR_EQUAL("<:") {
         @SuppressWarnings({"rawtypes", "unchecked"})
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            Comparable comparableValue = Operator.castToComparable(fieldPath.getJavaType(), filter.getValue());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            Comparable comparableValue = field.convert(filter.getOperand());
             return cb.lessThanOrEqualTo((Expression<Comparable>) fieldPath, comparableValue);
         }
     },
 
+    /**
+     * Вхождение в диапазон, границы включены. Значение - две границы через запятую в формате
+     * {@link FilterValues} или список из двух типизированных значений.
+     */
+    BETWEEN("between") {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            List<?> bounds = filter.getValues();
+            if (bounds.size() != 2) {
+                throw new IllegalArgumentException("Оператор between требует две границы: " + filter.getValue());
+            }
+            return cb.between((Expression<Comparable>) fieldPath,
+                    (Comparable) field.convert(bounds.get(0)), (Comparable) field.convert(bounds.get(1)));
+        }
+    },
+
     /**
      * Оператор поиска по строке.
      */
     LIKE("like") {
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
             return cb.like(fieldPath.as(String.class), filter.getValue());
         }
     },
@@ -105,23 +127,36 @@ public enum Operator {
      * Оператор поиска по строке нечуствительный к регистру.
      */
     ILIKE("ilike") {
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
             return cb.like(cb.lower(fieldPath.as(String.class)), filter.getValue().toLowerCase());
         }
     },
 
+    /**
+     * Полнотекстовый поиск способом {@link FetchConfiguration#getTextSearchStrategy()}. Вместо поля можно
+     * указать имя набора полей из {@link TextSearchFields}.
+     */
+    SEARCH("search") {
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            return FetchConfiguration.getTextSearchStrategy().createPredicate(cb,
+                    List.of(joins.getFieldPath(field).as(String.class)), filter.getValue());
+        }
+    },
+
     /**
      * Оператор вхождения в список значений.
      */
     IN("in") {
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            String[] rawValues = filter.getValue().split(",");
-            List<? extends Comparable<?>> valueList = Arrays.stream(rawValues)
-                    .map(val -> castToComparable(fieldPath.getJavaType(), val.trim()))
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            List<? extends Comparable<?>> valueList = filter.getValues().stream()
+                    .map(field::convert)
                     .toList();
-            return fieldPath.in(valueList);
+            return InListPredicates.create(cb, fieldPath, valueList, false);
         }
     },
 
@@ -129,13 +164,13 @@ public enum Operator {
      * Оператор отрицания вхождения в список значений.
      */
     NOT_IN("not in") {
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
-            Path<?> fieldPath = getFieldPath(root, filter.getField());
-            String[] rawValues = filter.getValue().split(",");
-            List<? extends Comparable<?>> valueList = Arrays.stream(rawValues)
-                    .map(val -> castToComparable(fieldPath.getJavaType(), val.trim()))
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            Path<?> fieldPath = joins.getFieldPath(field);
+            List<? extends Comparable<?>> valueList = filter.getValues().stream()
+                    .map(field::convert)
                     .toList();
-            return fieldPath.in(valueList).not();
+            return InListPredicates.create(cb, fieldPath, valueList, true);
         }
     },
 
@@ -143,7 +178,8 @@ public enum Operator {
      * Логическое И.
      */
     AND("AND") {
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
             return null;
         }
     },
@@ -152,7 +188,18 @@ public enum Operator {
      * Логическое ИЛИ.
      */
     OR("OR") {
-        public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest filter) {
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
+            return null;
+        }
+    },
+
+    /**
+     * Логическое НЕ, отрицает группу вложенных фильтров, объединенных через И.
+     */
+    NOT("NOT") {
+        public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                         FilterRequest filter) {
             return null;
         }
     };
@@ -163,7 +210,61 @@ public enum Operator {
         this.strValue = strValue;
     }
 
-    public abstract <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest request);
+    /**
+     * Возвращает обозначение оператора в запросе, например {@code >:} или {@code not in}.
+     *
+     * @return обозначение оператора
+     */
+    public String getStrValue() {
+        return strValue;
+    }
+
+    /**
+     * Проверяет, является ли оператор логической группой {@code AND}, {@code OR} или {@code NOT}. Фильтр
+     * с таким оператором строится из вложенных фильтров, даже если у него задано поле.
+     *
+     * @return {@code true} для логической группы
+     */
+    public boolean isLogical() {
+        return this == AND || this == OR || this == NOT;
+    }
+
+    /**
+     * Создает предикат для поля, уже разрешенного по метамодели.
+     *
+     * @param joins   реестр соединений запроса
+     * @param cb      построитель критериев
+     * @param field   описание поля фильтра; {@code null} для логических групп
+     * @param request фильтр
+     * @return предикат
+     */
+    public abstract Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FieldDescriptor field,
+                                              FilterRequest request);
+
+    /**
+     * Создает предикат, разрешая поле фильтра через реестр соединений.
+     *
+     * @param joins   реестр соединений запроса
+     * @param cb      построитель критериев
+     * @param request фильтр
+     * @return предикат
+     */
+    public Predicate createPredicate(JoinRegistry joins, CriteriaBuilder cb, FilterRequest request) {
+        FieldDescriptor field = request.getField() == null ? null : joins.describe(request.getField());
+        return createPredicate(joins, cb, field, request);
+    }
+
+    /**
+     * Создает предикат, соединяя все ассоциации на пути поля через {@link JoinType#LEFT}.
+     *
+     * @param root    корень запроса
+     * @param cb      построитель критериев
+     * @param request фильтр
+     * @return предикат
+     */
+    public <T> Predicate createPredicate(Root<T> root, CriteriaBuilder cb, FilterRequest request) {
+        return createPredicate(new JoinRegistry(root, Set.of()), cb, request);
+    }
 
     public static Operator fromString(String strValue) {
         for (Operator op : Operator.values()) {
@@ -173,46 +274,4 @@ public enum Operator {
         }
         throw new IllegalArgumentException("Неподдерживаемый оператор: " + strValue);
     }
-
-    private static Path<?> getFieldPath(Root<?> root, String fieldName) {
-        String[] parts = fieldName.split("\\.");
-        Path<?> path = root;
-        for (int i = 0; i < parts.length; i++) {
-            if (i == 0 && parts.length > 1) {
-                path = root.join(parts[i], JoinType.LEFT);
-            } else {
-                path = path.get(parts[i]);
-            }
-        }
-        return path;
-    }
-
-    private static Comparable<?> castToComparable(Class<?> fieldType, String value) {
-        if (fieldType == BigDecimal.class) {
-            return new BigDecimal(value);
-        } else if (fieldType == BigInteger.class) {
-            return new BigInteger(value);
-        } else if (fieldType == Boolean.class) {
-            return Boolean.parseBoolean(value);
-        } else if (fieldType == Double.class) {
-            return Double.parseDouble(value);
-        } else if (fieldType == Float.class) {
-            return Float.parseFloat(value);
-        } else if (fieldType == Integer.class) {
-            return Integer.parseInt(value);
-        } else if (fieldType == Long.class) {
-            return Long.parseLong(value);
-        } else if (fieldType == Short.class) {
-            return Short.parseShort(value);
-        } else if (fieldType == LocalDate.class) {
-            return LocalDateTime.parse(value, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        } else if (fieldType == LocalDateTime.class) {
-            return LocalDateTime.parse(value, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        } else if (fieldType == String.class) {
-            return value;
-        } else if (fieldType == UUID.class) {
-            return UUID.fromString(value);
-        }
-        throw new IllegalArgumentException("Неподдерживаемый тип данных для операции сравнения: " + fieldType);
-    }
-}
\ No newline at end of file
+}
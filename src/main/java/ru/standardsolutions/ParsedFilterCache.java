@@ -0,0 +1,60 @@
+package ru.standardsolutions;
+
+import ru.standardsolutions.request.FilterRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ограниченный LRU-кэш разобранных строк фильтрации.
+ * <p>
+ * Хранит неизменяемые результаты разбора, поэтому один и тот же список фильтров безопасно
+ * отдавать разным запросам. Слишком длинные строки не кэшируются, чтобы кэш не удерживал
+ * произвольно большие объемы памяти.
+ */
+final class ParsedFilterCache {
+
+    private final int maxEntries;
+
+    private final int maxKeyLength;
+
+    private final Map<String, List<FilterRequest>> entries;
+
+    ParsedFilterCache(int maxEntries, int maxKeyLength) {
+        this.maxEntries = maxEntries;
+        this.maxKeyLength = maxKeyLength;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<FilterRequest>> eldest) {
+                return size() > ParsedFilterCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Возвращает результат разбора из кэша либо разбирает строку и сохраняет результат.
+     *
+     * @param filterString строка фильтрации
+     * @param parser       функция разбора
+     * @return неизменяемый список фильтров
+     */
+    List<FilterRequest> computeIfAbsent(String filterString, Function<String, List<FilterRequest>> parser) {
+        if (filterString.length() > maxKeyLength) {
+            return parser.apply(filterString);
+        }
+        List<FilterRequest> cached;
+        synchronized (entries) {
+            cached = entries.get(filterString);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        List<FilterRequest> parsed = parser.apply(filterString);
+        synchronized (entries) {
+            entries.put(filterString, parsed);
+        }
+        return parsed;
+    }
+}
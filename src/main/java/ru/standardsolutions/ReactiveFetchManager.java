@@ -0,0 +1,67 @@
+package ru.standardsolutions;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.request.PaginationMode;
+
+import java.util.function.Function;
+
+/**
+ * Реактивная выборка поверх {@link FetchManager#performFetchAsync(JpaSpecificationExecutor, Function, FetchRequest)}.
+ * <p>
+ * Требует {@code io.projectreactor:reactor-core} в зависимостях приложения.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ReactiveFetchManager {
+
+    /**
+     * Количество страниц, запрашиваемых наперед: следующая страница выбирается, пока подписчик обрабатывает
+     * текущую.
+     */
+    private static final int PAGE_PREFETCH = 2;
+
+    /**
+     * Выдает все записи, подходящие под запрос, постранично выбирая их по ключу.
+     * <p>
+     * Запрос выполняется в режиме {@link PaginationMode#KEYSET} без подсчета количества независимо от режима,
+     * указанного в запросе; размер страницы и курсор начала берутся из запроса. Страницы выбираются
+     * по запросу подписчика: пока он обрабатывает страницу N, страница N + 1 уже выбирается, дальше выборка
+     * не уходит. Отмена подписки прекращает выборку следующих страниц.
+     *
+     * @param repository   репозиторий сущностей
+     * @param mapper       преобразование сущности в DTO
+     * @param fetchRequest запрос
+     * @param <E>          тип сущности
+     * @param <T>          тип DTO
+     * @return поток DTO
+     */
+    public static <E, T> Flux<T> flux(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest
+    ) {
+        return fetchPage(repository, mapper, fetchRequest, fetchRequest.getPage().getCursor())
+                .expand(page -> page.getNextCursor() == null
+                        ? Mono.empty()
+                        : fetchPage(repository, mapper, fetchRequest, page.getNextCursor()))
+                .concatMapIterable(FetchResponse::getContent, PAGE_PREFETCH);
+    }
+
+    private static <E, T> Mono<FetchResponse<T>> fetchPage(
+            JpaSpecificationExecutor<E> repository,
+            Function<E, T> mapper,
+            FetchRequest fetchRequest,
+            String cursor
+    ) {
+        final FetchRequest pageRequest = new FetchRequest(fetchRequest.getFilters(), fetchRequest.getSort(),
+                new PageRequest(1, fetchRequest.getPage().getSize(), cursor), PaginationMode.KEYSET,
+                CountStrategy.NONE, fetchRequest.getPrefetch());
+        return Mono.fromFuture(() -> FetchManager.performFetchAsync(repository, mapper, pageRequest));
+    }
+}
@@ -0,0 +1,107 @@
+package ru.standardsolutions;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Загрузка результатов через {@link FetchResultCache}.
+ * <p>
+ * Одновременные промахи по одному ключу объединяются: выборку выполняет первый запрос, остальные ждут
+ * его результат. Каждый тип сущности имеет счетчик поколений, увеличиваемый при сбросе; результат выборки,
+ * начатой до сброса, в хранилище не сохраняется, поэтому изменение, зафиксированное во время выборки,
+ * не оставляет в кэше устаревших данных.
+ */
+final class ResultCacheLoader {
+
+    private final Map<FetchResultKey, CompletableFuture<FetchResponse<?>>> loading = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Возвращает результат из кэша либо выполняет выборку и сохраняет ее результат.
+     *
+     * @param cache  хранилище
+     * @param key    ключ результата
+     * @param loader выборка
+     * @return результат
+     */
+    @SuppressWarnings("unchecked")
+    <T> FetchResponse<T> get(FetchResultCache cache, FetchResultKey key, Supplier<FetchResponse<T>> loader) {
+        FetchResponse<?> cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return (FetchResponse<T>) cached;
+        }
+        CompletableFuture<FetchResponse<?>> own = new CompletableFuture<>();
+        CompletableFuture<FetchResponse<?>> pending = loading.putIfAbsent(key, own);
+        if (pending != null) {
+            coalesced.increment();
+            return (FetchResponse<T>) await(pending);
+        }
+        misses.increment();
+        try {
+            long generation = generation(key.entityType()).get();
+            FetchResponse<T> response = loader.get();
+            if (generation(key.entityType()).get() == generation) {
+                cache.put(key, response);
+            }
+            own.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, own);
+        }
+    }
+
+    /**
+     * Сбрасывает результаты выборок сущностей указанного типа и его суперклассов: изменение наследника
+     * затрагивает выборки по репозиторию родительской сущности.
+     *
+     * @param cache      хранилище
+     * @param entityType тип сущности
+     */
+    void invalidate(FetchResultCache cache, Class<?> entityType) {
+        invalidations.increment();
+        for (Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass()) {
+            generation(type).incrementAndGet();
+            cache.invalidate(type);
+        }
+    }
+
+    FetchResultCacheStatistics statistics() {
+        return new FetchResultCacheStatistics(hits.sum(), misses.sum(), coalesced.sum(), invalidations.sum());
+    }
+
+    private AtomicLong generation(Class<?> entityType) {
+        return generations.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    private static FetchResponse<?> await(CompletableFuture<FetchResponse<?>> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.standardsolutions;
+
+import ru.standardsolutions.request.FetchRequest;
+
+import java.time.Duration;
+
+/**
+ * Событие медленной выборки.
+ *
+ * @param entityType тип сущности
+ * @param shape      нормализованный запрос: поля, операторы и сортировка без значений фильтров
+ * @param request    исходный запрос
+ * @param duration   длительность выборки, включая подсчет и преобразование в DTO
+ */
+public record SlowFetchEvent(Class<?> entityType, String shape, FetchRequest request, Duration duration) {
+}
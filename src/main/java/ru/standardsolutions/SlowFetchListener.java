@@ -0,0 +1,18 @@
+package ru.standardsolutions;
+
+/**
+ * Получатель событий о медленных выборках, длительность которых превысила
+ * {@link FetchConfiguration#getSlowFetchThreshold()}.
+ * <p>
+ * Вызывается в потоке выборки после ее завершения, поэтому реализация не должна блокироваться.
+ */
+@FunctionalInterface
+public interface SlowFetchListener {
+
+    /**
+     * Обрабатывает медленную выборку.
+     *
+     * @param event описание выборки
+     */
+    void onSlowFetch(SlowFetchEvent event);
+}
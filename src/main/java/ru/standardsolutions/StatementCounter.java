@@ -0,0 +1,47 @@
+package ru.standardsolutions;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.io.Serial;
+
+/**
+ * Счетчик SQL-запросов, выполненных текущим потоком, для обнаружения проблемы N+1 при преобразовании
+ * сущностей в DTO.
+ * <p>
+ * Регистрируется автоконфигурацией как {@code hibernate.session_factory.statement_inspector}, если
+ * приложение не задало свой. Пока подсчет не начат через {@link #start()}, запросы не учитываются.
+ */
+public final class StatementCounter implements StatementInspector {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Начинает подсчет запросов текущего потока.
+     */
+    static void start() {
+        COUNTER.set(new int[1]);
+    }
+
+    /**
+     * Завершает подсчет запросов текущего потока.
+     *
+     * @return количество запросов с момента {@link #start()}
+     */
+    static int stop() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter == null ? 0 : counter[0];
+    }
+}
@@ -0,0 +1,26 @@
+package ru.standardsolutions.aggregate;
+
+import java.util.Map;
+
+/**
+ * Результаты фасетов одного запроса.
+ *
+ * @param facets результаты по имени фасета в порядке запроса
+ */
+public record AggregateResponse(Map<String, FacetResult> facets) {
+
+    /**
+     * Возвращает результат фасета.
+     *
+     * @param name имя фасета
+     * @return результат фасета
+     * @throws IllegalArgumentException если фасета с таким именем нет
+     */
+    public FacetResult facet(String name) {
+        FacetResult result = facets.get(name);
+        if (result == null) {
+            throw new IllegalArgumentException("Нет фасета " + name);
+        }
+        return result;
+    }
+}
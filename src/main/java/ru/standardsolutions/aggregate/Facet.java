@@ -0,0 +1,86 @@
+package ru.standardsolutions.aggregate;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Описание фасета: поля группировки и агрегатные функции, вычисляемые для каждой группы строк, прошедших
+ * фильтры запроса. Фасет без полей группировки вычисляет итоги по всем строкам. Создается через
+ * {@link FacetBuilder}.
+ */
+@Getter
+@ToString
+public final class Facet {
+
+    /**
+     * Имя фасета в ответе.
+     */
+    private final String name;
+
+    /**
+     * Поля группировки в порядке ключа группы.
+     */
+    private final List<Group> groups;
+
+    /**
+     * Агрегатные функции в порядке значений группы.
+     */
+    private final List<Metric> metrics;
+
+    /**
+     * Максимальное количество групп с наибольшим значением первой метрики; {@code 0} - все группы
+     * в порядке ключа.
+     */
+    private final int limit;
+
+    Facet(String name, List<Group> groups, List<Metric> metrics, int limit) {
+        this.name = name;
+        this.groups = List.copyOf(groups);
+        this.metrics = List.copyOf(metrics);
+        this.limit = limit;
+    }
+
+    /**
+     * Поле группировки.
+     *
+     * @param field       путь поля через точку
+     * @param granularity способ группировки значений поля
+     */
+    public record Group(String field, Granularity granularity) {
+
+        /**
+         * Имя поля группировки в результате, например {@code status} или {@code month(created)}.
+         *
+         * @return имя поля группировки
+         */
+        public String name() {
+            return granularity == Granularity.VALUE
+                    ? field
+                    : granularity.name().toLowerCase(Locale.ROOT) + "(" + field + ")";
+        }
+    }
+
+    /**
+     * Способ группировки значений поля.
+     */
+    public enum Granularity {
+
+        /**
+         * По значению поля.
+         */
+        VALUE,
+
+        /**
+         * По году даты, ключ группы - {@link java.time.Year}.
+         */
+        YEAR,
+
+        /**
+         * По месяцу даты, ключ группы - {@link java.time.YearMonth}.
+         */
+        MONTH
+    }
+}
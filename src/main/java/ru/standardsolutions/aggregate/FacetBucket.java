@@ -0,0 +1,12 @@
+package ru.standardsolutions.aggregate;
+
+import java.util.List;
+
+/**
+ * Группа фасета.
+ *
+ * @param key    значения полей группировки в порядке {@link FacetResult#keys()}
+ * @param values значения агрегатных функций в порядке {@link FacetResult#metrics()}
+ */
+public record FacetBucket(List<Object> key, List<Object> values) {
+}
@@ -0,0 +1,145 @@
+package ru.standardsolutions.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Построитель {@link Facet}.
+ */
+public class FacetBuilder {
+    private final String name;
+    private final List<Facet.Group> groups = new ArrayList<>();
+    private final List<Metric> metrics = new ArrayList<>();
+    private int limit;
+
+    /**
+     * @param name имя фасета в ответе
+     * @throws IllegalArgumentException если имя не задано
+     */
+    public FacetBuilder(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Не задано имя фасета");
+        }
+        this.name = name;
+    }
+
+    /**
+     * Добавляет поля группировки по значению.
+     *
+     * @param fields пути полей
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder by(String... fields) {
+        for (String field : fields) {
+            groups.add(new Facet.Group(field, Facet.Granularity.VALUE));
+        }
+        return this;
+    }
+
+    /**
+     * Добавляет группировку по году поля даты.
+     *
+     * @param field путь поля
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder byYear(String field) {
+        groups.add(new Facet.Group(field, Facet.Granularity.YEAR));
+        return this;
+    }
+
+    /**
+     * Добавляет группировку по месяцу поля даты.
+     *
+     * @param field путь поля
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder byMonth(String field) {
+        groups.add(new Facet.Group(field, Facet.Granularity.MONTH));
+        return this;
+    }
+
+    /**
+     * Добавляет количество строк группы.
+     *
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder count() {
+        return metric(Metric.count());
+    }
+
+    /**
+     * Добавляет сумму значений поля.
+     *
+     * @param field путь числового поля
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder sum(String field) {
+        return metric(Metric.sum(field));
+    }
+
+    /**
+     * Добавляет наименьшее значение поля.
+     *
+     * @param field путь поля
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder min(String field) {
+        return metric(Metric.min(field));
+    }
+
+    /**
+     * Добавляет наибольшее значение поля.
+     *
+     * @param field путь поля
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder max(String field) {
+        return metric(Metric.max(field));
+    }
+
+    /**
+     * Добавляет среднее значение поля.
+     *
+     * @param field путь числового поля
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder avg(String field) {
+        return metric(Metric.avg(field));
+    }
+
+    /**
+     * Добавляет агрегатную функцию.
+     *
+     * @param metric агрегатная функция
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder metric(Metric metric) {
+        if (metric != null) {
+            metrics.add(metric);
+        }
+        return this;
+    }
+
+    /**
+     * Оставляет только {@code limit} групп с наибольшим значением первой метрики, например самые частые
+     * статусы.
+     *
+     * @param limit количество групп
+     * @return этот экземпляр построителя
+     */
+    public FacetBuilder top(int limit) {
+        if (limit > 0) {
+            this.limit = limit;
+        }
+        return this;
+    }
+
+    /**
+     * Создает фасет. Если агрегатные функции не заданы, вычисляется количество строк.
+     *
+     * @return фасет
+     */
+    public Facet build() {
+        return new Facet(name, groups, metrics.isEmpty() ? List.of(Metric.count()) : metrics, limit);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.standardsolutions.aggregate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат фасета: имена полей группировки и метрик передаются один раз, группы содержат только значения.
+ *
+ * @param name    имя фасета
+ * @param keys    имена полей группировки, например {@code status} или {@code month(created)}
+ * @param metrics имена метрик, например {@code count} или {@code sum(amount)}
+ * @param buckets группы
+ */
+public record FacetResult(String name, List<String> keys, List<String> metrics, List<FacetBucket> buckets) {
+
+    /**
+     * Возвращает значения метрики по ключам групп, например количество по статусам. Ключ фасета с одним полем
+     * группировки - значение этого поля, с несколькими - список значений.
+     *
+     * @param metric имя метрики
+     * @return упорядоченное отображение ключа группы в значение метрики
+     * @throws IllegalArgumentException если у фасета нет такой метрики
+     */
+    public Map<Object, Object> toMap(String metric) {
+        int index = metrics.indexOf(metric);
+        if (index < 0) {
+            throw new IllegalArgumentException("Нет метрики " + metric + " в фасете " + name);
+        }
+        Map<Object, Object> values = new LinkedHashMap<>();
+        for (FacetBucket bucket : buckets) {
+            values.put(bucket.key().size() == 1 ? bucket.key().get(0) : bucket.key(), bucket.values().get(index));
+        }
+        return values;
+    }
+}
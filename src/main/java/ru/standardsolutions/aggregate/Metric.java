@@ -0,0 +1,105 @@
+package ru.standardsolutions.aggregate;
+
+import java.util.Locale;
+
+/**
+ * Агрегатная функция фасета по полю сущности.
+ *
+ * @param function функция
+ * @param field    путь поля через точку; {@code null} для количества строк
+ */
+public record Metric(Function function, String field) {
+
+    /**
+     * Агрегатные функции.
+     */
+    public enum Function {
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG
+    }
+
+    /**
+     * @throws IllegalArgumentException если функция не задана или поле не задано для функции, отличной от
+     *                                  {@link Function#COUNT}
+     */
+    public Metric {
+        if (function == null) {
+            throw new IllegalArgumentException("Не задана агрегатная функция");
+        }
+        if (field == null && function != Function.COUNT) {
+            throw new IllegalArgumentException("Для функции " + function + " не задано поле");
+        }
+    }
+
+    /**
+     * Количество строк группы.
+     *
+     * @return метрика {@code count}
+     */
+    public static Metric count() {
+        return new Metric(Function.COUNT, null);
+    }
+
+    /**
+     * Количество непустых значений поля в группе.
+     *
+     * @param field путь поля
+     * @return метрика {@code count(поле)}
+     */
+    public static Metric count(String field) {
+        return new Metric(Function.COUNT, field);
+    }
+
+    /**
+     * Сумма значений числового поля.
+     *
+     * @param field путь поля
+     * @return метрика {@code sum(поле)}
+     */
+    public static Metric sum(String field) {
+        return new Metric(Function.SUM, field);
+    }
+
+    /**
+     * Наименьшее значение поля.
+     *
+     * @param field путь поля
+     * @return метрика {@code min(поле)}
+     */
+    public static Metric min(String field) {
+        return new Metric(Function.MIN, field);
+    }
+
+    /**
+     * Наибольшее значение поля.
+     *
+     * @param field путь поля
+     * @return метрика {@code max(поле)}
+     */
+    public static Metric max(String field) {
+        return new Metric(Function.MAX, field);
+    }
+
+    /**
+     * Среднее значение числового поля.
+     *
+     * @param field путь поля
+     * @return метрика {@code avg(поле)}
+     */
+    public static Metric avg(String field) {
+        return new Metric(Function.AVG, field);
+    }
+
+    /**
+     * Имя метрики в результате, например {@code count} или {@code sum(amount)}.
+     *
+     * @return имя метрики
+     */
+    public String name() {
+        String function = this.function.name().toLowerCase(Locale.ROOT);
+        return field == null ? function : function + "(" + field + ")";
+    }
+}
@@ -0,0 +1,44 @@
+package ru.standardsolutions.batch;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import ru.standardsolutions.request.FetchRequest;
+
+import java.util.function.Function;
+
+/**
+ * Выборка в составе пакета {@link ru.standardsolutions.FetchManager#performBatch(java.util.List)}. Служит также
+ * ключом для получения ее ответа из {@link FetchBatchResponse}.
+ *
+ * @param repository репозиторий сущностей
+ * @param mapper     преобразование сущности в DTO
+ * @param request    запрос
+ * @param <E>        тип сущности
+ * @param <T>        тип DTO
+ */
+public record FetchBatchEntry<E, T>(JpaSpecificationExecutor<E> repository, Function<E, T> mapper,
+                                    FetchRequest request) {
+
+    /**
+     * @throws IllegalArgumentException если репозиторий, маппер или запрос не заданы
+     */
+    public FetchBatchEntry {
+        if (repository == null || mapper == null || request == null) {
+            throw new IllegalArgumentException("Для выборки пакета требуются репозиторий, маппер и запрос");
+        }
+    }
+
+    /**
+     * Создает выборку пакета.
+     *
+     * @param repository репозиторий сущностей
+     * @param mapper     преобразование сущности в DTO
+     * @param request    запрос
+     * @param <E>        тип сущности
+     * @param <T>        тип DTO
+     * @return выборка пакета
+     */
+    public static <E, T> FetchBatchEntry<E, T> of(JpaSpecificationExecutor<E> repository, Function<E, T> mapper,
+                                                 FetchRequest request) {
+        return new FetchBatchEntry<>(repository, mapper, request);
+    }
+}
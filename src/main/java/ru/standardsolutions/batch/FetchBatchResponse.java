@@ -0,0 +1,51 @@
+package ru.standardsolutions.batch;
+
+import ru.standardsolutions.FetchResponse;
+
+import java.util.List;
+
+/**
+ * Результаты пакета выборок в порядке выборок.
+ *
+ * @param entries выборки пакета
+ * @param results результаты выборок по тем же индексам
+ */
+public record FetchBatchResponse(List<FetchBatchEntry<?, ?>> entries, List<FetchBatchResult<?>> results) {
+
+    /**
+     * Возвращает ответ выборки или выбрасывает ее ошибку.
+     *
+     * @param entry выборка пакета
+     * @param <T>   тип DTO
+     * @return ответ
+     * @throws IllegalArgumentException если выборка не входит в пакет
+     * @throws RuntimeException         ошибка выборки
+     */
+    public <T> FetchResponse<T> get(FetchBatchEntry<?, T> entry) {
+        return result(entry).getOrThrow();
+    }
+
+    /**
+     * Возвращает результат выборки.
+     *
+     * @param entry выборка пакета
+     * @param <T>   тип DTO
+     * @return ответ либо ошибка
+     * @throws IllegalArgumentException если выборка не входит в пакет
+     */
+    @SuppressWarnings("unchecked")
+    public <T> FetchBatchResult<T> result(FetchBatchEntry<?, T> entry) {
+        int index = entries.indexOf(entry);
+        if (index < 0) {
+            throw new IllegalArgumentException("Выборка не входит в пакет: " + entry);
+        }
+        return (FetchBatchResult<T>) results.get(index);
+    }
+
+    /**
+     * @return {@code true}, если хотя бы одна выборка завершилась ошибкой
+     */
+    public boolean hasFailures() {
+        return results.stream().anyMatch(result -> !result.isSuccess());
+    }
+}
@@ -0,0 +1,55 @@
+package ru.standardsolutions.batch;
+
+import ru.standardsolutions.FetchResponse;
+
+/**
+ * Результат одной выборки пакета: ответ либо ошибка.
+ *
+ * @param response ответ; {@code null}, если выборка завершилась ошибкой
+ * @param error    ошибка; {@code null}, если выборка выполнена
+ * @param <T>      тип DTO
+ */
+public record FetchBatchResult<T>(FetchResponse<T> response, RuntimeException error) {
+
+    /**
+     * Результат выполненной выборки.
+     *
+     * @param response ответ
+     * @param <T>      тип DTO
+     * @return результат
+     */
+    public static <T> FetchBatchResult<T> success(FetchResponse<T> response) {
+        return new FetchBatchResult<>(response, null);
+    }
+
+    /**
+     * Результат выборки, завершившейся ошибкой.
+     *
+     * @param error ошибка
+     * @param <T>   тип DTO
+     * @return результат
+     */
+    public static <T> FetchBatchResult<T> failure(RuntimeException error) {
+        return new FetchBatchResult<>(null, error);
+    }
+
+    /**
+     * @return {@code true}, если выборка выполнена без ошибки
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Возвращает ответ или выбрасывает ошибку выборки.
+     *
+     * @return ответ
+     * @throws RuntimeException ошибка выборки
+     */
+    public FetchResponse<T> getOrThrow() {
+        if (error != null) {
+            throw error;
+        }
+        return response;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.standardsolutions.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.standardsolutions.FetchConfiguration;
+import ru.standardsolutions.SlowFetchListener;
+import ru.standardsolutions.StatementCounter;
+import ru.standardsolutions.convert.ValueConverter;
+import ru.standardsolutions.convert.ValueConverters;
+import ru.standardsolutions.guard.FetchGuard;
+import ru.standardsolutions.metadata.EntityMetadataRegistry;
+import ru.standardsolutions.search.TextSearchStrategy;
+
+import java.util.List;
+
+/**
+ * Автоконфигурация библиотеки.
+ * <p>
+ * После создания всех синглтонов регистрирует бины {@link ValueConverter} (первый по порядку имеет наивысший
+ * приоритет) и описывает поля сущностей каждой {@link EntityManagerFactory} в {@link EntityMetadataRegistry},
+ * чтобы первые запросы не тратили время на разбор метамодели. Единственный {@link PlatformTransactionManager}
+ * контекста передается в {@link FetchConfiguration} для фоновых запросов, единственный {@link ObservationRegistry}
+ * и бины {@link SlowFetchListener} - для наблюдения за выборками, единственный {@link FetchGuard} - для проверки
+ * стоимости запросов, единственный {@link TextSearchStrategy} - для оператора {@code search}, а
+ * {@link ResultCacheInvalidator} подключается к событиям Hibernate для сброса кэша результатов. Также
+ * подключает {@link StatementCounter} к Hibernate для обнаружения проблемы N+1.
+ */
+@AutoConfiguration(after = HibernateJpaAutoConfiguration.class)
+@ConditionalOnClass(EntityManagerFactory.class)
+public class FetchAutoConfiguration {
+
+    /**
+     * Регистрирует {@link StatementCounter} для обнаружения проблемы N+1, если приложение не задало
+     * собственный {@code StatementInspector}.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer fetchStatementCounterCustomizer() {
+        return properties -> properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+
+    @Bean
+    public SmartInitializingSingleton fetchEntityMetadataInitializer(
+            ObjectProvider<ValueConverter> valueConverters,
+            ObjectProvider<EntityManagerFactory> entityManagerFactories,
+            ObjectProvider<PlatformTransactionManager> transactionManagers,
+            ObjectProvider<ObservationRegistry> observationRegistries,
+            ObjectProvider<SlowFetchListener> slowFetchListeners,
+            ObjectProvider<FetchGuard> fetchGuards,
+            ObjectProvider<TextSearchStrategy> textSearchStrategies) {
+        return () -> {
+            if (FetchConfiguration.getTransactionManager() == null) {
+                FetchConfiguration.setTransactionManager(transactionManagers.getIfUnique());
+            }
+            observationRegistries.ifUnique(FetchConfiguration::setObservationRegistry);
+            fetchGuards.ifUnique(FetchConfiguration::setFetchGuard);
+            textSearchStrategies.ifUnique(FetchConfiguration::setTextSearchStrategy);
+            List<SlowFetchListener> slowListeners = slowFetchListeners.orderedStream().toList();
+            if (!slowListeners.isEmpty() && FetchConfiguration.getSlowFetchListener() == null) {
+                FetchConfiguration.setSlowFetchListener(
+                        event -> slowListeners.forEach(listener -> listener.onSlowFetch(event)));
+            }
+            List<ValueConverter> converters = valueConverters.orderedStream().toList();
+            for (int i = converters.size() - 1; i >= 0; i--) {
+                ValueConverters.register(converters.get(i));
+            }
+            ResultCacheInvalidator invalidator = new ResultCacheInvalidator();
+            entityManagerFactories.orderedStream().forEach(factory -> {
+                EntityMetadataRegistry.register(factory.getMetamodel());
+                EventListenerRegistry listeners = factory.unwrap(SessionFactoryImplementor.class)
+                        .getServiceRegistry().requireService(EventListenerRegistry.class);
+                listeners.appendListeners(EventType.POST_COMMIT_INSERT, invalidator);
+                listeners.appendListeners(EventType.POST_COMMIT_UPDATE, invalidator);
+                listeners.appendListeners(EventType.POST_COMMIT_DELETE, invalidator);
+            });
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package ru.standardsolutions.convert;
+
+/**
+ * Преобразователь строкового значения фильтра к типу поля сущности.
+ * <p>
+ * Реализации регистрируются через {@link ValueConverters#register(ValueConverter)} или объявляются
+ * бинами Spring, которые автоконфигурация регистрирует при старте. Зарегистрированные преобразователи
+ * проверяются раньше встроенных, поэтому позволяют как добавить новый тип, так и переопределить формат
+ * встроенного.
+ */
+public interface ValueConverter {
+
+    /**
+     * Проверяет, умеет ли преобразователь приводить значения к типу.
+     *
+     * @param targetType тип поля; примитивные типы передаются оболочками
+     * @return {@code true}, если тип поддерживается
+     */
+    boolean supports(Class<?> targetType);
+
+    /**
+     * Преобразует строковое значение к типу поля.
+     *
+     * @param value      строковое значение
+     * @param targetType тип поля
+     * @return значение типа поля
+     */
+    Comparable<?> convert(String value, Class<?> targetType);
+}
@@ -0,0 +1,180 @@
+package ru.standardsolutions.convert;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.util.ClassUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_TIME;
+
+/**
+ * Преобразование строкового значения фильтра к типу поля сущности.
+ * <p>
+ * Преобразователь выбирается один раз для типа поля и сохраняется, поэтому при построении предиката не
+ * выполняется перебор типов, а форматтеры дат создаются однократно. Сначала проверяются преобразователи,
+ * зарегистрированные через {@link #register(ValueConverter)}, затем встроенные: строки, числа, логический тип,
+ * символ, {@link UUID}, перечисления (по имени константы, при отсутствии точного совпадения без учета
+ * регистра) и типы {@code java.time}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ValueConverters {
+
+    /**
+     * Дата и время через пробел ({@code 2024-01-31 10:15:30}) или через {@code T} по ISO-8601.
+     */
+    private static final DateTimeFormatter LOCAL_DATE_TIME_FORMAT = new DateTimeFormatterBuilder()
+            .append(ISO_LOCAL_DATE)
+            .optionalStart().appendLiteral(' ').optionalEnd()
+            .optionalStart().appendLiteral('T').optionalEnd()
+            .append(ISO_LOCAL_TIME)
+            .toFormatter();
+
+    private static final Map<Class<?>, Function<String, Comparable<?>>> BUILT_IN = Map.ofEntries(
+            Map.entry(String.class, value -> value),
+            Map.entry(Boolean.class, Boolean::valueOf),
+            Map.entry(Byte.class, Byte::valueOf),
+            Map.entry(Short.class, Short::valueOf),
+            Map.entry(Integer.class, Integer::valueOf),
+            Map.entry(Long.class, Long::valueOf),
+            Map.entry(Float.class, Float::valueOf),
+            Map.entry(Double.class, Double::valueOf),
+            Map.entry(BigDecimal.class, BigDecimal::new),
+            Map.entry(BigInteger.class, BigInteger::new),
+            Map.entry(Character.class, ValueConverters::parseCharacter),
+            Map.entry(UUID.class, UUID::fromString),
+            Map.entry(LocalDate.class, LocalDate::parse),
+            Map.entry(LocalDateTime.class, value -> LocalDateTime.parse(value, LOCAL_DATE_TIME_FORMAT)),
+            Map.entry(LocalTime.class, LocalTime::parse),
+            Map.entry(Instant.class, Instant::parse),
+            Map.entry(OffsetDateTime.class, OffsetDateTime::parse),
+            Map.entry(OffsetTime.class, OffsetTime::parse),
+            Map.entry(ZonedDateTime.class, ZonedDateTime::parse),
+            Map.entry(Year.class, Year::parse),
+            Map.entry(YearMonth.class, YearMonth::parse),
+            Map.entry(Duration.class, Duration::parse)
+    );
+
+    private static final List<ValueConverter> CUSTOM = new CopyOnWriteArrayList<>();
+
+    private static final Map<Class<?>, Function<String, Comparable<?>>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Регистрирует преобразователь с приоритетом над встроенными и ранее зарегистрированными.
+     * <p>
+     * Описания полей сохраняют преобразователь при создании, поэтому регистрировать преобразователи
+     * нужно до первых запросов; бины {@link ValueConverter} автоконфигурация регистрирует до заполнения
+     * реестра сущностей.
+     *
+     * @param converter преобразователь
+     */
+    public static void register(ValueConverter converter) {
+        CUSTOM.add(0, converter);
+        CACHE.clear();
+    }
+
+    /**
+     * Возвращает преобразователь строкового значения для типа поля.
+     *
+     * @param fieldType тип поля
+     * @return преобразователь; ошибка разбора и неподдерживаемый тип приводят к
+     * {@link IllegalArgumentException} при вызове
+     */
+    public static Function<String, Comparable<?>> converterFor(Class<?> fieldType) {
+        Function<String, Comparable<?>> converter = CACHE.get(fieldType);
+        if (converter != null) {
+            return converter;
+        }
+        return CACHE.computeIfAbsent(fieldType, ValueConverters::createConverter);
+    }
+
+    /**
+     * Преобразует строковое значение к типу поля.
+     *
+     * @param value     строковое значение
+     * @param fieldType тип поля
+     * @return значение типа поля
+     */
+    public static Comparable<?> convert(String value, Class<?> fieldType) {
+        return converterFor(fieldType).apply(value);
+    }
+
+    private static Function<String, Comparable<?>> createConverter(Class<?> fieldType) {
+        Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(fieldType);
+        Function<String, Comparable<?>> converter = findConverter(type);
+        if (converter == null) {
+            return value -> {
+                throw new IllegalArgumentException("Неподдерживаемый тип данных для операции сравнения: " + type);
+            };
+        }
+        return value -> {
+            try {
+                return converter.apply(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(
+                        "Некорректное значение '" + value + "' для типа " + type.getSimpleName(), e);
+            }
+        };
+    }
+
+    private static Function<String, Comparable<?>> findConverter(Class<?> type) {
+        for (ValueConverter custom : CUSTOM) {
+            if (custom.supports(type)) {
+                return value -> custom.convert(value, type);
+            }
+        }
+        if (type.isEnum()) {
+            return enumConverter(type);
+        }
+        return BUILT_IN.get(type);
+    }
+
+    private static Function<String, Comparable<?>> enumConverter(Class<?> type) {
+        Map<String, Comparable<?>> exact = new HashMap<>();
+        Map<String, Comparable<?>> ignoringCase = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            Enum<?> value = (Enum<?>) constant;
+            exact.put(value.name(), value);
+            ignoringCase.putIfAbsent(value.name().toUpperCase(Locale.ROOT), value);
+        }
+        return value -> {
+            Comparable<?> constant = exact.get(value);
+            if (constant == null) {
+                constant = ignoringCase.get(value.toUpperCase(Locale.ROOT));
+            }
+            if (constant == null) {
+                throw new IllegalArgumentException("Нет константы " + value + " в перечислении " + type.getName());
+            }
+            return constant;
+        };
+    }
+
+    private static Character parseCharacter(String value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException("Ожидался один символ");
+        }
+        return value.charAt(0);
+    }
+}
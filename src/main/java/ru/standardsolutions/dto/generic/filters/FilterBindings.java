@@ -0,0 +1,170 @@
+package ru.standardsolutions.dto.generic.filters;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.standardsolutions.Operator;
+import ru.standardsolutions.dto.generic.filters.types.Period;
+import ru.standardsolutions.request.FetchRequestBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Перенос значений из реализации {@link Filters} в {@link FetchRequestBuilder} по аннотациям
+ * {@link FilterField}.
+ * <p>
+ * Для каждого класса фильтров аннотации разбираются один раз в план: для каждого поля - {@link MethodHandle}
+ * чтения значения, путь, оператор и способ добавления фильтра. План хранится в {@link ClassValue}, поэтому
+ * при запросах рефлексия не используется, а ошибки в аннотациях обнаруживаются при первом связывании.
+ * Значения передаются в запрос типизированными, без преобразования в строку.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FilterBindings {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<List<Binding>> PLANS = new ClassValue<>() {
+        @Override
+        protected List<Binding> computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    /**
+     * Добавляет в построитель фильтры по непустым аннотированным полям.
+     *
+     * @param filters фильтры запроса, может быть {@code null}
+     * @param builder построитель запроса
+     * @return тот же построитель
+     * @throws IllegalArgumentException если аннотации класса фильтров заданы некорректно
+     */
+    public static FetchRequestBuilder apply(Filters filters, FetchRequestBuilder builder) {
+        if (filters == null) {
+            return builder;
+        }
+        for (Binding binding : PLANS.get(filters.getClass())) {
+            binding.apply(filters, builder);
+        }
+        return builder;
+    }
+
+    private static List<Binding> compile(Class<?> type) {
+        List<Binding> bindings = new ArrayList<>();
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(0, current);
+        }
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                FilterField annotation = field.getAnnotation(FilterField.class);
+                if (annotation != null && !Modifier.isStatic(field.getModifiers())) {
+                    bindings.add(compile(privateLookup(current), field, annotation));
+                }
+            }
+        }
+        return List.copyOf(bindings);
+    }
+
+    private static Binding compile(MethodHandles.Lookup lookup, Field field, FilterField annotation) {
+        String path = annotation.path().isEmpty() ? field.getName() : annotation.path();
+        Operator operator = annotation.op();
+        Class<?> type = field.getType();
+        Kind kind;
+        if (type == Period.class) {
+            kind = Kind.PERIOD;
+            if (operator != Operator.EQUAL) {
+                throw invalid(field, "для периода оператор не задается");
+            }
+        } else if (type.isPrimitive() || (type.isArray() && type.getComponentType().isPrimitive())) {
+            throw invalid(field, "примитивный тип не может быть пустым, используйте тип-обертку");
+        } else if (Collection.class.isAssignableFrom(type) || type.isArray()) {
+            kind = Kind.COLLECTION;
+            operator = operator == Operator.EQUAL ? Operator.IN : operator;
+            if (operator != Operator.IN && operator != Operator.NOT_IN) {
+                throw invalid(field, "для коллекции допустимы только in и not in");
+            }
+        } else {
+            kind = Kind.SCALAR;
+            if (operator == Operator.IN || operator == Operator.NOT_IN) {
+                throw invalid(field, "in и not in применимы только к коллекциям");
+            }
+        }
+        if (operator == Operator.AND || operator == Operator.OR || operator == Operator.NOT) {
+            throw invalid(field, "логический оператор не может быть оператором поля");
+        }
+        try {
+            MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            return new Binding(getter, path, operator, kind);
+        } catch (IllegalAccessException e) {
+            throw invalid(field, "нет доступа к полю");
+        }
+    }
+
+    private static MethodHandles.Lookup privateLookup(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Нет доступа к полям фильтров " + type.getName(), e);
+        }
+    }
+
+    private static IllegalArgumentException invalid(Field field, String message) {
+        return new IllegalArgumentException("Некорректная аннотация @FilterField на поле "
+                + field.getDeclaringClass().getSimpleName() + "." + field.getName() + ": " + message);
+    }
+
+    /**
+     * Способ добавления фильтра, определяемый типом поля.
+     */
+    private enum Kind {
+        SCALAR,
+        COLLECTION,
+        PERIOD
+    }
+
+    /**
+     * Связывание одного поля фильтров.
+     */
+    private record Binding(MethodHandle getter, String path, Operator operator, Kind kind) {
+
+        void apply(Filters filters, FetchRequestBuilder builder) {
+            Object value = read(filters);
+            if (value == null) {
+                return;
+            }
+            switch (kind) {
+                case SCALAR -> {
+                    if (!(value instanceof String string && string.isEmpty())) {
+                        builder.filter(path, operator.getStrValue(), value);
+                    }
+                }
+                case COLLECTION -> {
+                    Collection<?> values = value instanceof Collection<?> collection
+                            ? collection
+                            : Arrays.asList((Object[]) value);
+                    if (operator == Operator.IN) {
+                        builder.in(path, values);
+                    } else {
+                        builder.notIn(path, values);
+                    }
+                }
+                case PERIOD -> builder.period(path, (Period) value);
+            }
+        }
+
+        private Object read(Filters filters) {
+            try {
+                return (Object) getter.invokeExact((Object) filters);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Не удалось прочитать поле фильтра " + path, e);
+            }
+        }
+    }
+}
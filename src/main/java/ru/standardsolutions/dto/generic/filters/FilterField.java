@@ -0,0 +1,38 @@
+package ru.standardsolutions.dto.generic.filters;
+
+import ru.standardsolutions.Operator;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Связывает поле реализации {@link Filters} с фильтром по полю сущности.
+ * <p>
+ * Пустое значение поля ({@code null}, пустая строка, пустая коллекция) фильтр не добавляет. Коллекции
+ * и массивы сравниваются через {@code in} или {@code not in},
+ * {@link ru.standardsolutions.dto.generic.filters.types.Period} задает диапазон с включенными границами.
+ * Связывание выполняет {@link FilterBindings}.
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FilterField {
+
+    /**
+     * Путь поля сущности через точку; по умолчанию - имя поля фильтра.
+     *
+     * @return путь поля
+     */
+    String path() default "";
+
+    /**
+     * Оператор сравнения. Для коллекций {@link Operator#EQUAL} означает {@link Operator#IN}, для периода
+     * допустим только оператор по умолчанию.
+     *
+     * @return оператор
+     */
+    Operator op() default Operator.EQUAL;
+}
@@ -0,0 +1,25 @@
+package ru.standardsolutions.guard;
+
+import ru.standardsolutions.request.FetchRequest;
+
+/**
+ * Модель стоимости запроса, проверяемая до построения спецификации.
+ * <p>
+ * Реализация либо пропускает запрос, либо возвращает его удешевленный вариант, например без подсчета
+ * количества, либо отклоняет его через {@link FetchRequestRejectedException}. Реализация по умолчанию -
+ * {@link PolicyFetchGuard}; собственная подключается через
+ * {@link ru.standardsolutions.FetchConfiguration#setFetchGuard(FetchGuard)} или бином.
+ */
+@FunctionalInterface
+public interface FetchGuard {
+
+    /**
+     * Проверяет запрос.
+     *
+     * @param entityType тип сущности выборки
+     * @param request    запрос
+     * @return запрос к выполнению: исходный либо удешевленный
+     * @throws FetchRequestRejectedException если запрос превышает допустимую стоимость
+     */
+    FetchRequest check(Class<?> entityType, FetchRequest request);
+}
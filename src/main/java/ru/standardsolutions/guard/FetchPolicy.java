@@ -0,0 +1,94 @@
+package ru.standardsolutions.guard;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Ограничения запросов к одной сущности для {@link PolicyFetchGuard}.
+ * <p>
+ * Структурные ограничения - глубина вложенности, количество условий, размер списков значений и перечни
+ * разрешенных полей - нарушаться не могут: такой запрос всегда отклоняется. Ограничения стоимости относятся
+ * только к {@link #isLargeTable() большим таблицам}: шаблон {@code like} с подстановочным символом в начале
+ * и, если задан перечень индексированных полей, фильтр или сортировка по неиндексированному полю. Их нарушение
+ * приводит к действию {@link #getOverBudget()}.
+ * <p>
+ * Создается через {@link FetchPolicyBuilder}.
+ */
+@Getter
+public final class FetchPolicy {
+
+    /**
+     * Действие при нарушении ограничений стоимости.
+     */
+    public enum OverBudget {
+
+        /**
+         * Отклонить запрос.
+         */
+        REJECT,
+
+        /**
+         * Выполнить запрос без подсчета общего количества, который требует полного просмотра.
+         */
+        DOWNGRADE
+    }
+
+    private final int maxDepth;
+
+    private final int maxPredicates;
+
+    private final int maxInListSize;
+
+    /**
+     * Разрешенные для фильтрации поля; пустой набор разрешает любые поля.
+     */
+    private final Set<String> filterFields;
+
+    /**
+     * Разрешенные для сортировки поля; пустой набор разрешает любые поля.
+     */
+    private final Set<String> sortFields;
+
+    /**
+     * Индексированные поля; пустой набор означает, что сведений об индексах нет.
+     */
+    private final Set<String> indexedFields;
+
+    private final boolean largeTable;
+
+    private final OverBudget overBudget;
+
+    FetchPolicy(int maxDepth, int maxPredicates, int maxInListSize, Set<String> filterFields,
+                Set<String> sortFields, Set<String> indexedFields, boolean largeTable, OverBudget overBudget) {
+        this.maxDepth = maxDepth;
+        this.maxPredicates = maxPredicates;
+        this.maxInListSize = maxInListSize;
+        this.filterFields = Set.copyOf(filterFields);
+        this.sortFields = Set.copyOf(sortFields);
+        this.indexedFields = Set.copyOf(indexedFields);
+        this.largeTable = largeTable;
+        this.overBudget = overBudget;
+    }
+
+    /**
+     * Ограничения по умолчанию: глубина 16, 1000 условий, 10000 значений в списке, любые поля.
+     *
+     * @return ограничения по умолчанию
+     */
+    public static FetchPolicy defaults() {
+        return new FetchPolicyBuilder().build();
+    }
+
+    boolean isFilterAllowed(String field) {
+        return filterFields.isEmpty() || filterFields.contains(field);
+    }
+
+    boolean isSortAllowed(String field) {
+        return sortFields.isEmpty() || sortFields.contains(field);
+    }
+
+    boolean isIndexUnknownOrPresent(String field) {
+        return indexedFields.isEmpty() || indexedFields.contains(field);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.standardsolutions.guard;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Построитель {@link FetchPolicy}.
+ */
+public class FetchPolicyBuilder {
+    private int maxDepth = 16;
+    private int maxPredicates = 1000;
+    private int maxInListSize = 10_000;
+    private final Set<String> filterFields = new HashSet<>();
+    private final Set<String> sortFields = new HashSet<>();
+    private final Set<String> indexedFields = new HashSet<>();
+    private boolean largeTable;
+    private FetchPolicy.OverBudget overBudget = FetchPolicy.OverBudget.REJECT;
+
+    /**
+     * Устанавливает максимальную глубину вложенности групп фильтров; фильтры верхнего уровня имеют глубину 1.
+     *
+     * @param maxDepth глубина
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder maxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Устанавливает максимальное количество условий сравнения во всем запросе.
+     *
+     * @param maxPredicates количество условий
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder maxPredicates(int maxPredicates) {
+        this.maxPredicates = maxPredicates;
+        return this;
+    }
+
+    /**
+     * Устанавливает максимальный размер списка значений {@code in} и {@code not in}.
+     *
+     * @param maxInListSize размер списка
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder maxInListSize(int maxInListSize) {
+        this.maxInListSize = maxInListSize;
+        return this;
+    }
+
+    /**
+     * Добавляет поля, по которым разрешена фильтрация. Если поля не заданы, разрешены любые.
+     *
+     * @param fields пути полей
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder filterFields(String... fields) {
+        filterFields.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Добавляет поля, по которым разрешена сортировка. Если поля не заданы, разрешены любые.
+     *
+     * @param fields пути полей
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder sortFields(String... fields) {
+        sortFields.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Добавляет индексированные поля. Для большой таблицы фильтр и сортировка по остальным полям
+     * считаются дорогими.
+     *
+     * @param fields пути полей
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder indexedFields(String... fields) {
+        indexedFields.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Отмечает таблицу сущности как большую, включая ограничения стоимости.
+     *
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder largeTable() {
+        this.largeTable = true;
+        return this;
+    }
+
+    /**
+     * Устанавливает действие при нарушении ограничений стоимости.
+     *
+     * @param overBudget действие
+     * @return этот экземпляр построителя
+     */
+    public FetchPolicyBuilder overBudget(FetchPolicy.OverBudget overBudget) {
+        this.overBudget = overBudget;
+        return this;
+    }
+
+    /**
+     * Создает ограничения.
+     *
+     * @return ограничения
+     */
+    public FetchPolicy build() {
+        if (maxDepth < 1 || maxPredicates < 1 || maxInListSize < 1) {
+            throw new IllegalArgumentException("Ограничения запроса должны быть положительными");
+        }
+        return new FetchPolicy(maxDepth, maxPredicates, maxInListSize, filterFields, sortFields, indexedFields,
+                largeTable, overBudget);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.standardsolutions.guard;
+
+import lombok.Getter;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Запрос отклонен до выполнения, так как превышает допустимую стоимость.
+ * <p>
+ * Является {@link IllegalArgumentException}, как и остальные ошибки некорректного запроса, и дополнительно
+ * содержит список нарушений для формирования структурированного ответа.
+ */
+@Getter
+public class FetchRequestRejectedException extends IllegalArgumentException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient Class<?> entityType;
+
+    private final transient List<FetchViolation> violations;
+
+    /**
+     * @param entityType тип сущности или {@code null}, если он не определен
+     * @param violations нарушения
+     */
+    public FetchRequestRejectedException(Class<?> entityType, List<FetchViolation> violations) {
+        super("Запрос к " + (entityType == null ? "неизвестной сущности" : entityType.getSimpleName())
+                + " отклонен: " + violations.stream()
+                .map(FetchViolation::message)
+                .collect(Collectors.joining("; ")));
+        this.entityType = entityType;
+        this.violations = List.copyOf(violations);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.standardsolutions.guard;
+
+/**
+ * Нарушение ограничения запроса.
+ *
+ * @param code    код нарушения
+ * @param field   поле, к которому относится нарушение, или {@code null} для запроса целиком
+ * @param message описание нарушения
+ */
+public record FetchViolation(Code code, String field, String message) {
+
+    /**
+     * Код нарушения.
+     */
+    public enum Code {
+
+        /**
+         * Превышена глубина вложенности групп фильтров.
+         */
+        DEPTH,
+
+        /**
+         * Превышено общее количество условий.
+         */
+        PREDICATES,
+
+        /**
+         * Превышен размер списка значений {@code in} или {@code not in}.
+         */
+        IN_LIST_SIZE,
+
+        /**
+         * Фильтр по полю, не разрешенному для фильтрации.
+         */
+        FILTER_FIELD,
+
+        /**
+         * Сортировка по полю, не разрешенному для сортировки.
+         */
+        SORT_FIELD,
+
+        /**
+         * Шаблон {@code like} с подстановочным символом в начале или поиск {@code search} стратегией,
+         * не использующей индексы, на большой таблице.
+         */
+        LEADING_WILDCARD,
+
+        /**
+         * Фильтр или сортировка по неиндексированному полю большой таблицы.
+         */
+        UNINDEXED_FIELD,
+
+        /**
+         * Тип сущности репозитория не определен, поэтому запрос нельзя проверить.
+         */
+        ENTITY_TYPE
+    }
+}
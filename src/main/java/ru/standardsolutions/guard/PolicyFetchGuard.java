@@ -0,0 +1,187 @@
+package ru.standardsolutions.guard;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.standardsolutions.FetchConfiguration;
+import ru.standardsolutions.Operator;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.SortRequest;
+import ru.standardsolutions.search.TextSearchFields;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.standardsolutions.guard.FetchViolation.Code;
+
+/**
+ * Проверка запросов по ограничениям {@link FetchPolicy}, заданным для каждой сущности.
+ * <p>
+ * Для сущности без собственных ограничений используются ограничения ближайшего суперкласса, а при их
+ * отсутствии - ограничения по умолчанию. Дерево фильтров обходится один раз; все найденные нарушения
+ * возвращаются вместе в {@link FetchRequestRejectedException}. Фильтр {@code search} проверяется по каждому
+ * полю набора {@link TextSearchFields}, а поиск способом, не использующим индексы, на большой таблице
+ * считается дорогим так же, как шаблон {@code like} с подстановочным символом в начале.
+ */
+@Slf4j
+public class PolicyFetchGuard implements FetchGuard {
+
+    private final FetchPolicy defaultPolicy;
+
+    private final Map<Class<?>, FetchPolicy> policies = new ConcurrentHashMap<>();
+
+    public PolicyFetchGuard() {
+        this(FetchPolicy.defaults());
+    }
+
+    /**
+     * @param defaultPolicy ограничения для сущностей без собственных ограничений
+     */
+    public PolicyFetchGuard(FetchPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * Задает ограничения для сущности и ее наследников.
+     *
+     * @param entityType тип сущности
+     * @param policy     ограничения
+     * @return эта проверка
+     */
+    public PolicyFetchGuard policy(Class<?> entityType, FetchPolicy policy) {
+        policies.put(entityType, policy);
+        return this;
+    }
+
+    @Override
+    public FetchRequest check(Class<?> entityType, FetchRequest request) {
+        FetchPolicy policy = policyFor(entityType);
+        List<FetchViolation> violations = new ArrayList<>();
+        List<FetchViolation> costs = new ArrayList<>();
+        int predicates = checkFilters(entityType, policy, request.getFilters(), 1, violations, costs);
+        if (predicates > policy.getMaxPredicates()) {
+            violations.add(new FetchViolation(Code.PREDICATES, null, "условий " + predicates
+                    + ", допустимо не более " + policy.getMaxPredicates()));
+        }
+        for (SortRequest sort : request.getSort()) {
+            if (!policy.isSortAllowed(sort.getField())) {
+                violations.add(new FetchViolation(Code.SORT_FIELD, sort.getField(),
+                        "сортировка по полю '" + sort.getField() + "' не разрешена"));
+            } else if (policy.isLargeTable() && !policy.isIndexUnknownOrPresent(sort.getField())) {
+                costs.add(new FetchViolation(Code.UNINDEXED_FIELD, sort.getField(),
+                        "сортировка по неиндексированному полю '" + sort.getField() + "'"));
+            }
+        }
+
+        if (costs.isEmpty() || policy.getOverBudget() == FetchPolicy.OverBudget.REJECT) {
+            violations.addAll(costs);
+            if (!violations.isEmpty()) {
+                throw new FetchRequestRejectedException(entityType, violations);
+            }
+            return request;
+        }
+        if (!violations.isEmpty()) {
+            throw new FetchRequestRejectedException(entityType, violations);
+        }
+        if (request.isKeyset() || request.getCount() == CountStrategy.NONE) {
+            return request;
+        }
+        log.debug("Запрос к {} выполняется без подсчета количества: {}", entityType.getSimpleName(), costs);
+        return new FetchRequest(request.getFilters(), request.getSort(), request.getPage(), request.getPagination(),
+                CountStrategy.NONE, request.getPrefetch());
+    }
+
+    /**
+     * Проверяет фильтры одного уровня и возвращает количество условий сравнения в них.
+     */
+    private static int checkFilters(Class<?> entityType, FetchPolicy policy, List<FilterRequest> filters, int depth,
+                                    List<FetchViolation> violations, List<FetchViolation> costs) {
+        if (filters == null || filters.isEmpty()) {
+            return 0;
+        }
+        if (depth > policy.getMaxDepth()) {
+            if (violations.stream().noneMatch(violation -> violation.code() == Code.DEPTH)) {
+                violations.add(new FetchViolation(Code.DEPTH, null, "глубина вложенности фильтров больше "
+                        + policy.getMaxDepth()));
+            }
+            return 0;
+        }
+        int predicates = 0;
+        for (FilterRequest filter : filters) {
+            Operator operator = Operator.fromString(filter.getOperator());
+            if (operator.isLogical()) {
+                predicates += checkFilters(entityType, policy, filter.getFilters(), depth + 1, violations, costs);
+                continue;
+            }
+            predicates++;
+            checkComparison(entityType, policy, filter, operator, violations, costs);
+        }
+        return predicates;
+    }
+
+    /**
+     * Проверяет условие сравнения. Условие без поля не проверяется: оно отклоняется при разрешении полей.
+     */
+    private static void checkComparison(Class<?> entityType, FetchPolicy policy, FilterRequest filter,
+                                        Operator operator, List<FetchViolation> violations,
+                                        List<FetchViolation> costs) {
+        String field = filter.getField();
+        if (field == null) {
+            return;
+        }
+        List<String> paths = operator == Operator.SEARCH ? TextSearchFields.resolve(entityType, field) : List.of(field);
+        boolean allowed = true;
+        for (String path : paths) {
+            if (!policy.isFilterAllowed(path)) {
+                violations.add(new FetchViolation(Code.FILTER_FIELD, path,
+                        "фильтр по полю '" + path + "' не разрешен"));
+                allowed = false;
+            }
+        }
+        if (!allowed) {
+            return;
+        }
+        if (operator == Operator.IN || operator == Operator.NOT_IN) {
+            int size = filter.getValueCount();
+            if (size > policy.getMaxInListSize()) {
+                violations.add(new FetchViolation(Code.IN_LIST_SIZE, field, "список значений поля '" + field
+                        + "' из " + size + " элементов, допустимо не более " + policy.getMaxInListSize()));
+            }
+        }
+        if (!policy.isLargeTable()) {
+            return;
+        }
+        if ((operator == Operator.LIKE || operator == Operator.ILIKE) && hasLeadingWildcard(filter.getValue())) {
+            costs.add(new FetchViolation(Code.LEADING_WILDCARD, field,
+                    "шаблон поля '" + field + "' начинается с подстановочного символа"));
+            return;
+        }
+        if (operator == Operator.SEARCH && !FetchConfiguration.getTextSearchStrategy().usesIndex()) {
+            costs.add(new FetchViolation(Code.LEADING_WILDCARD, field,
+                    "поиск по полю '" + field + "' выполняется шаблоном с подстановочным символом в начале"));
+            return;
+        }
+        for (String path : paths) {
+            if (!policy.isIndexUnknownOrPresent(path)) {
+                costs.add(new FetchViolation(Code.UNINDEXED_FIELD, path,
+                        "фильтр по неиндексированному полю '" + path + "'"));
+            }
+        }
+    }
+
+    private static boolean hasLeadingWildcard(String pattern) {
+        return pattern != null && !pattern.isEmpty() && (pattern.charAt(0) == '%' || pattern.charAt(0) == '_');
+    }
+
+    private FetchPolicy policyFor(Class<?> entityType) {
+        for (Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass()) {
+            FetchPolicy policy = policies.get(type);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+}
@@ -0,0 +1,122 @@
+package ru.standardsolutions.metadata;
+
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Описания полей одной сущности.
+ * <p>
+ * Атрибуты сущности и ее встраиваемых объектов описываются сразу при создании. Пути через ассоциации
+ * ({@code customer.city}) описываются при первом обращении и сохраняются, поэтому разбор строки пути
+ * и проверка по метамодели выполняются один раз на путь.
+ */
+public final class EntityMetadata {
+
+    @Getter
+    private final ManagedType<?> entityType;
+
+    private final Map<String, FieldDescriptor> fields = new ConcurrentHashMap<>();
+
+    EntityMetadata(ManagedType<?> entityType) {
+        this.entityType = entityType;
+        describeAttributes(entityType, "", new ArrayList<>());
+    }
+
+    /**
+     * Возвращает описание поля по пути.
+     *
+     * @param path путь поля через точку
+     * @return описание поля
+     * @throws IllegalArgumentException если у сущности нет такого поля
+     */
+    public FieldDescriptor resolve(String path) {
+        FieldDescriptor descriptor = fields.get(path);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        return fields.computeIfAbsent(path, this::describe);
+    }
+
+    private void describeAttributes(ManagedType<?> type, String prefix, List<Attribute<?, ?>> chain) {
+        for (Attribute<?, ?> attribute : type.getAttributes()) {
+            chain.add(attribute);
+            String path = prefix + attribute.getName();
+            fields.put(path, descriptor(path, chain));
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED
+                    && targetType(attribute) instanceof ManagedType<?> embeddable) {
+                describeAttributes(embeddable, path + ".", chain);
+            }
+            chain.remove(chain.size() - 1);
+        }
+    }
+
+    private FieldDescriptor describe(String path) {
+        List<Attribute<?, ?>> chain = new ArrayList<>();
+        Type<?> type = entityType;
+        int start = 0;
+        while (true) {
+            int dot = path.indexOf('.', start);
+            String segment = dot < 0 ? path.substring(start) : path.substring(start, dot);
+            if (!(type instanceof ManagedType<?> managedType)) {
+                throw unknownField(path);
+            }
+            Attribute<?, ?> attribute = findAttribute(managedType, segment);
+            if (attribute == null) {
+                throw unknownField(path);
+            }
+            chain.add(attribute);
+            if (dot < 0) {
+                return descriptor(path, chain);
+            }
+            type = targetType(attribute);
+            start = dot + 1;
+        }
+    }
+
+    private static FieldDescriptor descriptor(String path, List<Attribute<?, ?>> chain) {
+        List<String> associationPaths = new ArrayList<>();
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < chain.size() - 1; i++) {
+            Attribute<?, ?> attribute = chain.get(i);
+            if (i > 0) {
+                prefix.append('.');
+            }
+            prefix.append(attribute.getName());
+            if (attribute.isAssociation() || attribute.isCollection()) {
+                associationPaths.add(prefix.toString());
+            }
+        }
+        return new FieldDescriptor(path, chain, associationPaths);
+    }
+
+    private static Attribute<?, ?> findAttribute(ManagedType<?> type, String name) {
+        try {
+            return type.getAttribute(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Type<?> targetType(Attribute<?, ?> attribute) {
+        if (attribute instanceof SingularAttribute<?, ?> singular) {
+            return singular.getType();
+        } else if (attribute instanceof PluralAttribute<?, ?, ?> plural) {
+            return plural.getElementType();
+        }
+        return null;
+    }
+
+    private IllegalArgumentException unknownField(String path) {
+        return new IllegalArgumentException(
+                "Неизвестное поле '" + path + "' для сущности " + entityType.getJavaType().getSimpleName());
+    }
+}
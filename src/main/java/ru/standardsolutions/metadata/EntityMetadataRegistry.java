@@ -0,0 +1,60 @@
+package ru.standardsolutions.metadata;
+
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр описаний полей сущностей.
+ * <p>
+ * Заполняется при старте приложения из {@link Metamodel} (см. {@code FetchAutoConfiguration}); сущность,
+ * не попавшая в реестр при старте, описывается при первом запросе по ней.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class EntityMetadataRegistry {
+
+    private static final Map<Class<?>, EntityMetadata> ENTITIES = new ConcurrentHashMap<>();
+
+    /**
+     * Описывает все сущности метамодели.
+     *
+     * @param metamodel метамодель единицы персистентности
+     */
+    public static void register(Metamodel metamodel) {
+        metamodel.getEntities().forEach(EntityMetadataRegistry::forEntity);
+    }
+
+    /**
+     * Возвращает описание сущности, создавая его при первом обращении.
+     *
+     * @param entityType тип сущности из метамодели
+     * @return описание полей сущности
+     */
+    public static EntityMetadata forEntity(ManagedType<?> entityType) {
+        EntityMetadata metadata = ENTITIES.get(entityType.getJavaType());
+        if (metadata != null) {
+            return metadata;
+        }
+        return ENTITIES.computeIfAbsent(entityType.getJavaType(), type -> new EntityMetadata(entityType));
+    }
+
+    /**
+     * Ищет описание сущности по классу объекта, поднимаясь по иерархии наследования.
+     *
+     * @param type класс сущности или его наследник
+     * @return описание сущности или {@code null}, если сущность еще не описана
+     */
+    public static EntityMetadata find(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            EntityMetadata metadata = ENTITIES.get(current);
+            if (metadata != null) {
+                return metadata;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,120 @@
+package ru.standardsolutions.metadata;
+
+import jakarta.persistence.metamodel.Attribute;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.ClassUtils;
+import ru.standardsolutions.convert.ValueConverters;
+import ru.standardsolutions.request.FilterValues;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Заранее вычисленное описание поля сущности, доступного для фильтрации и сортировки.
+ */
+@Getter
+@ToString(of = {"path", "javaType"})
+public final class FieldDescriptor {
+
+    /**
+     * Путь поля через точку.
+     */
+    private final String path;
+
+    /**
+     * Цепочка атрибутов метамодели от корня сущности до поля.
+     */
+    private final List<Attribute<?, ?>> attributes;
+
+    /**
+     * Имена атрибутов цепочки.
+     */
+    private final List<String> segments;
+
+    /**
+     * Пути ассоциаций на цепочке, которые соединяются при разрешении поля, например {@code customer}
+     * и {@code customer.address} для {@code customer.address.city}.
+     */
+    private final List<String> associationPaths;
+
+    /**
+     * Тип поля; примитивные типы заменены оболочками.
+     */
+    private final Class<?> javaType;
+
+    /**
+     * Преобразователь строкового значения фильтра к типу поля.
+     */
+    private final Function<String, Comparable<?>> converter;
+
+    FieldDescriptor(String path, List<Attribute<?, ?>> attributes, List<String> associationPaths) {
+        this.path = path;
+        this.attributes = List.copyOf(attributes);
+        this.segments = attributes.stream().<String>map(Attribute::getName).toList();
+        this.associationPaths = List.copyOf(associationPaths);
+        this.javaType = ClassUtils.resolvePrimitiveIfNecessary(attributes.get(attributes.size() - 1).getJavaType());
+        this.converter = ValueConverters.converterFor(javaType);
+    }
+
+    /**
+     * Признак того, что атрибут на позиции {@code index} цепочки соединяется, а не разыменовывается.
+     *
+     * @param index позиция атрибута в цепочке
+     * @return {@code true} для ассоциации и коллекции
+     */
+    public boolean isJoinable(int index) {
+        Attribute<?, ?> attribute = attributes.get(index);
+        return attribute.isAssociation() || attribute.isCollection();
+    }
+
+    /**
+     * Признак того, что путь ведет к ассоциации или коллекции, а не к значению.
+     *
+     * @return {@code true}, если последний атрибут цепочки соединяется
+     */
+    public boolean isAssociation() {
+        return isJoinable(attributes.size() - 1);
+    }
+
+    /**
+     * Признак того, что на пути поля есть коллекция.
+     *
+     * @return {@code true}, если хотя бы один атрибут цепочки является коллекцией
+     */
+    public boolean isCollectionValued() {
+        for (Attribute<?, ?> attribute : attributes) {
+            if (attribute.isCollection()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Преобразует строковое значение фильтра к типу поля.
+     *
+     * @param value строковое значение
+     * @return значение типа поля
+     */
+    public Comparable<?> convert(String value) {
+        return converter.apply(value);
+    }
+
+    /**
+     * Приводит значение фильтра к типу поля. Значение типа поля возвращается как есть, строка разбирается,
+     * значение другого типа приводится через строковое представление {@link FilterValues#format(Object)}.
+     *
+     * @param value строковое или типизированное значение
+     * @return значение типа поля
+     */
+    public Comparable<?> convert(Object value) {
+        if (value instanceof String string) {
+            return converter.apply(string);
+        }
+        if (value instanceof Comparable<?> comparable && javaType.isInstance(value)) {
+            return comparable;
+        }
+        return converter.apply(FilterValues.format(value));
+    }
+}
@@ -0,0 +1,112 @@
+package ru.standardsolutions.projection;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Описание проекции: выбираемые поля сущности и сборка строки результата из их значений.
+ * <p>
+ * Проекция в запись выбирает по полю на каждый компонент записи (путь задается именем компонента или
+ * {@link ProjectionPath}) и вызывает канонический конструктор. Описание записи строится один раз на класс.
+ *
+ * @param <R> тип строки результата
+ */
+public final class Projection<R> {
+
+    private static final Map<Class<?>, Projection<?>> RECORDS = new ConcurrentHashMap<>();
+
+    /**
+     * Пути выбираемых полей через точку.
+     */
+    @Getter
+    private final List<String> paths;
+
+    private final Function<Object[], R> factory;
+
+    private Projection(List<String> paths, Function<Object[], R> factory) {
+        this.paths = List.copyOf(paths);
+        this.factory = factory;
+    }
+
+    /**
+     * Проекция в запись.
+     *
+     * @param recordType класс записи
+     * @param <R>        тип записи
+     * @return проекция
+     * @throws IllegalArgumentException если класс не является записью
+     */
+    @SuppressWarnings("unchecked")
+    public static <R extends Record> Projection<R> of(Class<R> recordType) {
+        return (Projection<R>) RECORDS.computeIfAbsent(recordType, type -> forRecord(recordType));
+    }
+
+    /**
+     * Проекция в набор полей: строка результата - упорядоченное отображение пути поля в значение.
+     *
+     * @param paths пути полей через точку
+     * @return проекция
+     */
+    public static Projection<Map<String, Object>> fields(String... paths) {
+        List<String> fieldPaths = List.of(paths);
+        return new Projection<>(fieldPaths, values -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                row.put(fieldPaths.get(i), values[i]);
+            }
+            return row;
+        });
+    }
+
+    /**
+     * Собирает строку результата из значений полей в порядке {@link #getPaths()}.
+     *
+     * @param values значения полей
+     * @return строка результата
+     */
+    public R create(Object[] values) {
+        return factory.apply(values);
+    }
+
+    private static <R extends Record> Projection<R> forRecord(Class<R> recordType) {
+        RecordComponent[] components = recordType.getRecordComponents();
+        if (components == null) {
+            throw new IllegalArgumentException("Класс проекции должен быть записью: " + recordType.getName());
+        }
+        List<String> paths = new ArrayList<>(components.length);
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            ProjectionPath path = components[i].getAnnotation(ProjectionPath.class);
+            paths.add(path == null ? components[i].getName() : path.value());
+            parameterTypes[i] = components[i].getType();
+        }
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.privateLookupIn(recordType, MethodHandles.lookup())
+                    .findConstructor(recordType, MethodType.methodType(void.class, parameterTypes))
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Нет доступа к конструктору записи " + recordType.getName(), e);
+        }
+        return new Projection<>(paths, values -> {
+            try {
+                return recordType.cast(constructor.invokeExact(values));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Не удалось создать запись " + recordType.getName(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package ru.standardsolutions.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Путь поля сущности для компонента записи-проекции, если он не совпадает с именем компонента,
+ * например {@code customer.name} для компонента {@code customerName}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.RECORD_COMPONENT, ElementType.PARAMETER})
+public @interface ProjectionPath {
+
+    /**
+     * @return путь поля через точку
+     */
+    String value();
+}
@@ -0,0 +1,43 @@
+package ru.standardsolutions.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Способ получения общего количества записей для постраничной выборки.
+ */
+@Schema(description = "Способ подсчета общего количества записей")
+public enum CountStrategy {
+
+    /**
+     * Точный подсчет отдельным запросом {@code COUNT(*)} на каждую страницу.
+     */
+    @Schema(description = "Точный подсчет")
+    EXACT,
+
+    /**
+     * Без подсчета: выбирается на одну запись больше размера страницы, чтобы определить наличие следующей.
+     */
+    @Schema(description = "Без подсчета")
+    NONE,
+
+    /**
+     * Точный подсчет, результат которого переиспользуется в течение времени жизни кэша
+     * для запросов с одинаковыми фильтрами.
+     */
+    @Schema(description = "Подсчет с кэшированием")
+    CACHED,
+
+    /**
+     * Приблизительное количество от подключаемого оценщика, например по статистике планировщика.
+     * Без оценки ответ не содержит общего количества, как при {@link #NONE}.
+     */
+    @Schema(description = "Оценка количества")
+    ESTIMATED,
+
+    /**
+     * Точный подсчет, выполняемый параллельно с выборкой содержимого в отдельной транзакции только для чтения.
+     * Подсчет пропускается, если страница первая и последняя, и прерывается по истечении времени ожидания.
+     */
+    @Schema(description = "Параллельный подсчет")
+    PARALLEL
+}
@@ -26,6 +26,8 @@ import static org.springframework.data.domain.Sort.Direction.ASC;
  * <p>
  * Если параметры сортировки и фльтрации не переданы, то не применяются.
  * По умолчанию пагинация начинается со страницы 1, с размером страницы 100.
+ * В режиме {@link PaginationMode#KEYSET} номер страницы игнорируется, а следующая страница
+ * запрашивается по курсору из предыдущего ответа.
  */
 @Getter
 @ToString
@@ -47,19 +49,67 @@ public class FetchRequest {
     @Schema(description = "Параметры страницы")
     private final PageRequest page;
 
+    @Schema(description = "Режим постраничной выборки", defaultValue = "OFFSET")
+    private final PaginationMode pagination;
+
+    @Schema(description = "Способ подсчета общего количества записей", defaultValue = "EXACT")
+    private final CountStrategy count;
+
+    /**
+     * Пути ассоциаций, загружаемых вместе со страницей; задаются в коде, а не клиентом.
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private final List<String> prefetch;
+
+    public FetchRequest(List<FilterRequest> filters, List<SortRequest> sort, PageRequest page) {
+        this(filters, sort, page, null, null);
+    }
+
+    public FetchRequest(List<FilterRequest> filters, List<SortRequest> sort, PageRequest page,
+                        PaginationMode pagination) {
+        this(filters, sort, page, pagination, null);
+    }
+
     @JsonCreator
     public FetchRequest(@JsonProperty("filters") List<FilterRequest> filters,
                         @JsonProperty("sort") List<SortRequest> sort,
-                        @JsonProperty("page") ru.standardsolutions.request.PageRequest page) {
+                        @JsonProperty("page") ru.standardsolutions.request.PageRequest page,
+                        @JsonProperty("pagination") PaginationMode pagination,
+                        @JsonProperty("count") CountStrategy count) {
+        this(filters, sort, page, pagination, count, null);
+    }
+
+    /**
+     * @param filters    фильтры
+     * @param sort       сортировка
+     * @param page       параметры страницы
+     * @param pagination режим постраничной выборки
+     * @param count      способ подсчета общего количества
+     * @param prefetch   пути ассоциаций, загружаемых вместе со страницей
+     */
+    public FetchRequest(List<FilterRequest> filters, List<SortRequest> sort, PageRequest page,
+                        PaginationMode pagination, CountStrategy count, List<String> prefetch) {
         this.filters = filters == null ? List.of() : filters;
         this.sort = sort == null ? List.of() : sort;
         this.page = page == null ? new PageRequest(1, 100) : page;
+        this.pagination = pagination == null ? PaginationMode.OFFSET : pagination;
+        this.count = count == null ? CountStrategy.EXACT : count;
+        this.prefetch = prefetch == null ? List.of() : List.copyOf(prefetch);
     }
 
     public FetchRequest(String filters, String sort, Integer pageNumber, Integer pageSize) {
         this.filters = filters == null ? List.of() : FetchRequestParser.parseFilter(filters);
         this.sort = sort == null ? List.of() : FetchRequestParser.parseSort(sort);
         this.page = new PageRequest(pageNumber == null ? 1 : pageNumber, pageSize == null ? 100 : pageSize);
+        this.pagination = PaginationMode.OFFSET;
+        this.count = CountStrategy.EXACT;
+        this.prefetch = List.of();
+    }
+
+    @JsonIgnore
+    public boolean isKeyset() {
+        return pagination == PaginationMode.KEYSET;
     }
 
     @JsonIgnore
@@ -69,13 +119,18 @@ public class FetchRequest {
 
     @JsonIgnore
     public Pageable toPageable(Integer pageNumber, Integer pageSize) {
+        return org.springframework.data.domain.PageRequest.of(pageNumber - 1, pageSize, toSort());
+    }
+
+    @JsonIgnore
+    public Sort toSort() {
         List<Order> orders = new ArrayList<>();
         for (SortRequest sortPart : sort) {
             Sort.Direction direction = Sort.Direction.fromString(sortPart.getDirection());
             Order order = direction == ASC ? Order.asc(sortPart.getField()) : Order.desc(sortPart.getField());
             orders.add(order);
         }
-        return org.springframework.data.domain.PageRequest.of(pageNumber - 1, pageSize, Sort.by(orders));
+        return Sort.by(orders);
     }
 
     @JsonIgnore
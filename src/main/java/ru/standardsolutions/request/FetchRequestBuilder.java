@@ -2,8 +2,9 @@ package ru.standardsolutions.request;
 
 import ru.standardsolutions.dto.generic.filters.types.Period;
 
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,6 +14,10 @@ public class FetchRequestBuilder {
     private List<FilterRequest> filters = new ArrayList<>();
     private List<SortRequest> sort = new ArrayList<>();
     private PageRequest page;
+    private PaginationMode pagination = PaginationMode.OFFSET;
+    private String cursor;
+    private CountStrategy count = CountStrategy.EXACT;
+    private List<String> prefetch = new ArrayList<>();
 
     /**
      * Добавляет фильтр в запрос.
@@ -45,6 +50,22 @@ public class FetchRequestBuilder {
         return this;
     }
 
+    /**
+     * Добавляет фильтр с типизированным значением, которое привязывается к запросу без преобразования в строку.
+     *
+     * @param field    поле для фильтрации
+     * @param operator оператор
+     * @param value    значение для фильтрации; коллекция означает список значений
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder filter(String field, String operator, Object value) {
+        if (field != null && operator != null && value != null
+                && !(value instanceof Collection<?> values && values.isEmpty())) {
+            filters.add(FilterRequest.of(field, operator, value));
+        }
+        return this;
+    }
+
     /**
      * Добавляет фильтр равенства.
      *
@@ -56,6 +77,17 @@ public class FetchRequestBuilder {
         return filter(field, ":", value);
     }
 
+    /**
+     * Добавляет фильтр равенства с типизированным значением.
+     *
+     * @param field поле для фильтрации
+     * @param value значение для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder equals(String field, Object value) {
+        return filter(field, ":", value);
+    }
+
     /**
      * Добавляет фильтр неравенства.
      *
@@ -67,6 +99,17 @@ public class FetchRequestBuilder {
         return filter(field, "!:", value);
     }
 
+    /**
+     * Добавляет фильтр неравенства с типизированным значением.
+     *
+     * @param field поле для фильтрации
+     * @param value значение для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder notEquals(String field, Object value) {
+        return filter(field, "!:", value);
+    }
+
     /**
      * Добавляет фильтр "больше".
      *
@@ -78,6 +121,17 @@ public class FetchRequestBuilder {
         return filter(field, ">", value);
     }
 
+    /**
+     * Добавляет фильтр "больше" с типизированным значением.
+     *
+     * @param field поле для фильтрации
+     * @param value значение для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder greaterThan(String field, Comparable<?> value) {
+        return filter(field, ">", value);
+    }
+
     /**
      * Добавляет фильтр "больше или равно".
      *
@@ -89,6 +143,17 @@ public class FetchRequestBuilder {
         return filter(field, ">:", value);
     }
 
+    /**
+     * Добавляет фильтр "больше или равно" с типизированным значением.
+     *
+     * @param field поле для фильтрации
+     * @param value значение для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder greaterThanOrEquals(String field, Comparable<?> value) {
+        return filter(field, ">:", value);
+    }
+
     /**
      * Добавляет фильтр "меньше".
      *
@@ -100,6 +165,17 @@ public class FetchRequestBuilder {
         return filter(field, "<", value);
     }
 
+    /**
+     * Добавляет фильтр "меньше" с типизированным значением.
+     *
+     * @param field поле для фильтрации
+     * @param value значение для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder lessThan(String field, Comparable<?> value) {
+        return filter(field, "<", value);
+    }
+
     /**
      * Добавляет фильтр "меньше или равно".
      *
@@ -111,6 +187,62 @@ public class FetchRequestBuilder {
         return filter(field, "<:", value);
     }
 
+    /**
+     * Добавляет фильтр "меньше или равно" с типизированным значением.
+     *
+     * @param field поле для фильтрации
+     * @param value значение для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder lessThanOrEquals(String field, Comparable<?> value) {
+        return filter(field, "<:", value);
+    }
+
+    /**
+     * Добавляет фильтр вхождения в диапазон, границы включены.
+     *
+     * @param field поле для фильтрации
+     * @param from  нижняя граница
+     * @param to    верхняя граница
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder between(String field, String from, String to) {
+        return filter(field, "between", FilterValues.join(List.of(from, to)));
+    }
+
+    /**
+     * Добавляет фильтр вхождения в диапазон с типизированными границами, границы включены. Если задана только
+     * одна граница, добавляется одностороннее условие {@code >:} или {@code <:}.
+     *
+     * @param field поле для фильтрации
+     * @param from  нижняя граница или {@code null}
+     * @param to    верхняя граница или {@code null}
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder between(String field, Comparable<?> from, Comparable<?> to) {
+        if (from != null && to != null) {
+            return filter(field, "between", List.of(from, to));
+        }
+        if (from != null) {
+            return greaterThanOrEquals(field, from);
+        }
+        return lessThanOrEquals(field, to);
+    }
+
+    /**
+     * Добавляет фильтр полнотекстового поиска.
+     *
+     * @param field поле или имя набора полей из {@link ru.standardsolutions.search.TextSearchFields}
+     * @param text  текст поиска
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder search(String field, String text) {
+        if (field != null && text != null && !text.isBlank()) {
+            return filter(field, "search", text);
+        }
+        return this;
+    }
+
     /**
      * Добавляет фильтр поиска по шаблону.
      *
@@ -134,22 +266,18 @@ public class FetchRequestBuilder {
     }
 
     /**
-     * Добавляет фильтр по периоду, границы включены.
+     * Добавляет фильтр по периоду, границы включены. Границы передаются типизированными значениями;
+     * если задана только одна из них, условие одностороннее.
      *
      * @param field поле для фильтрации
      * @param value период.
      * @return этот экземпляр построителя
      */
     public FetchRequestBuilder period(String field, Period value) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        FetchRequestBuilder periodBuilder = this;
-        if (value != null && value.getFrom() != null) {
-            periodBuilder = filter(field, ">:", value.getFrom().format(formatter));
+        if (value == null) {
+            return this;
         }
-        if (value != null && value.getTo() != null) {
-            periodBuilder = filter(field, "<:", value.getTo().format(formatter));
-        }
-        return periodBuilder;
+        return between(field, value.getFrom(), value.getTo());
     }
 
     /**
@@ -161,7 +289,7 @@ public class FetchRequestBuilder {
      */
     public FetchRequestBuilder in(String field, String... values) {
         if (field != null && values != null && values.length > 0) {
-            return filter(field, "in", String.join(",", values));
+            return filter(field, "in", FilterValues.join(Arrays.asList(values)));
         }
         return this;
     }
@@ -175,7 +303,37 @@ public class FetchRequestBuilder {
      */
     public FetchRequestBuilder notIn(String field, String... values) {
         if (field != null && values != null && values.length > 0) {
-            return filter(field, "not in", String.join(",", values));
+            return filter(field, "not in", FilterValues.join(Arrays.asList(values)));
+        }
+        return this;
+    }
+
+    /**
+     * Добавляет фильтр вхождения в коллекцию значений. Значения привязываются к запросу типизированными,
+     * поэтому запятые внутри значений не требуют экранирования.
+     *
+     * @param field  поле для фильтрации
+     * @param values значения для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder in(String field, Collection<?> values) {
+        if (field != null && values != null && !values.isEmpty()) {
+            return filter(field, "in", values);
+        }
+        return this;
+    }
+
+    /**
+     * Добавляет фильтр отрицания вхождения в коллекцию значений. Значения привязываются к запросу
+     * типизированными, поэтому запятые внутри значений не требуют экранирования.
+     *
+     * @param field  поле для фильтрации
+     * @param values значения для сравнения
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder notIn(String field, Collection<?> values) {
+        if (field != null && values != null && !values.isEmpty()) {
+            return filter(field, "not in", values);
         }
         return this;
     }
@@ -228,6 +386,59 @@ public class FetchRequestBuilder {
         return this;
     }
 
+    /**
+     * Включает выборку по ключу. Первая страница запрашивается без курсора,
+     * последующие - по курсору из предыдущего ответа.
+     *
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder keyset() {
+        this.pagination = PaginationMode.KEYSET;
+        return this;
+    }
+
+    /**
+     * Устанавливает курсор продолжения и включает выборку по ключу.
+     *
+     * @param cursor курсор из предыдущего ответа
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder cursor(String cursor) {
+        if (cursor != null && !cursor.isEmpty()) {
+            this.cursor = cursor;
+            this.pagination = PaginationMode.KEYSET;
+        }
+        return this;
+    }
+
+    /**
+     * Устанавливает способ подсчета общего количества записей.
+     *
+     * @param count способ подсчета
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder count(CountStrategy count) {
+        if (count != null) {
+            this.count = count;
+        }
+        return this;
+    }
+
+    /**
+     * Добавляет ассоциации, загружаемые вместе со страницей, чтобы преобразование сущностей не выполняло
+     * по запросу на каждую строку. Ассоциации к одному загружаются соединением в запросе страницы,
+     * коллекции - отдельным запросом на всю страницу.
+     *
+     * @param paths пути ассоциаций через точку, например {@code customer} или {@code items.product}
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder prefetch(String... paths) {
+        if (paths != null) {
+            prefetch.addAll(Arrays.asList(paths));
+        }
+        return this;
+    }
+
     /**
      * Создает группу фильтров с логическим И.
      *
@@ -254,12 +465,32 @@ public class FetchRequestBuilder {
         return this;
     }
 
+    /**
+     * Создает группу фильтров с логическим НЕ: условие выполняется, если не выполняются
+     * все переданные фильтры одновременно.
+     *
+     * @param filters список фильтров, объединяемых через И и отрицаемых
+     * @return этот экземпляр построителя
+     */
+    public FetchRequestBuilder not(List<FilterRequest> filters) {
+        if (filters != null && !filters.isEmpty()) {
+            this.filters.add(new FilterRequest(null, "NOT", null, filters));
+        }
+        return this;
+    }
+
     /**
      * Создает новый экземпляр {@link FetchRequest} с настроенными параметрами.
      *
      * @return новый экземпляр {@link FetchRequest}
      */
     public FetchRequest build() {
-        return new FetchRequest(filters, sort, page);
+        PageRequest pageRequest = page;
+        if (cursor != null) {
+            pageRequest = page == null
+                    ? new PageRequest(1, 100, cursor)
+                    : new PageRequest(page.getNumber(), page.getSize(), cursor);
+        }
+        return new FetchRequest(filters, sort, pageRequest, pagination, count, prefetch);
     }
 } 
\ No newline at end of file
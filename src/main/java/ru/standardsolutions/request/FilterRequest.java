@@ -1,6 +1,7 @@
 package ru.standardsolutions.request;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
@@ -10,14 +11,22 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Параметры фильтрации.
+ * <p>
+ * Значение задается строкой, как в запросе по HTTP, либо типизированным значением через
+ * {@link #of(String, String, Object)} и {@link #of(String, String, Collection)}. Типизированное значение
+ * привязывается к параметру запроса без форматирования и разбора строки; значение другого типа, чем у поля,
+ * приводится к типу поля через строковое представление.
  */
 @Getter
 @ToString
-@EqualsAndHashCode
+@EqualsAndHashCode(doNotUseGetters = true)
 @Schema(description = "Параметры фильтрации")
 public class FilterRequest {
 
@@ -39,14 +48,126 @@ public class FilterRequest {
     @Schema(description = "Набор вложенных фильтров")
     private final List<FilterRequest> filters;
 
+    /**
+     * Типизированное значение: одно значение или неизменяемый список для {@code in}, {@code not in}
+     * и {@code between}; {@code null}, если значение задано строкой.
+     */
+    @JsonIgnore
+    private final Object typedValue;
+
     @JsonCreator
     public FilterRequest(@JsonProperty("field") String field,
                          @JsonProperty("operator") String operator,
                          @JsonProperty("value") String value,
                          @JsonProperty("filters") List<FilterRequest> filters) {
+        this(field, operator, value, filters, null);
+    }
+
+    private FilterRequest(String field, String operator, String value, List<FilterRequest> filters,
+                          Object typedValue) {
         this.field = field;
         this.operator = operator;
         this.value = value;
         this.filters = filters;
+        this.typedValue = typedValue;
+    }
+
+    /**
+     * Создает фильтр с типизированным значением.
+     *
+     * @param field    поле для фильтрации
+     * @param operator оператор
+     * @param value    значение; коллекция означает список значений
+     * @return фильтр
+     * @throws IllegalArgumentException если значение равно {@code null}
+     */
+    public static FilterRequest of(String field, String operator, Object value) {
+        if (value instanceof Collection<?> values) {
+            return of(field, operator, values);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Значение фильтра по полю " + field + " не может быть null");
+        }
+        return new FilterRequest(field, operator, null, List.of(), value);
+    }
+
+    /**
+     * Создает фильтр со списком типизированных значений для {@code in}, {@code not in} и {@code between}.
+     *
+     * @param field    поле для фильтрации
+     * @param operator оператор
+     * @param values   значения
+     * @return фильтр
+     * @throws IllegalArgumentException если список пуст или содержит {@code null}
+     */
+    public static FilterRequest of(String field, String operator, Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("Список значений фильтра по полю " + field + " пуст");
+        }
+        List<Object> copy = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("Список значений фильтра по полю " + field + " содержит null");
+            }
+            copy.add(value);
+        }
+        return new FilterRequest(field, operator, null, List.of(), Collections.unmodifiableList(copy));
+    }
+
+    /**
+     * Возвращает строковое значение фильтра. Для типизированного значения строка формируется при каждом
+     * вызове в формате {@link FilterValues}, поэтому при построении запроса используется {@link #getOperand()}.
+     *
+     * @return строковое значение или {@code null}, если значение не задано
+     */
+    @JsonProperty("value")
+    public String getValue() {
+        if (typedValue == null) {
+            return value;
+        }
+        return typedValue instanceof List<?> values ? FilterValues.join(values) : FilterValues.format(typedValue);
+    }
+
+    /**
+     * Возвращает значение фильтра без преобразования.
+     *
+     * @return типизированное значение, если оно задано, иначе строковое
+     */
+    @JsonIgnore
+    public Object getOperand() {
+        return typedValue != null ? typedValue : value;
+    }
+
+    /**
+     * Возвращает значения фильтра списком: типизированный список, одно типизированное значение или строку,
+     * разделенную по правилам {@link FilterValues}.
+     *
+     * @return значения; пустой список, если значение не задано
+     */
+    @JsonIgnore
+    public List<?> getValues() {
+        if (typedValue instanceof List<?> values) {
+            return values;
+        }
+        if (typedValue != null) {
+            return List.of(typedValue);
+        }
+        return value == null ? List.of() : FilterValues.split(value);
+    }
+
+    /**
+     * Подсчитывает количество значений без разделения строки.
+     *
+     * @return количество значений; 0, если значение не задано
+     */
+    @JsonIgnore
+    public int getValueCount() {
+        if (typedValue instanceof List<?> values) {
+            return values.size();
+        }
+        if (typedValue != null) {
+            return 1;
+        }
+        return value == null ? 0 : FilterValues.count(value);
     }
 }
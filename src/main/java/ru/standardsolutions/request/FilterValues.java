@@ -0,0 +1,110 @@
+package ru.standardsolutions.request;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Упаковка списка значений фильтра в одну строку и обратно.
+ * <p>
+ * Значения разделяются запятой; запятая и обратная косая черта внутри значения экранируются
+ * обратной косой чертой, поэтому значения с запятыми переживают упаковку без искажений.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FilterValues {
+
+    private static final char SEPARATOR = ',';
+
+    private static final char ESCAPE = '\\';
+
+    /**
+     * Объединяет значения в строку. Значения, отличные от строк, записываются через {@link #format(Object)}.
+     *
+     * @param values значения
+     * @return строка со значениями через запятую
+     */
+    public static String join(Iterable<?> values) {
+        StringBuilder joined = new StringBuilder();
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                joined.append(SEPARATOR);
+            }
+            appendEscaped(joined, format(value));
+            first = false;
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Возвращает строковое представление значения фильтра: имя константы для перечисления,
+     * иначе {@link Object#toString()}.
+     *
+     * @param value значение
+     * @return строковое представление
+     */
+    public static String format(Object value) {
+        return value instanceof Enum<?> enumValue ? enumValue.name() : value.toString();
+    }
+
+    /**
+     * Добавляет значение в строку, экранируя разделитель и символ экранирования.
+     *
+     * @param target строка-приемник
+     * @param value  значение
+     */
+    public static void appendEscaped(StringBuilder target, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == ESCAPE) {
+                target.append(ESCAPE);
+            }
+            target.append(c);
+        }
+    }
+
+    /**
+     * Подсчитывает количество значений в строке без ее разделения.
+     *
+     * @param joined строка со значениями через запятую
+     * @return количество значений
+     */
+    public static int count(String joined) {
+        int count = 1;
+        for (int i = 0; i < joined.length(); i++) {
+            char c = joined.charAt(i);
+            if (c == ESCAPE) {
+                i++;
+            } else if (c == SEPARATOR) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Разделяет строку на значения с учетом экранирования. Пробелы по краям значений отбрасываются.
+     *
+     * @param joined строка со значениями через запятую
+     * @return список значений
+     */
+    public static List<String> split(String joined) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < joined.length(); i++) {
+            char c = joined.charAt(i);
+            if (c == ESCAPE && i + 1 < joined.length()) {
+                current.append(joined.charAt(++i));
+            } else if (c == SEPARATOR) {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+}
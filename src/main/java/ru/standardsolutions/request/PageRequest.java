@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
@@ -31,10 +32,20 @@ public class PageRequest {
     @Schema(description = "Размер страницы", defaultValue = "50")
     private final Integer size;
 
+    @Size(max = 1024, message = "Длина строки должна быть не более {max} символов")
+    @Schema(description = "Курсор продолжения, используется при выборке по ключу")
+    private final String cursor;
+
+    public PageRequest(Integer number, Integer size) {
+        this(number, size, null);
+    }
+
     @JsonCreator
     public PageRequest(@JsonProperty("number") Integer number,
-                       @JsonProperty("size") Integer size) {
+                       @JsonProperty("size") Integer size,
+                       @JsonProperty("cursor") String cursor) {
         this.number = number;
         this.size = size;
+        this.cursor = cursor;
     }
 }
@@ -0,0 +1,23 @@
+package ru.standardsolutions.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Режим постраничной выборки.
+ */
+@Schema(description = "Режим постраничной выборки")
+public enum PaginationMode {
+
+    /**
+     * Выборка по номеру страницы, база данных пропускает все строки предыдущих страниц.
+     */
+    @Schema(description = "По номеру страницы")
+    OFFSET,
+
+    /**
+     * Выборка по ключу: следующая страница начинается после значений ключей сортировки последней строки,
+     * переданных в курсоре. Время выборки не зависит от глубины страницы.
+     */
+    @Schema(description = "По курсору")
+    KEYSET
+}
@@ -0,0 +1,56 @@
+package ru.standardsolutions.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Поиск средствами JPA без специальных индексов: текст разбивается на слова, и каждое слово должно
+ * встречаться без учета регистра хотя бы в одном из полей.
+ * <p>
+ * Работает в любой базе данных, в том числе во встроенной, но сравнение по подстроке не использует
+ * индексы и просматривает таблицу целиком, поэтому подходит для небольших таблиц и тестов.
+ */
+public class LikeTextSearch implements TextSearchStrategy {
+
+    private static final char ESCAPE = '\\';
+
+    @Override
+    public Predicate createPredicate(CriteriaBuilder cb, List<Expression<String>> fields, String text) {
+        List<Predicate> words = new ArrayList<>();
+        for (String word : text.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String pattern = "%" + escape(word) + "%";
+            words.add(cb.or(fields.stream()
+                    .map(field -> cb.like(cb.lower(field), pattern, ESCAPE))
+                    .toArray(Predicate[]::new)));
+        }
+        return cb.and(words.toArray(new Predicate[0]));
+    }
+
+    /**
+     * Шаблон {@code %слово%} индексы не использует.
+     */
+    @Override
+    public boolean usesIndex() {
+        return false;
+    }
+
+    private static String escape(String word) {
+        StringBuilder escaped = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.standardsolutions.search;
+
+import jakarta.persistence.criteria.Expression;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+
+/**
+ * Полнотекстовый поиск PostgreSQL: {@code to_tsvector(конфигурация, поле) @@ plainto_tsquery(конфигурация, текст)}.
+ * <p>
+ * Конфигурация подставляется в SQL константой, поэтому условие совпадает с выражением индекса
+ * и использует его:
+ * <pre>
+ * create index orders_title_fts on orders using gin (to_tsvector('russian', title));
+ * </pre>
+ * Для поиска по нескольким полям индекс создается на каждое поле.
+ */
+public class PostgresFullTextSearch extends SqlTextSearch {
+
+    private final String pattern;
+
+    /**
+     * Поиск с конфигурацией {@code simple}: без стемминга и стоп-слов.
+     */
+    public PostgresFullTextSearch() {
+        this("simple");
+    }
+
+    /**
+     * @param configuration конфигурация полнотекстового поиска, например {@code russian} или {@code english}
+     */
+    public PostgresFullTextSearch(String configuration) {
+        String config = requireIdentifier(configuration);
+        this.pattern = "to_tsvector('" + config + "', ?) @@ plainto_tsquery('" + config + "', ?)";
+    }
+
+    @Override
+    protected Expression<Boolean> match(HibernateCriteriaBuilder cb, Expression<String> field,
+                                        Expression<String> text) {
+        return cb.sql(pattern, Boolean.class, field, text);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.standardsolutions.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+
+import java.util.List;
+
+/**
+ * Поиск выражением SQL конкретной базы данных, по одному выражению на поле, объединенных через ИЛИ.
+ * <p>
+ * Выражение строится через {@link HibernateCriteriaBuilder#sql(String, Class, Expression[])}, текст поиска
+ * передается параметром. Отдельное условие на каждое поле позволяет базе данных объединить результаты поиска
+ * по индексам этих полей.
+ */
+abstract class SqlTextSearch implements TextSearchStrategy {
+
+    @Override
+    public Predicate createPredicate(CriteriaBuilder cb, List<Expression<String>> fields, String text) {
+        if (!(cb instanceof HibernateCriteriaBuilder hibernate)) {
+            throw new IllegalStateException(getClass().getSimpleName() + " поддерживается только для Hibernate");
+        }
+        Expression<String> query = hibernate.value(text);
+        return cb.or(fields.stream()
+                .map(field -> cb.isTrue(match(hibernate, field, query)))
+                .toArray(Predicate[]::new));
+    }
+
+    /**
+     * Создает логическое выражение SQL для одного поля.
+     *
+     * @param cb    построитель критериев Hibernate
+     * @param field строковое выражение поля
+     * @param text  параметр с текстом поиска
+     * @return выражение, истинное при совпадении
+     */
+    protected abstract Expression<Boolean> match(HibernateCriteriaBuilder cb, Expression<String> field,
+                                                 Expression<String> text);
+
+    /**
+     * Проверяет имя, подставляемое в SQL без параметра.
+     */
+    static String requireIdentifier(String name) {
+        if (name == null || !name.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Некорректное имя конфигурации поиска: " + name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.standardsolutions.search;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Наборы полей для поиска по нескольким полям сразу.
+ * <p>
+ * Набор регистрируется под именем, которое указывается в фильтре {@code search} вместо поля:
+ * <pre>
+ * TextSearchFields.register(Order.class, "text", "title", "description", "customer.name");
+ * new FetchRequestBuilder().search("text", "красные туфли");
+ * </pre>
+ * Строка проходит фильтр, если текст найден хотя бы в одном из полей. Поля набора входят в кэшированный план
+ * запроса, поэтому регистрация меняет {@link #version()}, и планы, построенные до нее, не переиспользуются.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TextSearchFields {
+
+    private static final Map<Class<?>, Map<String, List<String>>> FIELDS = new ConcurrentHashMap<>();
+
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    /**
+     * Регистрирует набор полей сущности.
+     *
+     * @param entityType тип сущности
+     * @param name       имя набора
+     * @param fields     пути строковых полей
+     */
+    public static void register(Class<?> entityType, String name, String... fields) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("Набор полей поиска " + name + " пуст");
+        }
+        FIELDS.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>()).put(name, List.of(fields));
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * Возвращает номер версии наборов, увеличивающийся при каждой регистрации.
+     *
+     * @return номер версии
+     */
+    public static long version() {
+        return VERSION.get();
+    }
+
+    /**
+     * Возвращает поля для поиска: поля набора с таким именем, включая наборы суперклассов сущности, либо
+     * само поле.
+     *
+     * @param entityType тип сущности
+     * @param field      имя набора или путь поля
+     * @return пути полей
+     */
+    public static List<String> resolve(Class<?> entityType, String field) {
+        for (Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass()) {
+            Map<String, List<String>> sets = FIELDS.get(type);
+            List<String> fields = sets == null ? null : sets.get(field);
+            if (fields != null) {
+                return fields;
+            }
+        }
+        return List.of(field);
+    }
+}
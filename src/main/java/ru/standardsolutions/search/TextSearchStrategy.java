@@ -0,0 +1,39 @@
+package ru.standardsolutions.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.List;
+
+/**
+ * Способ построения условия полнотекстового поиска для оператора {@code search}.
+ * <p>
+ * Реализация выбирается под базу данных и ее индексы: {@link PostgresFullTextSearch} для индексов GIN
+ * по {@code to_tsvector}, {@link TrigramTextSearch} для индексов {@code pg_trgm}, {@link LikeTextSearch}
+ * без специальных индексов для любой базы данных. Задается через
+ * {@link ru.standardsolutions.FetchConfiguration#setTextSearchStrategy(TextSearchStrategy)} или бином.
+ */
+@FunctionalInterface
+public interface TextSearchStrategy {
+
+    /**
+     * Создает условие, истинное, если текст найден хотя бы в одном из полей.
+     *
+     * @param cb     построитель критериев
+     * @param fields строковые выражения полей
+     * @param text   текст поиска
+     * @return предикат
+     */
+    Predicate createPredicate(CriteriaBuilder cb, List<Expression<String>> fields, String text);
+
+    /**
+     * Использует ли условие индексы полей. Условие без индекса просматривает таблицу целиком, поэтому
+     * {@link ru.standardsolutions.guard.PolicyFetchGuard} считает такой поиск по большой таблице дорогим.
+     *
+     * @return {@code true}, если условие использует индексы полей
+     */
+    default boolean usesIndex() {
+        return true;
+    }
+}
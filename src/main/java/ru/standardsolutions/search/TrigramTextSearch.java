@@ -0,0 +1,23 @@
+package ru.standardsolutions.search;
+
+import jakarta.persistence.criteria.Expression;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+
+/**
+ * Нечеткий поиск по триграммам PostgreSQL ({@code pg_trgm}): {@code текст <% поле}, то есть сходство текста
+ * поиска с наиболее похожей частью поля не ниже {@code pg_trgm.word_similarity_threshold}.
+ * <p>
+ * Находит строки с опечатками и частями слов и использует индекс:
+ * <pre>
+ * create extension if not exists pg_trgm;
+ * create index orders_title_trgm on orders using gin (title gin_trgm_ops);
+ * </pre>
+ */
+public class TrigramTextSearch extends SqlTextSearch {
+
+    @Override
+    protected Expression<Boolean> match(HibernateCriteriaBuilder cb, Expression<String> field,
+                                        Expression<String> text) {
+        return cb.sql("? <% ?", Boolean.class, text, field);
+    }
+}
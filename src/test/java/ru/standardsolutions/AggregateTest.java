@@ -0,0 +1,138 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.standardsolutions.aggregate.AggregateResponse;
+import ru.standardsolutions.aggregate.Facet;
+import ru.standardsolutions.aggregate.FacetBucket;
+import ru.standardsolutions.aggregate.FacetBuilder;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderStatus;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Фасеты на H2: группировка строк, прошедших фильтры, итоги без группировки, ограничение числа групп,
+ * параллельное вычисление, пустой результат без запросов для противоречивых фильтров и проверка фасетов.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class AggregateTest {
+
+    private final PlatformTransactionManager defaultTransactionManager = FetchConfiguration.getTransactionManager();
+
+    private final int defaultParallelism = FetchConfiguration.getFacetParallelism();
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void restoreConfiguration() {
+        FetchConfiguration.setTransactionManager(defaultTransactionManager);
+        FetchConfiguration.setFacetParallelism(defaultParallelism);
+    }
+
+    @Test
+    void groupsFilteredRows() {
+        AggregateResponse response = FetchManager.aggregate(entityManager, Order.class,
+                new FetchRequestBuilder().equals("title", "T7").build(),
+                new FacetBuilder("byStatus").by("status").build(),
+                new FacetBuilder("totals").count().sum("quantity").min("quantity").max("quantity")
+                        .avg("quantity").build());
+
+        assertThat(response.facet("byStatus").toMap("count")).containsExactly(
+                Map.entry(OrderStatus.NEW, 1L), Map.entry(OrderStatus.PAID, 2L), Map.entry(OrderStatus.SHIPPED, 2L));
+        assertThat(response.facet("totals").metrics())
+                .containsExactly("count", "sum(quantity)", "min(quantity)", "max(quantity)", "avg(quantity)");
+        assertThat(response.facet("totals").buckets())
+                .containsExactly(new FacetBucket(List.of(), List.of(5L, 135, 7, 47, 27.0)));
+    }
+
+    @Test
+    void groupsByAssociationFieldsAndKeepsTopGroups() {
+        AggregateResponse response = FetchManager.aggregate(entityManager, Order.class,
+                new FetchRequestBuilder().build(),
+                new FacetBuilder("byCity").by("customer.city").sum("quantity").build(),
+                new FacetBuilder("topCustomer").by("customer.name").count().top(1).build(),
+                new FacetBuilder("byCityAndStatus").by("customer.city", "status").build());
+
+        assertThat(response.facet("byCity").toMap("sum(quantity)"))
+                .containsExactly(Map.entry("Kazan", 510), Map.entry("Moscow", 765));
+        assertThat(response.facet("topCustomer").buckets()).hasSize(1);
+        assertThat(response.facet("topCustomer").buckets().get(0).values()).containsExactly(10L);
+        assertThat(response.facet("byCityAndStatus").buckets()).hasSize(6)
+                .first().isEqualTo(new FacetBucket(List.of("Kazan", OrderStatus.NEW), List.of(6L)));
+    }
+
+    @Test
+    void computesFacetsInParallel() {
+        FetchRequest request = new FetchRequestBuilder().greaterThan("quantity", 10).build();
+        List<Facet> facets = List.of(new FacetBuilder("byStatus").by("status").build(),
+                new FacetBuilder("byCity").by("customer.city").build(),
+                new FacetBuilder("totals").sum("quantity").build());
+        FetchConfiguration.setFacetParallelism(1);
+        AggregateResponse sequential = FetchManager.aggregate(entityManager, Order.class, request, facets);
+
+        FetchConfiguration.setFacetParallelism(2);
+        FetchConfiguration.setTransactionManager(transactionManager);
+        SqlCapture.start();
+        AggregateResponse parallel = FetchManager.aggregate(entityManager, Order.class, request, facets);
+        List<String> statements = SqlCapture.stop();
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(parallel.facets()).containsOnlyKeys("byStatus", "byCity", "totals");
+        assertThat(statements).isEmpty();
+    }
+
+    @Test
+    void answersContradictionWithoutQueries() {
+        SqlCapture.start();
+        AggregateResponse response = FetchManager.aggregate(entityManager, Order.class,
+                new FetchRequestBuilder().equals("quantity", 1).equals("quantity", 2).build(),
+                new FacetBuilder("byStatus").by("status").build(),
+                new FacetBuilder("totals").count().sum("quantity").build());
+        List<String> statements = SqlCapture.stop();
+
+        assertThat(statements).isEmpty();
+        assertThat(response.facet("byStatus").buckets()).isEmpty();
+        assertThat(response.facet("totals").buckets())
+                .containsExactly(new FacetBucket(List.of(), Arrays.asList(0L, null)));
+    }
+
+    @Test
+    void rejectsInvalidFacets() {
+        FetchRequest request = new FetchRequestBuilder().build();
+
+        assertThatThrownBy(() -> FetchManager.aggregate(entityManager, Order.class, request,
+                new FacetBuilder("facet").by("status").build(), new FacetBuilder("facet").by("title").build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Повторяющееся имя фасета: facet");
+        assertThatThrownBy(() -> FetchManager.aggregate(entityManager, Order.class, request,
+                new FacetBuilder("facet").sum("title").build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный фасет facet: поле title не является числом");
+        assertThatThrownBy(() -> FetchManager.aggregate(entityManager, Order.class, request,
+                new FacetBuilder("facet").byMonth("quantity").build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный фасет facet: поле quantity не является датой");
+        assertThatThrownBy(() -> FetchManager.aggregate(entityManager, Order.class, request,
+                new FacetBuilder("facet").by("customer").build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректный фасет facet: customer - ассоциация, а не поле");
+    }
+}
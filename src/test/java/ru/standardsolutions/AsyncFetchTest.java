@@ -0,0 +1,99 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Асинхронная и реактивная выборка на H2: выборка на исполнителе в транзакции только для чтения, исключительное
+ * завершение при ошибке и обход всех страниц по ключу с прекращением выборки после отмены подписки.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class AsyncFetchTest {
+
+    private static final String THREAD = "fetch-async-test";
+
+    private final PlatformTransactionManager defaultTransactionManager = FetchConfiguration.getTransactionManager();
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void restoreConfiguration() {
+        FetchConfiguration.setTransactionManager(defaultTransactionManager);
+    }
+
+    @Test
+    void fetchesOnExecutorInReadOnlyTransaction() {
+        FetchConfiguration.setTransactionManager(transactionManager);
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, THREAD));
+        try {
+            FetchResponse<String> response = FetchManager.performFetchAsync(orders,
+                    (Order order) -> Thread.currentThread().getName() + " "
+                            + TransactionSynchronizationManager.isCurrentTransactionReadOnly() + " "
+                            + order.getCustomer().getName(),
+                    new FetchRequestBuilder().equals("title", "T7").sortAsc("id").build(), executor).join();
+
+            assertThat(response.getContent()).hasSize(5).containsOnly(THREAD + " true C2");
+            assertThat(response.getTotalElements()).isEqualTo(5);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void completesExceptionallyOnError() {
+        CompletableFuture<FetchResponse<Long>> future = FetchManager.performFetchAsync(orders, Order::getId,
+                new FetchRequestBuilder().equals("unknown", "1").build());
+
+        assertThatThrownBy(future::join).isInstanceOf(CompletionException.class);
+        assertThat(future).isCompletedExceptionally();
+    }
+
+    @Test
+    void streamsAllPagesByKeyset() {
+        List<Long> ids = ReactiveFetchManager.flux(orders, Order::getId, new FetchRequestBuilder()
+                .equals("title", "T7").sortAsc("id").page(3, 2).count(CountStrategy.EXACT).build())
+                .collectList()
+                .block();
+
+        assertThat(ids).containsExactly(7L, 17L, 27L, 37L, 47L);
+    }
+
+    @Test
+    void stopsFetchingAfterCancel() {
+        AtomicInteger mapped = new AtomicInteger();
+
+        List<Long> ids = ReactiveFetchManager.flux(orders, (Order order) -> {
+                    mapped.incrementAndGet();
+                    return order.getId();
+                }, new FetchRequestBuilder().sortAsc("id").page(1, 5).build())
+                .take(3)
+                .collectList()
+                .block();
+
+        assertThat(ids).containsExactly(1L, 2L, 3L);
+        assertThat(mapped.get()).isLessThanOrEqualTo(2 * 5);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+import ru.standardsolutions.testdata.OrderStatus;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Массовое изменение и удаление на H2: одна команда без загрузки сущностей, подзапрос для фильтров
+ * по ассоциациям, обработка порциями и отказ для запросов без фильтров и неизменяемых полей. Каждый тест
+ * выполняется в транзакции, которая откатывается.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class BulkOperationsTest {
+
+    private final PlatformTransactionManager defaultTransactionManager = FetchConfiguration.getTransactionManager();
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void restoreConfiguration() {
+        FetchConfiguration.setTransactionManager(defaultTransactionManager);
+    }
+
+    @Test
+    void updatesFilteredRowsWithOneStatement() {
+        inRolledBackTransaction(() -> {
+            Order loaded = entityManager.find(Order.class, 7L);
+            FetchRequest request = new FetchRequestBuilder().equals("title", "T7").build();
+
+            SqlCapture.start();
+            long updated = FetchManager.updateWhere(entityManager, Order.class, request, Map.of("status", "NEW"));
+            List<String> statements = SqlCapture.stop();
+
+            assertThat(updated).isEqualTo(5);
+            assertThat(statements).singleElement().asString().startsWithIgnoringCase("update");
+            assertThat(loaded.getStatus()).isEqualTo(OrderStatus.PAID);
+            assertThat(orders.count(new FetchRequestBuilder().equals("title", "T7")
+                    .equals("status", OrderStatus.NEW).build().toSpecification())).isEqualTo(5);
+        });
+    }
+
+    @Test
+    void deletesByAssociationFilterThroughSubquery() {
+        inRolledBackTransaction(() -> {
+            SqlCapture.start();
+            long deleted = FetchManager.deleteWhere(entityManager, Order.class,
+                    new FetchRequestBuilder().equals("customer.city", "Kazan").build());
+            List<String> statements = SqlCapture.stop();
+
+            assertThat(deleted).isEqualTo(20);
+            assertThat(statements).singleElement().asString().containsPattern("(?i)\\bin \\(+select ");
+            assertThat(orders.count()).isEqualTo(30);
+        });
+    }
+
+    @Test
+    void updatesInChunksByPrimaryKey() {
+        FetchConfiguration.setTransactionManager(null);
+
+        inRolledBackTransaction(() -> {
+            SqlCapture.start();
+            long updated = FetchManager.updateWhere(entityManager, Order.class,
+                    new FetchRequestBuilder().greaterThan("quantity", 10).build(), Map.of("description", "bulk"), 15);
+            List<String> statements = SqlCapture.stop();
+
+            assertThat(updated).isEqualTo(40);
+            assertThat(statements).filteredOn(sql -> sql.regionMatches(true, 0, "update", 0, 6)).hasSize(3);
+            assertThat(statements).filteredOn(sql -> sql.regionMatches(true, 0, "select", 0, 6)).hasSize(3);
+            assertThat(orders.count(new FetchRequestBuilder().equals("description", "bulk").build()
+                    .toSpecification())).isEqualTo(40);
+        });
+    }
+
+    @Test
+    void rejectsUnsafeRequests() {
+        FetchRequest unfiltered = new FetchRequestBuilder().build();
+        FetchRequest request = new FetchRequestBuilder().equals("title", "T7").build();
+
+        assertThatThrownBy(() -> FetchManager.deleteWhere(entityManager, Order.class, unfiltered))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Массовое изменение без фильтров не допускается: " + Order.class.getName());
+        assertThatThrownBy(() -> FetchManager.updateWhere(entityManager, Order.class, request, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Не заданы изменяемые поля");
+        assertThatThrownBy(() -> FetchManager.updateWhere(entityManager, Order.class, request,
+                Map.of("customer.name", "C9")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Поле customer.name нельзя изменить массовой командой: путь содержит ассоциацию");
+        assertThatThrownBy(() -> FetchManager.updateWhere(entityManager, Order.class, request, Map.of("id", 100L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Первичный ключ нельзя изменить массовой командой");
+    }
+
+    private void inRolledBackTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            action.run();
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Количество SQL-запросов и общее количество в ответе для каждого способа подсчета на непоследней странице.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class CountStrategyTest {
+
+    private final CountEstimator defaultEstimator = FetchConfiguration.getCountEstimator();
+
+    @Autowired
+    private OrderRepository orders;
+
+    @AfterEach
+    void restoreEstimator() {
+        FetchConfiguration.setCountEstimator(defaultEstimator);
+    }
+
+    @Test
+    void exactCountsEveryPage() {
+        Fetch fetch = fetch(CountStrategy.EXACT, "0");
+
+        assertThat(fetch.statements()).hasSize(2);
+        assertThat(fetch.response().getTotalElements()).isEqualTo(50);
+        assertThat(fetch.response().getTotalExact()).isTrue();
+    }
+
+    @Test
+    void noneSkipsCount() {
+        Fetch fetch = fetch(CountStrategy.NONE, "0");
+
+        assertThat(fetch.statements()).hasSize(1);
+        assertThat(fetch.response().getTotalElements()).isNull();
+        assertThat(fetch.response().getLast()).isFalse();
+    }
+
+    @Test
+    void estimatedWithoutEstimatorSkipsCount() {
+        FetchConfiguration.setCountEstimator(null);
+
+        Fetch fetch = fetch(CountStrategy.ESTIMATED, "0");
+
+        assertThat(fetch.statements()).hasSize(1);
+        assertThat(fetch.response().getTotalElements()).isNull();
+        assertThat(fetch.response().getTotalExact()).isFalse();
+    }
+
+    @Test
+    void estimatedUsesEstimate() {
+        FetchConfiguration.setCountEstimator((repository, specification, request) -> OptionalLong.of(1000));
+
+        Fetch fetch = fetch(CountStrategy.ESTIMATED, "0");
+
+        assertThat(fetch.statements()).hasSize(1);
+        assertThat(fetch.response().getTotalElements()).isEqualTo(1000);
+        assertThat(fetch.response().getTotalExact()).isFalse();
+    }
+
+    @Test
+    void cachedCountsOnceForSameFilters() {
+        Fetch first = fetch(CountStrategy.CACHED, "7");
+        Fetch second = fetch(CountStrategy.CACHED, "7");
+
+        assertThat(first.statements()).hasSize(2);
+        assertThat(second.statements()).hasSize(1);
+        assertThat(second.response().getTotalElements()).isEqualTo(43);
+    }
+
+    private Fetch fetch(CountStrategy count, String minQuantity) {
+        SqlCapture.start();
+        FetchResponse<Long> response = FetchManager.performFetch(orders, Order::getId, new FetchRequestBuilder()
+                .greaterThan("quantity", minQuantity).sortAsc("id").page(1, 20).count(count).build());
+        return new Fetch(response, SqlCapture.stop());
+    }
+
+    private record Fetch(FetchResponse<Long> response, List<String> statements) {
+    }
+}
@@ -0,0 +1,151 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.target.SingletonTargetSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.standardsolutions.batch.FetchBatchEntry;
+import ru.standardsolutions.guard.FetchGuard;
+import ru.standardsolutions.guard.FetchPolicyBuilder;
+import ru.standardsolutions.guard.FetchRequestRejectedException;
+import ru.standardsolutions.guard.FetchViolation;
+import ru.standardsolutions.guard.PolicyFetchGuard;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.request.PaginationMode;
+import ru.standardsolutions.request.SortRequest;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тип сущности репозитория определяется и у репозитория, класс которого его не задает, поэтому запрос всегда
+ * проверяется {@link FetchConfiguration#getFetchGuard()}; если тип определить нельзя, запрос отклоняется.
+ * Кэш результатов хранит запрос после упрощения фильтров, поэтому равносильные запросы попадают в одну запись.
+ * Параллельный подсчет в пакете выполняется в потоке выборки.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class FetchManagerTest {
+
+    private final FetchGuard defaultGuard = FetchConfiguration.getFetchGuard();
+
+    private final PlatformTransactionManager defaultTransactionManager = FetchConfiguration.getTransactionManager();
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void restoreConfiguration() {
+        FetchConfiguration.setFetchGuard(defaultGuard);
+        FetchConfiguration.setTransactionManager(defaultTransactionManager);
+    }
+
+    @Test
+    void fetchesThroughSimpleRepository() {
+        SimpleJpaRepository<Order, Long> repository = new SimpleJpaRepository<>(Order.class, entityManager);
+
+        FetchResponse<Long> response = FetchManager.performFetch(repository, Order::getId, request());
+
+        assertThat(response.getContent()).containsExactly(7L, 17L, 27L, 37L, 47L);
+        assertThat(response.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checksRequestsThroughSimpleRepository() {
+        FetchConfiguration.setFetchGuard(new PolicyFetchGuard()
+                .policy(Order.class, new FetchPolicyBuilder().filterFields("quantity").build()));
+        SimpleJpaRepository<Order, Long> repository = new SimpleJpaRepository<>(Order.class, entityManager);
+        JpaSpecificationExecutor<Order> proxy = ProxyFactory.getProxy(JpaSpecificationExecutor.class,
+                new SingletonTargetSource(repository));
+        FetchBatchEntry<Order, Long> entry = FetchBatchEntry.of(repository, Order::getId, request());
+
+        assertRejected(() -> FetchManager.performFetch(repository, Order::getId, request()),
+                FetchViolation.Code.FILTER_FIELD);
+        assertRejected(() -> FetchManager.performFetch(proxy, Order::getId, request()),
+                FetchViolation.Code.FILTER_FIELD);
+        assertRejected(() -> FetchManager.performCachedFetch(repository, "id", Order::getId, request()),
+                FetchViolation.Code.FILTER_FIELD);
+        assertRejected(() -> FetchManager.performBatch(entry).get(entry), FetchViolation.Code.FILTER_FIELD);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectsRepositoryWithUnknownEntityType() {
+        JpaSpecificationExecutor<Order> repository = (JpaSpecificationExecutor<Order>) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{JpaSpecificationExecutor.class},
+                (target, method, args) -> {
+                    throw new AssertionError("Запрос не должен выполняться");
+                });
+
+        assertRejected(() -> FetchManager.performFetch(repository, Order::getId, request()),
+                FetchViolation.Code.ENTITY_TYPE);
+    }
+
+    @Test
+    void cachesEquivalentRequestsOnce() {
+        SimpleJpaRepository<Order, Long> repository = new SimpleJpaRepository<>(Order.class, entityManager);
+        FetchRequest equalities = new FetchRequest(List.of(new FilterRequest(null, "OR", null, List.of(
+                new FilterRequest("title", ":", "T7", List.of()),
+                new FilterRequest("title", ":", "T3", List.of())))),
+                List.of(new SortRequest("id", "ASC")), new PageRequest(1, 20));
+        FetchRequest in = new FetchRequest(List.of(new FilterRequest("title", "in", "T7,T3", List.of())),
+                List.of(new SortRequest("id", "ASC")), new PageRequest(1, 20));
+        FetchManager.invalidateResults(Order.class);
+        long hits = FetchManager.resultCacheStatistics().hits();
+
+        FetchResponse<Long> first = FetchManager.performCachedFetch(repository, "id", Order::getId, equalities);
+        SqlCapture.start();
+        FetchResponse<Long> second = FetchManager.performCachedFetch(repository, "id", Order::getId, in);
+        List<String> statements = SqlCapture.stop();
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getContent()).hasSize(10);
+        assertThat(statements).isEmpty();
+        assertThat(FetchManager.resultCacheStatistics().hits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void countsParallelBatchEntryInFetchThread() {
+        FetchConfiguration.setTransactionManager(transactionManager);
+        SimpleJpaRepository<Order, Long> repository = new SimpleJpaRepository<>(Order.class, entityManager);
+        FetchRequest request = new FetchRequest(List.of(), List.of(new SortRequest("id", "ASC")),
+                new PageRequest(1, 20), PaginationMode.OFFSET, CountStrategy.PARALLEL);
+        FetchBatchEntry<Order, Long> entry = FetchBatchEntry.of(repository, Order::getId, request);
+
+        SqlCapture.start();
+        FetchResponse<Long> response = FetchManager.performBatch(entry).get(entry);
+        List<String> statements = SqlCapture.stop();
+
+        assertThat(response.getTotalElements()).isEqualTo(50);
+        assertThat(statements).hasSize(2);
+    }
+
+    private static void assertRejected(Runnable fetch, FetchViolation.Code code) {
+        assertThatThrownBy(fetch::run)
+                .isInstanceOfSatisfying(FetchRequestRejectedException.class,
+                        e -> assertThat(e.getViolations()).extracting(FetchViolation::code).containsExactly(code));
+    }
+
+    private static FetchRequest request() {
+        return new FetchRequest(List.of(new FilterRequest("title", ":", "T7", List.of())),
+                List.of(new SortRequest("id", "ASC")), new PageRequest(1, 20));
+    }
+}
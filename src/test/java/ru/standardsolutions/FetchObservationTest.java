@@ -0,0 +1,137 @@
+package ru.standardsolutions;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Наблюдение за выборкой на H2: наблюдение {@code spring.fetch} с тегами запроса, вложенные в него этапы,
+ * в том числе подсчет в фоновом потоке, и сообщение получателю медленных выборок.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class FetchObservationTest {
+
+    private final ObservationRegistry defaultRegistry = FetchConfiguration.getObservationRegistry();
+
+    private final SlowFetchListener defaultListener = FetchConfiguration.getSlowFetchListener();
+
+    private final Duration defaultThreshold = FetchConfiguration.getSlowFetchThreshold();
+
+    private final PlatformTransactionManager defaultTransactionManager = FetchConfiguration.getTransactionManager();
+
+    private final List<Observation.Context> observations = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void restoreConfiguration() {
+        FetchConfiguration.setObservationRegistry(defaultRegistry);
+        FetchConfiguration.setSlowFetchListener(defaultListener);
+        FetchConfiguration.setSlowFetchThreshold(defaultThreshold);
+        FetchConfiguration.setTransactionManager(defaultTransactionManager);
+    }
+
+    @Test
+    void observesFetchWithRequestTags() {
+        FetchConfiguration.setObservationRegistry(recordingRegistry());
+
+        FetchManager.performFetch(orders, Order::getId, new FetchRequestBuilder()
+                .equals("title", "T7").greaterThan("quantity", 10).sortAsc("id").page(1, 3).build());
+
+        Observation.Context fetch = observation(FetchObservation.FETCH);
+        assertThat(tags(fetch)).containsEntry("entity", "Order")
+                .containsEntry("operators", "EQUAL,GREATER")
+                .containsEntry("page.size", "4")
+                .containsEntry("count", CountStrategy.EXACT.name());
+        assertThat(fetch.getHighCardinalityKeyValue("request.shape")).isNotNull();
+        assertThat(observations).extracting(Observation.Context::getName).contains(
+                "spring.fetch.content", "spring.fetch.count", "spring.fetch.map", "spring.fetch.predicate");
+        for (String stage : List.of("content", "count", "map")) {
+            assertThat(parent(observation(FetchObservation.FETCH + "." + stage))).isSameAs(fetch);
+        }
+    }
+
+    @Test
+    void nestsParallelCountUnderFetch() {
+        FetchConfiguration.setObservationRegistry(recordingRegistry());
+        FetchConfiguration.setTransactionManager(transactionManager);
+
+        FetchManager.performFetch(orders, Order::getId, new FetchRequestBuilder()
+                .sortAsc("id").page(1, 10).count(CountStrategy.PARALLEL).build());
+
+        Observation.Context count = observation("spring.fetch.count");
+        assertThat(parent(count)).isSameAs(observation(FetchObservation.FETCH));
+        assertThat(tags(count)).containsEntry("count", CountStrategy.PARALLEL.name());
+    }
+
+    @Test
+    void reportsSlowFetches() {
+        List<SlowFetchEvent> events = new CopyOnWriteArrayList<>();
+        FetchConfiguration.setSlowFetchListener(events::add);
+        FetchRequest request = new FetchRequestBuilder().equals("title", "T7").build();
+
+        FetchManager.performFetch(orders, Order::getId, request);
+        FetchConfiguration.setSlowFetchThreshold(Duration.ZERO);
+        FetchManager.performFetch(orders, Order::getId, request);
+
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.entityType()).isEqualTo(Order.class);
+            assertThat(event.shape()).isEqualTo(FetchPlan.shapeOf(event.request()));
+            assertThat(event.shape()).doesNotContain("T7");
+            assertThat(event.duration()).isPositive();
+        });
+    }
+
+    private ObservationRegistry recordingRegistry() {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStart(Observation.Context context) {
+                observations.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        return registry;
+    }
+
+    private Observation.Context observation(String name) {
+        return observations.stream().filter(context -> context.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static Observation.ContextView parent(Observation.Context context) {
+        return context.getParentObservation().getContextView();
+    }
+
+    private static Map<String, String> tags(Observation.Context context) {
+        return context.getLowCardinalityKeyValues().stream()
+                .collect(Collectors.toMap(KeyValue::getKey, KeyValue::getValue));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.request.SortRequest;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Форма запроса строится по операторам: логическая группа с заданным полем описывается своими вложенными
+ * фильтрами, поэтому группы с разным содержимым не делят один план.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class FetchPlanTest {
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Test
+    void distinguishesGroupsWithFieldByChildren() {
+        FetchRequest byTitle = request(new FilterRequest("x", "AND", null,
+                List.of(new FilterRequest("title", ":", "T7", List.of()))));
+        FetchRequest byQuantity = request(new FilterRequest("x", "AND", null,
+                List.of(new FilterRequest("quantity", ">", "45", List.of()))));
+
+        assertThat(FetchPlan.shapeOf(byTitle)).isNotEqualTo(FetchPlan.shapeOf(byQuantity));
+        assertThat(FetchManager.performFetch(orders, Order::getId, byTitle).getContent())
+                .containsExactly(7L, 17L, 27L, 37L, 47L);
+        assertThat(FetchManager.performFetch(orders, Order::getId, byQuantity).getContent())
+                .containsExactly(46L, 47L, 48L, 49L, 50L);
+    }
+
+    @Test
+    void sharesShapeForDifferentValues() {
+        FetchRequest first = request(new FilterRequest(null, "OR", null, List.of(
+                new FilterRequest("title", ":", "T1", List.of()), new FilterRequest("quantity", "<", "3", List.of()))));
+        FetchRequest second = request(new FilterRequest(null, "OR", null, List.of(
+                new FilterRequest("title", ":", "T2", List.of()), new FilterRequest("quantity", "<", "9", List.of()))));
+
+        assertThat(FetchPlan.shapeOf(first)).isEqualTo(FetchPlan.shapeOf(second));
+    }
+
+    private static FetchRequest request(FilterRequest filter) {
+        return new FetchRequest(List.of(filter), List.of(new SortRequest("id", "ASC")), new PageRequest(1, 20));
+    }
+}
@@ -0,0 +1,41 @@
+package ru.standardsolutions;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ответы без номера страницы, смещения и общего количества проходят проверку ограничений.
+ */
+class FetchResponseTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void validatesKeysetResponse() {
+        FetchResponse<String> response = new FetchResponse<>(List.of("a", "b"), 2, "next", null);
+
+        assertThat(response.getPageNumber()).isNull();
+        assertThat(response.getTotalElements()).isNull();
+        assertThat(validator.validate(response)).isEmpty();
+    }
+
+    @Test
+    void validatesResponseWithoutCount() {
+        List<String> content = List.of("a", "b");
+        FetchResponse<String> response = new FetchResponse<>(Window.from(content, ScrollPosition::offset, true),
+                PageRequest.of(1, 2), content);
+
+        assertThat(response.getOffset()).isEqualTo(3);
+        assertThat(response.getTotalPages()).isNull();
+        assertThat(response.getTotalElements()).isNull();
+        assertThat(validator.validate(response)).isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.request.SortRequest;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.LogRecord;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Потоковая выборка всех строк порциями. Выборка миллиона строк помечена {@code slow} и запускается профилем
+ * {@code slow-tests} при куче, ограниченной в его конфигурации surefire: сущности всех строк в нее
+ * не помещаются, поэтому выборка завершается, только если контекст персистентности очищается порциями.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class FetchStreamTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void deleteRows() {
+        jdbcTemplate.execute("truncate table log_record");
+    }
+
+    @Test
+    void streamsAllRows() {
+        assertStreamsAllRows(10_000);
+    }
+
+    @Test
+    @Tag("slow")
+    void streamsMillionRowsInBoundedHeap() {
+        assertStreamsAllRows(1_000_000);
+    }
+
+    private void assertStreamsAllRows(int count) {
+        jdbcTemplate.update("insert into log_record (id, level, message) "
+                + "select x, mod(x, 5), repeat('m', 500) || x from system_range(1, ?)", count);
+        FetchRequest request = new FetchRequest(List.of(new FilterRequest("level", "<", "5", List.of())),
+                List.of(new SortRequest("id", "ASC")), new PageRequest(1, 20));
+        long[] rows = {0, 0};
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> FetchManager.forEach(entityManager, LogRecord.class,
+                LogRecord::getId, request, id -> {
+                    rows[0]++;
+                    rows[1] += id;
+                }));
+
+        assertThat(rows[0]).isEqualTo(count);
+        assertThat(rows[1]).isEqualTo((long) count * (count + 1) / 2);
+    }
+}
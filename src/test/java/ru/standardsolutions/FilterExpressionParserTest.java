@@ -0,0 +1,307 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.FilterValues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Свойства разборщика строки фильтрации на случайных выражениях.
+ * <p>
+ * Случайное дерево фильтров записывается строкой со случайными пробелами, регистром ключевых слов, скобками
+ * и кавычками; разбор строки должен вернуть то же дерево с объединенными вложенными группами одного оператора.
+ * Случайные искажения строк проверяют, что любая ошибка разбора - {@link IllegalArgumentException}.
+ */
+class FilterExpressionParserTest {
+
+    private static final int SAMPLES = 2_000;
+
+    private static final String[] FIELDS = {"name", "age", "status", "customer.name", "customer.address.city",
+            "created_at", "x1"};
+
+    private static final String[] SCALAR_OPERATORS = {":", "!:", ">", ">:", "<", "<:", "like", "ilike", "search"};
+
+    private static final String[] LIST_OPERATORS = {"in", "not in", "between"};
+
+    private static final String VALUE_CHARS = "abcXYZ019_%-.@+";
+
+    private static final String QUOTED_CHARS = "ab Z9 ,()\"\\%:'";
+
+    @Test
+    void parsesComparison() {
+        assertThat(FilterExpressionParser.parse("customer.name like \"Иван, Петр%\""))
+                .containsExactly(new FilterRequest("customer.name", "like", "Иван, Петр%", List.of()));
+    }
+
+    @Test
+    void appliesOperatorPrecedence() {
+        FilterRequest a = leaf("a", ":", "1");
+        FilterRequest b = leaf("b", ":", "2");
+        FilterRequest c = leaf("c", ":", "3");
+
+        assertThat(FilterExpressionParser.parse("a:1 OR b:2 AND NOT c:3"))
+                .containsExactly(group("OR", a, group("AND", b, group("NOT", c))));
+        assertThat(FilterExpressionParser.parse("(a:1 OR b:2) AND c:3"))
+                .containsExactly(group("OR", a, b), c);
+    }
+
+    @Test
+    void parsesValueLists() {
+        assertThat(FilterExpressionParser.parse("status in (NEW, \"IN WORK\", \"a,b\") AND age between 18,65"))
+                .containsExactly(leaf("status", "in", "NEW,IN WORK,a\\,b"), leaf("age", "between", "18,65"));
+    }
+
+    @Test
+    void readsKeywordsAsFieldNamesExceptLeadingNot() {
+        assertThat(FilterExpressionParser.parse("and:1 OR or:2 AND in:3 AND x.not:4"))
+                .containsExactly(group("OR", leaf("and", ":", "1"),
+                        group("AND", leaf("or", ":", "2"), leaf("in", ":", "3"), leaf("x.not", ":", "4"))));
+        assertThatThrownBy(() -> FilterExpressionParser.parse("a:1 AND not:2"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FilterExpressionParser.parse("not.city:Kazan"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"name", "name :", "(a:1", "a:1)", "a:1 AND", "a:1 b:2", "a ? 1", "name:\"open",
+            "NOT", "a in (1, 2", "a:1 OR OR b:2", "1a:1"})
+    void rejectsMalformedExpressions(String input) {
+        assertThatThrownBy(() -> FilterExpressionParser.parse(input))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsRandomTrees() {
+        Random random = new Random(20240601L);
+        for (int i = 0; i < SAMPLES; i++) {
+            FilterRequest tree = randomTree(random, 4);
+            String input = render(random, tree, false);
+
+            assertThat(FilterExpressionParser.parse(input))
+                    .as(input)
+                    .isEqualTo(expected(tree));
+        }
+    }
+
+    @Test
+    void failsOnlyWithIllegalArgumentOnMutatedInput() {
+        Random random = new Random(7L);
+        String alphabet = " ()\",:!<>~\\aAnNdDoOrRtT1";
+        for (int i = 0; i < SAMPLES * 5; i++) {
+            StringBuilder input = new StringBuilder(render(random, randomTree(random, 3), false));
+            int mutations = 1 + random.nextInt(3);
+            for (int m = 0; m < mutations && !input.isEmpty(); m++) {
+                int at = random.nextInt(input.length());
+                switch (random.nextInt(3)) {
+                    case 0 -> input.deleteCharAt(at);
+                    case 1 -> input.insert(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                    default -> input.setCharAt(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            assertParsesOrRejects(input.toString());
+        }
+    }
+
+    @Test
+    void failsOnlyWithIllegalArgumentOnRandomInput() {
+        Random random = new Random(11L);
+        String alphabet = " ()\",:!<>~\\.%_aAnNdDoOrRtTiI19";
+        for (int i = 0; i < SAMPLES * 5; i++) {
+            char[] input = new char[random.nextInt(40)];
+            for (int c = 0; c < input.length; c++) {
+                input[c] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            assertParsesOrRejects(new String(input));
+        }
+    }
+
+    @Test
+    void parsesLongExpressionInOnePass() {
+        StringBuilder input = new StringBuilder("a0:0");
+        for (int i = 1; i < 50_000; i++) {
+            input.append(i % 2 == 0 ? " AND " : " OR ").append('a').append(i).append(':').append(i);
+        }
+
+        List<FilterRequest> filters = FilterExpressionParser.parse(input.toString());
+
+        assertThat(filters).singleElement().extracting(FilterRequest::getOperator).isEqualTo("OR");
+        assertThat(filters.get(0).getFilters()).hasSize(25_001)
+                .allSatisfy(operand -> assertThat(operand.getFilters()).hasSizeLessThanOrEqualTo(2));
+    }
+
+    private static void assertParsesOrRejects(String input) {
+        try {
+            FilterExpressionParser.parse(input);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).startsWith("Ошибка разбора фильтра");
+        }
+    }
+
+    private static FilterRequest randomTree(Random random, int depth) {
+        int kind = depth == 0 ? 0 : random.nextInt(5);
+        if (kind < 2) {
+            return randomLeaf(random);
+        }
+        if (kind == 2) {
+            return group("NOT", randomTree(random, depth - 1));
+        }
+        int size = 2 + random.nextInt(3);
+        List<FilterRequest> operands = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            operands.add(randomTree(random, depth - 1));
+        }
+        return new FilterRequest(null, kind == 3 ? "AND" : "OR", null, List.copyOf(operands));
+    }
+
+    private static FilterRequest randomLeaf(Random random) {
+        String field = FIELDS[random.nextInt(FIELDS.length)];
+        if (random.nextInt(3) == 0) {
+            String operator = LIST_OPERATORS[random.nextInt(LIST_OPERATORS.length)];
+            int size = "between".equals(operator) ? 2 : 1 + random.nextInt(4);
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String value = randomValue(random).strip();
+                values.add(value.isEmpty() ? "x" : value);
+            }
+            return leaf(field, operator, FilterValues.join(values));
+        }
+        return leaf(field, SCALAR_OPERATORS[random.nextInt(SCALAR_OPERATORS.length)], randomValue(random));
+    }
+
+    private static String randomValue(Random random) {
+        String chars = random.nextBoolean() ? VALUE_CHARS : QUOTED_CHARS;
+        StringBuilder value = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            value.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return value.toString();
+    }
+
+    /**
+     * Записывает дерево строкой. Группа {@code OR} внутри {@code AND} и любая группа под {@code NOT} берутся
+     * в скобки по приоритету, остальные группы - случайно.
+     */
+    private static String render(Random random, FilterRequest filter, boolean parenthesize) {
+        String operator = filter.getOperator();
+        if (filter.getField() != null) {
+            return filter.getField() + space(random, !isSymbol(operator)) + renderOperator(random, operator)
+                    + space(random, !isSymbol(operator)) + renderValue(random, filter);
+        }
+        String rendered;
+        if ("NOT".equals(operator)) {
+            FilterRequest operand = filter.getFilters().get(0);
+            rendered = keyword(random, "NOT") + space(random, true)
+                    + render(random, operand, operand.getField() == null);
+        } else {
+            StringBuilder group = new StringBuilder();
+            for (FilterRequest operand : filter.getFilters()) {
+                if (!group.isEmpty()) {
+                    group.append(space(random, true)).append(keyword(random, operator)).append(space(random, true));
+                }
+                boolean nested = operand.getField() == null && !"NOT".equals(operand.getOperator());
+                group.append(render(random, operand,
+                        nested && ("AND".equals(operator) || random.nextBoolean())));
+            }
+            rendered = group.toString();
+        }
+        return parenthesize || random.nextInt(6) == 0
+                ? "(" + space(random, false) + rendered + space(random, false) + ")"
+                : rendered;
+    }
+
+    private static String renderOperator(Random random, String operator) {
+        if ("search".equals(operator) && random.nextBoolean()) {
+            return "~";
+        }
+        if ("not in".equals(operator)) {
+            return keyword(random, "not") + space(random, true) + keyword(random, "in");
+        }
+        return isSymbol(operator) ? operator : keyword(random, operator);
+    }
+
+    private static String renderValue(Random random, FilterRequest filter) {
+        if (!List.of(LIST_OPERATORS).contains(filter.getOperator())) {
+            return renderScalar(random, filter.getValue());
+        }
+        boolean parenthesized = random.nextBoolean();
+        StringBuilder list = new StringBuilder();
+        for (String value : FilterValues.split(filter.getValue())) {
+            if (!list.isEmpty()) {
+                list.append(space(random, false)).append(',').append(space(random, false));
+            }
+            list.append(renderScalar(random, value));
+        }
+        return parenthesized ? "(" + space(random, false) + list + space(random, false) + ")" : list.toString();
+    }
+
+    private static String renderScalar(Random random, String value) {
+        boolean plain = value.chars().allMatch(c -> VALUE_CHARS.indexOf(c) >= 0);
+        if (plain && random.nextBoolean()) {
+            return value;
+        }
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Ожидаемый результат разбора: вложенные группы того же оператора объединяются, верхняя группа
+     * {@code AND} становится списком фильтров.
+     */
+    private static List<FilterRequest> expected(FilterRequest tree) {
+        FilterRequest normalized = normalize(tree);
+        return "AND".equals(normalized.getOperator()) && normalized.getField() == null
+                ? normalized.getFilters()
+                : List.of(normalized);
+    }
+
+    private static FilterRequest normalize(FilterRequest filter) {
+        if (filter.getField() != null) {
+            return filter;
+        }
+        List<FilterRequest> operands = new ArrayList<>();
+        for (FilterRequest operand : filter.getFilters()) {
+            FilterRequest normalized = normalize(operand);
+            if (!"NOT".equals(filter.getOperator()) && normalized.getField() == null
+                    && filter.getOperator().equals(normalized.getOperator())) {
+                operands.addAll(normalized.getFilters());
+            } else {
+                operands.add(normalized);
+            }
+        }
+        return new FilterRequest(null, filter.getOperator(), null, List.copyOf(operands));
+    }
+
+    private static String keyword(Random random, String keyword) {
+        return switch (random.nextInt(3)) {
+            case 0 -> keyword.toLowerCase(Locale.ROOT);
+            case 1 -> keyword.toUpperCase(Locale.ROOT);
+            default -> Character.toUpperCase(keyword.charAt(0)) + keyword.substring(1).toLowerCase(Locale.ROOT);
+        };
+    }
+
+    private static String space(Random random, boolean required) {
+        int count = random.nextInt(3) + (required ? 1 : 0);
+        return " ".repeat(count);
+    }
+
+    private static boolean isSymbol(String operator) {
+        return !Character.isLetter(operator.charAt(0));
+    }
+
+    private static FilterRequest leaf(String field, String operator, String value) {
+        return new FilterRequest(field, operator, value, List.of());
+    }
+
+    private static FilterRequest group(String operator, FilterRequest... filters) {
+        return new FilterRequest(null, operator, null, List.of(filters));
+    }
+}
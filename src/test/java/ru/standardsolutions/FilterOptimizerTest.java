@@ -0,0 +1,100 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import ru.standardsolutions.metadata.EntityMetadata;
+import ru.standardsolutions.metadata.EntityMetadataRegistry;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Упрощение фильтров на H2: объединение равенств под ИЛИ, сохранение значений с пробелами по краям,
+ * замена противоречия ложью и совпадение выборки до и после упрощения.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class FilterOptimizerTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orders;
+
+    private EntityMetadata metadata;
+
+    @BeforeEach
+    void resolveMetadata() {
+        metadata = EntityMetadataRegistry.forEntity(entityManager.getMetamodel().entity(Order.class));
+    }
+
+    @Test
+    void mergesEqualitiesUnderOrIntoIn() {
+        FetchRequest request = request(or(filter("title", ":", "T7"), filter("title", "in", "T3,T5")));
+
+        assertThat(FilterOptimizer.optimize(metadata, request).getFilters())
+                .containsExactly(filter("title", "in", "T7,T3,T5"));
+    }
+
+    @Test
+    void keepsPaddedEqualitiesUnderOr() {
+        FetchRequest request = request(or(filter("title", ":", " T7"), filter("title", ":", "T3")));
+
+        assertThat(FilterOptimizer.optimize(metadata, request)).isSameAs(request);
+    }
+
+    @Test
+    void replacesContradictionWithFalse() {
+        FetchRequest contradiction = request(filter("quantity", ":", "1"), filter("quantity", ":", "2"));
+        FetchRequest negated = request(new FilterRequest(null, "NOT", null,
+                List.of(filter("quantity", ":", "1"), filter("quantity", ":", "2"))));
+
+        assertThat(FilterOptimizer.isEmptyResult(FilterOptimizer.optimize(metadata, contradiction))).isTrue();
+        assertThat(FilterOptimizer.isEmptyResult(FilterOptimizer.optimize(metadata, negated))).isFalse();
+        assertThat(ids(contradiction)).isEmpty();
+    }
+
+    @Test
+    void selectsSameRowsAfterOptimization() {
+        List<FetchRequest> requests = List.of(
+                request(or(filter("title", ":", "T7"), filter("title", ":", "T3"))),
+                request(or(filter("title", ":", " T7"), filter("title", ":", "T3"))),
+                request(filter("quantity", ">", "5"), filter("quantity", "<:", "20"), filter("quantity", ">:", "3")),
+                request(filter("status", "in", "NEW,PAID"), filter("status", "!:", "NEW")),
+                request(new FilterRequest(null, "NOT", null,
+                        List.of(or(filter("quantity", "<", "10"), filter("quantity", ">", "40"))))));
+
+        for (FetchRequest request : requests) {
+            FetchRequest optimized = FilterOptimizer.optimize(metadata, request);
+            assertThat(FilterOptimizer.isEmptyResult(optimized)).isFalse();
+            assertThat(ids(optimized)).as(request.toString()).isNotEmpty().isEqualTo(ids(request));
+        }
+    }
+
+    private List<Long> ids(FetchRequest request) {
+        return orders.findAll(request.<Order>toSpecification(), Sort.by("id")).stream().map(Order::getId).toList();
+    }
+
+    private static FetchRequest request(FilterRequest... filters) {
+        return new FetchRequest(List.of(filters), List.of(), new PageRequest(1, 100));
+    }
+
+    private static FilterRequest or(FilterRequest... filters) {
+        return new FilterRequest(null, "OR", null, List.of(filters));
+    }
+
+    private static FilterRequest filter(String field, String operator, String value) {
+        return new FilterRequest(field, operator, value, List.of());
+    }
+}
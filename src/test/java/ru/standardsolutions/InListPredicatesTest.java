@@ -0,0 +1,114 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+import ru.standardsolutions.testdata.OrderStatus;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Условия {@code in} и {@code not in} на H2: дополнение списка до степени двойки, разбиение на группы
+ * и передача одним параметром-массивом. Выборка во всех случаях совпадает с ожидаемой.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class InListPredicatesTest {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(([?,\\s]+)\\)", Pattern.CASE_INSENSITIVE);
+
+    private final boolean defaultPadding = FetchConfiguration.isInListPadding();
+
+    private final int defaultChunkSize = FetchConfiguration.getInListChunkSize();
+
+    private final int defaultArrayThreshold = FetchConfiguration.getInListArrayThreshold();
+
+    @Autowired
+    private OrderRepository orders;
+
+    @AfterEach
+    void restoreConfiguration() {
+        FetchConfiguration.setInListPadding(defaultPadding);
+        FetchConfiguration.setInListChunkSize(defaultChunkSize);
+        FetchConfiguration.setInListArrayThreshold(defaultArrayThreshold);
+    }
+
+    @Test
+    void padsListToPowerOfTwo() {
+        Fetch three = fetch(new FetchRequestBuilder().in("quantity", List.of(3, 1, 2)));
+        Fetch four = fetch(new FetchRequestBuilder().in("quantity", List.of(1, 2, 3, 4)));
+
+        assertThat(three.ids()).containsExactly(1L, 2L, 3L);
+        assertThat(four.ids()).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(parameterCounts(three.sql())).containsExactly(4);
+        assertThat(three.sql()).isEqualTo(four.sql());
+    }
+
+    @Test
+    void keepsListWithoutPadding() {
+        FetchConfiguration.setInListPadding(false);
+
+        Fetch three = fetch(new FetchRequestBuilder().in("quantity", List.of(3, 1, 2)));
+
+        assertThat(three.ids()).containsExactly(1L, 2L, 3L);
+        assertThat(parameterCounts(three.sql())).containsExactly(3);
+    }
+
+    @Test
+    void splitsLongListIntoChunks() {
+        FetchConfiguration.setInListChunkSize(4);
+        List<Integer> quantities = IntStream.rangeClosed(1, 10).boxed().toList();
+
+        Fetch in = fetch(new FetchRequestBuilder().in("quantity", quantities));
+        Fetch notIn = fetch(new FetchRequestBuilder().notIn("quantity", quantities));
+
+        assertThat(in.ids()).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(parameterCounts(in.sql())).containsExactly(4, 4, 2);
+        assertThat(in.sql()).containsIgnoringCase(" or ");
+        assertThat(notIn.ids()).hasSize(40).allMatch(id -> id > 10);
+        assertThat(parameterCounts(notIn.sql())).containsExactly(4, 4, 2);
+    }
+
+    @Test
+    void passesLongListAsArray() {
+        FetchConfiguration.setInListArrayThreshold(3);
+
+        Fetch in = fetch(new FetchRequestBuilder().in("quantity", List.of(5, 15, 25)));
+        Fetch notIn = fetch(new FetchRequestBuilder().notIn("quantity", List.of(5, 15, 25)));
+        Fetch enums = fetch(new FetchRequestBuilder().in("status", List.of(OrderStatus.NEW, OrderStatus.PAID,
+                OrderStatus.SHIPPED)));
+
+        assertThat(in.ids()).containsExactly(5L, 15L, 25L);
+        assertThat(in.sql()).containsIgnoringCase("= any(?)");
+        assertThat(parameterCounts(in.sql())).isEmpty();
+        assertThat(notIn.ids()).hasSize(47).doesNotContain(5L, 15L, 25L);
+        assertThat(notIn.sql()).containsIgnoringCase("<> all(?)");
+        assertThat(enums.ids()).hasSize(50);
+        assertThat(parameterCounts(enums.sql())).containsExactly(4);
+    }
+
+    private Fetch fetch(FetchRequestBuilder builder) {
+        SqlCapture.start();
+        List<Long> ids = FetchManager.performFetch(orders, Order::getId,
+                builder.sortAsc("id").page(1, 50).build()).getContent();
+        return new Fetch(ids, SqlCapture.stop().get(0));
+    }
+
+    private static List<Integer> parameterCounts(String sql) {
+        Matcher matcher = IN_LIST.matcher(sql);
+        return matcher.results().map(result -> (int) result.group(1).chars().filter(c -> c == '?').count()).toList();
+    }
+
+    private record Fetch(List<Long> ids, String sql) {
+    }
+}
@@ -0,0 +1,68 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.request.SortRequest;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Фильтры и сортировка по одной ассоциации соединяют ее в SQL один раз.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class JoinRegistryTest {
+
+    private static final Pattern JOIN = Pattern.compile("\\bjoin\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern LEFT_JOIN = Pattern.compile("\\bleft\\s+join\\b", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Test
+    void joinsAssociationOnceForFiltersAndSort() {
+        FetchRequest request = new FetchRequest(List.of(
+                new FilterRequest("customer.name", "like", "C%", List.of()),
+                new FilterRequest("customer.city", ":", "Kazan", List.of())),
+                List.of(new SortRequest("customer.name", "ASC"), new SortRequest("id", "ASC")), new PageRequest(1, 5));
+
+        List<String> statements = capture(request);
+
+        assertThat(statements).hasSize(2).allSatisfy(sql -> {
+            assertThat(JOIN.matcher(sql).results().count()).as(sql).isEqualTo(1);
+            assertThat(LEFT_JOIN.matcher(sql).find()).as(sql).isFalse();
+        });
+    }
+
+    @Test
+    void joinsAssociationOnceUnderOr() {
+        FetchRequest request = new FetchRequest(List.of(new FilterRequest(null, "OR", null, List.of(
+                new FilterRequest("customer.name", ":", "C1", List.of()),
+                new FilterRequest("customer.city", ":", "Kazan", List.of())))),
+                List.of(new SortRequest("customer.city", "ASC"), new SortRequest("id", "ASC")), new PageRequest(1, 5));
+
+        List<String> statements = capture(request);
+
+        assertThat(statements).hasSize(2).allSatisfy(sql -> {
+            assertThat(JOIN.matcher(sql).results().count()).as(sql).isEqualTo(1);
+            assertThat(LEFT_JOIN.matcher(sql).find()).as(sql).isTrue();
+        });
+    }
+
+    private List<String> capture(FetchRequest request) {
+        SqlCapture.start();
+        FetchManager.performFetch(orders, Order::getId, request);
+        return SqlCapture.stop();
+    }
+}
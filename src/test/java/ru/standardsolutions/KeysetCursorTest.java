@@ -0,0 +1,75 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition.Direction;
+import ru.standardsolutions.testdata.OrderStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Курсор восстанавливает направление и значения ключей с исходными типами, а поврежденный курсор отклоняется
+ * с {@link IllegalArgumentException}.
+ */
+class KeysetCursorTest {
+
+    @Test
+    void restoresDirectionAndTypedKeys() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("status", OrderStatus.PAID);
+        keys.put("created", LocalDate.of(2024, 1, 31));
+        keys.put("amount", new BigDecimal("10.50"));
+        keys.put("title", "a,b \"c\"");
+        keys.put("id", 42L);
+
+        KeysetScrollPosition forward = KeysetCursor.decode(KeysetCursor.encode(keys, Direction.FORWARD));
+        KeysetScrollPosition backward = KeysetCursor.decode(KeysetCursor.encode(keys, Direction.BACKWARD));
+
+        assertThat(forward.getKeys()).containsExactlyEntriesOf(keys);
+        assertThat(forward.scrollsForward()).isTrue();
+        assertThat(backward.getKeys()).containsExactlyEntriesOf(keys);
+        assertThat(backward.scrollsBackward()).isTrue();
+    }
+
+    @Test
+    void rejectsTamperedCursor() {
+        String cursor = KeysetCursor.encode(Map.of("id", 42L), Direction.FORWARD);
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        bytes[bytes.length - 1] = 'x';
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String truncated = cursor.substring(0, cursor.length() - 3);
+
+        assertThatThrownBy(() -> KeysetCursor.decode(tampered)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsCursorWithNonEnumType() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeBoolean(false);
+            out.writeShort(1);
+            out.writeUTF("status");
+            out.writeByte('E');
+            out.writeUTF(String.class.getName());
+            out.writeUTF("NEW");
+        }
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("Тип ключа не является перечислением: " + String.class);
+    }
+}
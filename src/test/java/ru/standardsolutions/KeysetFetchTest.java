@@ -0,0 +1,77 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Выборка по ключу на H2: проход по всем страницам вперед и назад по курсорам при повторяющихся значениях
+ * ключа сортировки и отказ по поврежденному курсору.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class KeysetFetchTest {
+
+    private static final int PAGE_SIZE = 7;
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Test
+    void scrollsForwardAndBackwardThroughTies() {
+        List<Long> expected = orders.findAll().stream()
+                .sorted(Comparator.comparing(Order::getTitle).thenComparing(Order::getId))
+                .map(Order::getId)
+                .toList();
+
+        List<FetchResponse<Long>> pages = new ArrayList<>();
+        FetchResponse<Long> page = fetch(null);
+        assertThat(page.getPrevCursor()).isNull();
+        pages.add(page);
+        while (page.getNextCursor() != null) {
+            page = fetch(page.getNextCursor());
+            pages.add(page);
+        }
+        List<Long> forward = pages.stream().flatMap(response -> response.getContent().stream()).toList();
+
+        List<Long> backward = new ArrayList<>(page.getContent());
+        while (page.getPrevCursor() != null) {
+            page = fetch(page.getPrevCursor());
+            backward.addAll(0, page.getContent());
+        }
+
+        assertThat(pages).hasSize((expected.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        assertThat(forward).isEqualTo(expected);
+        assertThat(backward).isEqualTo(expected);
+        assertThat(page.getContent()).isEqualTo(pages.get(0).getContent());
+        assertThat(page.getTotalElements()).isNull();
+    }
+
+    @Test
+    void rejectsTamperedCursor() {
+        String cursor = fetch(null).getNextCursor();
+
+        assertThatThrownBy(() -> fetch(cursor.substring(0, cursor.length() / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fetch("*" + cursor)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private FetchResponse<Long> fetch(String cursor) {
+        return FetchManager.performFetch(orders, Order::getId, new FetchRequestBuilder()
+                .sortAsc("title")
+                .keyset()
+                .cursor(cursor)
+                .page(1, PAGE_SIZE)
+                .build());
+    }
+}
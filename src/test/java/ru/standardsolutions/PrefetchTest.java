@@ -0,0 +1,110 @@
+package ru.standardsolutions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.Customer;
+import ru.standardsolutions.testdata.CustomerRepository;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Предзагрузка коллекций и счетчик запросов на H2: предупреждение о проблеме N+1 при ленивой загрузке
+ * коллекций в преобразователе, один дополнительный запрос на путь при предзагрузке и отказ для пути,
+ * который не ведет к ассоциации.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+@ExtendWith(OutputCaptureExtension.class)
+class PrefetchTest {
+
+    private static final String WARNING = "вероятна проблема N+1";
+
+    private final boolean defaultDetectNPlusOne = FetchConfiguration.isDetectNPlusOne();
+
+    @Autowired
+    private CustomerRepository customers;
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void restoreConfiguration() {
+        FetchConfiguration.setDetectNPlusOne(defaultDetectNPlusOne);
+    }
+
+    @Test
+    void warnsAboutLazyCollectionsInMapper(CapturedOutput output) {
+        FetchConfiguration.setDetectNPlusOne(true);
+
+        Fetch fetch = inTransaction(() -> fetchOrderCounts(new FetchRequestBuilder()));
+
+        assertThat(fetch.content()).containsExactly(10, 10, 10, 10, 10);
+        assertThat(fetch.statements()).isEqualTo(1 + 5);
+        assertThat(output).contains(WARNING);
+    }
+
+    @Test
+    void prefetchesCollectionsWithOneStatement(CapturedOutput output) {
+        FetchConfiguration.setDetectNPlusOne(true);
+
+        Fetch fetch = inTransaction(() -> fetchOrderCounts(new FetchRequestBuilder().prefetch("orders")));
+
+        assertThat(fetch.content()).containsExactly(10, 10, 10, 10, 10);
+        assertThat(fetch.statements()).isEqualTo(1 + 1);
+        assertThat(output).doesNotContain(WARNING);
+    }
+
+    @Test
+    void skipsSingleValuedAssociations() {
+        SqlCapture.start();
+        List<Long> ids = FetchManager.performFetch(orders, Order::getId, new FetchRequestBuilder()
+                .prefetch("customer").sortAsc("id").page(1, 10).build()).getContent();
+        List<String> statements = SqlCapture.stop();
+
+        assertThat(ids).hasSize(10);
+        assertThat(statements).hasSize(2);
+    }
+
+    @Test
+    void rejectsNonAssociationPath() {
+        assertThatThrownBy(() -> FetchManager.performFetch(customers, Customer::getId,
+                new FetchRequestBuilder().prefetch("name").build()))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("Путь 'name' не является ассоциацией");
+    }
+
+    private Fetch fetchOrderCounts(FetchRequestBuilder builder) {
+        SqlCapture.start();
+        List<Integer> content = FetchManager.performFetch(customers,
+                (Customer customer) -> customer.getOrders().size(),
+                builder.sortAsc("id").page(1, 10).build()).getContent();
+        return new Fetch(content, SqlCapture.stop().size());
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> action.get());
+    }
+
+    private record Fetch(List<Integer> content, int statements) {
+    }
+}
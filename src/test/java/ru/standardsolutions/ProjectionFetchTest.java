@@ -0,0 +1,96 @@
+package ru.standardsolutions;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.standardsolutions.projection.Projection;
+import ru.standardsolutions.projection.ProjectionPath;
+import ru.standardsolutions.request.CountStrategy;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.SqlCapture;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Выборка проекций на H2: запись и набор полей, выбор только нужных колонок без загрузки сущностей,
+ * одно соединение для фильтра и поля проекции по одной ассоциации и подсчет общего количества.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class ProjectionFetchTest {
+
+    private static final Pattern JOIN = Pattern.compile("\\bjoin\\b", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    record OrderRow(Long id, String title, @ProjectionPath("customer.name") String customerName) {
+    }
+
+    @Test
+    void selectsRecordsWithoutLoadingEntities() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        transaction.executeWithoutResult(status -> {
+            SqlCapture.start();
+            FetchResponse<OrderRow> response = FetchManager.performFetch(entityManager, Order.class,
+                    Projection.of(OrderRow.class),
+                    new FetchRequestBuilder().equals("title", "T7").sortDesc("id").page(1, 3).build());
+            List<String> statements = SqlCapture.stop();
+
+            assertThat(response.getContent()).containsExactly(new OrderRow(47L, "T7", "C2"),
+                    new OrderRow(37L, "T7", "C2"), new OrderRow(27L, "T7", "C2"));
+            assertThat(response.getTotalElements()).isEqualTo(5);
+            assertThat(statements).hasSize(2);
+            assertThat(statements.get(0)).doesNotContainIgnoringCase("description");
+            assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+        });
+    }
+
+    @Test
+    void selectsFieldsIntoMaps() {
+        FetchResponse<Map<String, Object>> response = FetchManager.performFetch(entityManager, Order.class,
+                Projection.fields("id", "customer.city"),
+                new FetchRequestBuilder().in("quantity", List.of(1, 2)).sortAsc("id").build());
+
+        assertThat(response.getContent()).containsExactly(Map.of("id", 1L, "customer.city", "Moscow"),
+                Map.of("id", 2L, "customer.city", "Kazan"));
+    }
+
+    @Test
+    void joinsAssociationOnceForFilterAndProjection() {
+        SqlCapture.start();
+        FetchResponse<OrderRow> response = FetchManager.performFetch(entityManager, Order.class,
+                Projection.of(OrderRow.class), new FetchRequestBuilder().equals("customer.name", "C3")
+                        .sortAsc("id").page(1, 20).count(CountStrategy.NONE).build());
+        List<String> statements = SqlCapture.stop();
+
+        assertThat(response.getContent()).hasSize(10).allMatch(row -> row.customerName().equals("C3"));
+        assertThat(response.getTotalElements()).isNull();
+        assertThat(statements).hasSize(1);
+        assertThat(JOIN.matcher(statements.get(0)).results().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsKeysetPagination() {
+        FetchRequest request = new FetchRequestBuilder().sortAsc("id").keyset().build();
+
+        assertThatThrownBy(() -> FetchManager.performFetch(entityManager, Order.class,
+                Projection.of(OrderRow.class), request)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,153 @@
+package ru.standardsolutions.dto.generic.filters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.standardsolutions.FetchManager;
+import ru.standardsolutions.Operator;
+import ru.standardsolutions.dto.generic.GenericFetchRequestDto;
+import ru.standardsolutions.dto.generic.Sortable;
+import ru.standardsolutions.dto.generic.filters.types.Period;
+import ru.standardsolutions.dto.shared.SortDirection;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+import ru.standardsolutions.testdata.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Связывание фильтров по аннотациям на H2: типизированные значения, пути через ассоциации, коллекции
+ * и массивы, пропуск пустых значений и отказ для некорректных аннотаций.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class FilterBindingsTest {
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Test
+    void selectsOrdersByAnnotatedFields() {
+        OrderFilters filters = new OrderFilters();
+        filters.title = "T7";
+        filters.city = "Kazan";
+        filters.minQuantity = 20;
+        filters.statuses = List.of(OrderStatus.NEW, OrderStatus.SHIPPED);
+
+        List<Long> selected = fetch(filters);
+        filters.excluded = new Integer[]{47};
+        List<Long> narrowed = fetch(filters);
+
+        assertThat(selected).containsExactly(27L, 47L);
+        assertThat(narrowed).containsExactly(27L);
+    }
+
+    @Test
+    void skipsEmptyValues() {
+        OrderFilters filters = new OrderFilters();
+        filters.title = "";
+        filters.statuses = List.of();
+        filters.excluded = new Integer[0];
+
+        assertThat(FilterBindings.apply(filters, new FetchRequestBuilder()).build().getFilters()).isEmpty();
+        assertThat(FilterBindings.apply(null, new FetchRequestBuilder()).build().getFilters()).isEmpty();
+        assertThat(fetch(filters)).hasSize(50);
+    }
+
+    @Test
+    void bindsPeriodAsRange() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        PeriodFilters both = new PeriodFilters();
+        both.created = new Period(from, to);
+        PeriodFilters open = new PeriodFilters();
+        open.created = new Period(from, null);
+
+        FilterRequest range = FilterBindings.apply(both, new FetchRequestBuilder()).build().getFilters().get(0);
+        FilterRequest lower = FilterBindings.apply(open, new FetchRequestBuilder()).build().getFilters().get(0);
+
+        assertThat(range.getOperator()).isEqualTo("between");
+        assertThat(range.getValues()).isEqualTo(List.of(from, to));
+        assertThat(lower.getOperator()).isEqualTo(">:");
+        assertThat(lower.getValues()).isEqualTo(List.of(from));
+    }
+
+    @Test
+    void rejectsInvalidAnnotations() {
+        assertThatThrownBy(() -> FilterBindings.apply(new PrimitiveFilters(), new FetchRequestBuilder()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Некорректная аннотация @FilterField на поле PrimitiveFilters.quantity: "
+                        + "примитивный тип не может быть пустым, используйте тип-обертку");
+        assertThatThrownBy(() -> FilterBindings.apply(new ScalarInFilters(), new FetchRequestBuilder()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageEndingWith("in и not in применимы только к коллекциям");
+        assertThatThrownBy(() -> FilterBindings.apply(new CollectionRangeFilters(), new FetchRequestBuilder()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageEndingWith("для коллекции допустимы только in и not in");
+    }
+
+    private List<Long> fetch(OrderFilters filters) {
+        GenericFetchRequestDto<OrderFilters, OrderSort> request = new GenericFetchRequestDto<>(filters,
+                List.of(new GenericFetchRequestDto.SortField<>(OrderSort.ID, SortDirection.ASC)),
+                new PageRequest(1, 50));
+        return FetchManager.performFetch(orders, Order::getId, request).getContent();
+    }
+
+    enum OrderSort implements Sortable {
+        ID;
+
+        @Override
+        public String getValue() {
+            return "id";
+        }
+    }
+
+    static class OrderFilters implements Filters {
+
+        @FilterField
+        private String title;
+
+        @FilterField(path = "customer.city")
+        private String city;
+
+        @FilterField(path = "quantity", op = Operator.GREATER_OR_EQUAL)
+        private Integer minQuantity;
+
+        @FilterField(path = "status")
+        private List<OrderStatus> statuses;
+
+        @FilterField(path = "quantity", op = Operator.NOT_IN)
+        private Integer[] excluded;
+    }
+
+    static class PeriodFilters implements Filters {
+
+        @FilterField
+        private Period created;
+    }
+
+    static class PrimitiveFilters implements Filters {
+
+        @FilterField
+        private int quantity;
+    }
+
+    static class ScalarInFilters implements Filters {
+
+        @FilterField(op = Operator.IN)
+        private Integer quantity;
+    }
+
+    static class CollectionRangeFilters implements Filters {
+
+        @FilterField(op = Operator.GREATER)
+        private List<Integer> quantity;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.standardsolutions.guard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.standardsolutions.FetchConfiguration;
+import ru.standardsolutions.request.FetchRequest;
+import ru.standardsolutions.request.FilterRequest;
+import ru.standardsolutions.request.PageRequest;
+import ru.standardsolutions.search.TextSearchFields;
+import ru.standardsolutions.search.TextSearchStrategy;
+import ru.standardsolutions.search.TrigramTextSearch;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Логические группы распознаются по оператору, а не по отсутствию поля: группа с заданным полем проверяется
+ * по вложенным фильтрам так же, как группа без поля. Поиск проверяется по всем полям набора и на большой
+ * таблице считается дорогим, если стратегия поиска не использует индексы.
+ */
+class PolicyFetchGuardTest {
+
+    private static final class Employee {
+    }
+
+    private static final class Document {
+    }
+
+    private final TextSearchStrategy defaultStrategy = FetchConfiguration.getTextSearchStrategy();
+
+    private final PolicyFetchGuard guard = new PolicyFetchGuard()
+            .policy(Employee.class,
+                    new FetchPolicyBuilder().filterFields("name").maxDepth(2).maxInListSize(3).build())
+            .policy(Document.class, new FetchPolicyBuilder().filterFields("title", "body")
+                    .indexedFields("title", "body").largeTable().build());
+
+    @AfterEach
+    void restoreStrategy() {
+        FetchConfiguration.setTextSearchStrategy(defaultStrategy);
+    }
+
+    @Test
+    void checksFiltersNestedInGroupWithField() {
+        FilterRequest salary = new FilterRequest("salary", ">", "100", List.of());
+
+        assertRejected(group("name", "AND", salary), FetchViolation.Code.FILTER_FIELD);
+        assertRejected(group("name", "not", salary), FetchViolation.Code.FILTER_FIELD);
+    }
+
+    @Test
+    void countsDepthAndInListsInsideGroupWithField() {
+        FilterRequest list = new FilterRequest("name", "in", "a,b,c,d", List.of());
+        FilterRequest name = new FilterRequest("name", ":", "x", List.of());
+        FilterRequest deep = new FilterRequest("name", "OR", null,
+                List.of(new FilterRequest("name", "AND", null, List.of(name))));
+
+        assertRejected(group("name", "OR", list), FetchViolation.Code.IN_LIST_SIZE);
+        assertRejected(group("name", "AND", deep), FetchViolation.Code.DEPTH);
+    }
+
+    @Test
+    void allowsWhitelistedFieldsInGroups() {
+        FilterRequest name = new FilterRequest("name", ":", "x", List.of());
+
+        assertThatNoException().isThrownBy(() -> guard.check(Employee.class, group(null, "OR", name, name)));
+    }
+
+    @Test
+    void checksEverySearchField() {
+        TextSearchFields.register(Employee.class, "text", "name", "salary");
+        TextSearchFields.register(Employee.class, "names", "name");
+
+        assertThatThrownBy(() -> guard.check(Employee.class, search("text")))
+                .isInstanceOfSatisfying(FetchRequestRejectedException.class,
+                        e -> assertThat(e.getViolations()).extracting(FetchViolation::field)
+                                .containsExactly("salary"));
+        assertThatNoException().isThrownBy(() -> guard.check(Employee.class, search("names")));
+    }
+
+    @Test
+    void rejectsLikeSearchOnLargeTable() {
+        TextSearchFields.register(Document.class, "text", "title", "body");
+
+        assertThatThrownBy(() -> guard.check(Document.class, search("text")))
+                .isInstanceOfSatisfying(FetchRequestRejectedException.class,
+                        e -> assertThat(e.getViolations()).extracting(FetchViolation::code)
+                                .containsExactly(FetchViolation.Code.LEADING_WILDCARD));
+    }
+
+    @Test
+    void allowsIndexedSearchOnLargeTable() {
+        TextSearchFields.register(Document.class, "text", "title", "body");
+        FetchConfiguration.setTextSearchStrategy(new TrigramTextSearch());
+
+        assertThatNoException().isThrownBy(() -> guard.check(Document.class, search("text")));
+    }
+
+    private void assertRejected(FetchRequest request, FetchViolation.Code code) {
+        assertThatThrownBy(() -> guard.check(Employee.class, request))
+                .isInstanceOfSatisfying(FetchRequestRejectedException.class,
+                        e -> assertThat(e.getViolations()).extracting(FetchViolation::code).contains(code));
+    }
+
+    private static FetchRequest search(String field) {
+        return new FetchRequest(List.of(new FilterRequest(field, "search", "report", List.of())), List.of(),
+                new PageRequest(1, 20));
+    }
+
+    private static FetchRequest group(String field, String operator, FilterRequest... filters) {
+        return new FetchRequest(List.of(new FilterRequest(field, operator, null, List.of(filters))), List.of(),
+                new PageRequest(1, 20));
+    }
+}
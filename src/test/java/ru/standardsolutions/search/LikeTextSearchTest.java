@@ -0,0 +1,81 @@
+package ru.standardsolutions.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.standardsolutions.FetchManager;
+import ru.standardsolutions.request.FetchRequestBuilder;
+import ru.standardsolutions.testdata.FetchTestApplication;
+import ru.standardsolutions.testdata.Order;
+import ru.standardsolutions.testdata.OrderRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Поиск {@link LikeTextSearch} на H2: по одному полю, по набору полей и с символами шаблона в тексте.
+ * Повторная регистрация набора применяется к следующим выборкам, несмотря на кэш планов.
+ */
+@SpringBootTest(classes = FetchTestApplication.class)
+class LikeTextSearchTest {
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertWildcardRows() {
+        jdbcTemplate.update("insert into orders (id, title, description, quantity, status, customer_id) values "
+                + "(101, 'S1', 'discount 100% off', 0, 'NEW', 1), (102, 'S2', 'discount 1000 off', 0, 'NEW', 1), "
+                + "(103, 'A_B', 'special', 0, 'NEW', 1), (104, 'AxB', 'special', 0, 'NEW', 1)");
+    }
+
+    @AfterEach
+    void deleteWildcardRows() {
+        jdbcTemplate.update("delete from orders where id > 100");
+    }
+
+    @Test
+    void searchesSingleFieldByEveryWord() {
+        assertThat(search("description", "ORDER 4"))
+                .containsExactly(4L, 14L, 24L, 34L, 40L, 41L, 42L, 43L, 44L, 45L, 46L, 47L, 48L, 49L);
+    }
+
+    @Test
+    void searchesFieldSetWithWordsInDifferentFields() {
+        TextSearchFields.register(Order.class, "text", "title", "description", "customer.name");
+
+        assertThat(search("text", "c3 order"))
+                .containsExactly(3L, 8L, 13L, 18L, 23L, 28L, 33L, 38L, 43L, 48L);
+        assertThat(search("text", "t7 c2")).containsExactly(7L, 17L, 27L, 37L, 47L);
+        assertThat(search("text", "t7 c1")).isEmpty();
+    }
+
+    @Test
+    void searchesReRegisteredFieldSet() {
+        TextSearchFields.register(Order.class, "label", "title");
+        assertThat(search("label", "t7")).containsExactly(7L, 17L, 27L, 37L, 47L);
+
+        TextSearchFields.register(Order.class, "label", "description");
+        assertThat(search("label", "t7")).isEmpty();
+        assertThat(search("label", "order 50")).containsExactly(50L);
+    }
+
+    @Test
+    void escapesWildcards() {
+        assertThat(search("description", "100%")).containsExactly(101L);
+        assertThat(search("title", "a_b")).containsExactly(103L);
+        assertThat(search("description", "%")).containsExactly(101L);
+    }
+
+    private List<Long> search(String field, String text) {
+        return FetchManager.performFetch(orders, Order::getId,
+                new FetchRequestBuilder().search(field, text).sortAsc("id").page(1, 50).build()).getContent();
+    }
+}
@@ -0,0 +1,10 @@
+package ru.standardsolutions.testdata;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Приложение для тестов на встроенной базе H2: сущности и репозитории этого пакета.
+ */
+@SpringBootApplication
+public class FetchTestApplication {
+}
@@ -0,0 +1,23 @@
+package ru.standardsolutions.testdata;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class LogRecord {
+
+    @Id
+    private Long id;
+
+    private int level;
+
+    @Column(length = 1024)
+    private String message;
+}
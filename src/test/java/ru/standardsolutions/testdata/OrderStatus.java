@@ -0,0 +1,7 @@
+package ru.standardsolutions.testdata;
+
+public enum OrderStatus {
+    NEW,
+    PAID,
+    SHIPPED
+}
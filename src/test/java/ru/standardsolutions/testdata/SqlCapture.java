@@ -0,0 +1,37 @@
+package ru.standardsolutions.testdata;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import ru.standardsolutions.StatementCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запоминает SQL-запросы текущего потока между {@link #start()} и {@link #stop()} и передает их
+ * {@link StatementCounter}, который тестовая конфигурация заменяет.
+ */
+public final class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    private final StatementCounter counter = new StatementCounter();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return counter.inspect(sql);
+    }
+
+    public static void start() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static List<String> stop() {
+        List<String> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements == null ? List.of() : statements;
+    }
+}
@@ -0,0 +1,7 @@
+insert into customer (id, name, city)
+select x, 'C' || x, case when mod(x, 2) = 0 then 'Kazan' else 'Moscow' end from system_range(1, 5);
+
+insert into orders (id, title, description, quantity, status, customer_id)
+select x, 'T' || mod(x, 10), 'order ' || x, x, case mod(x, 3) when 0 then 'NEW' when 1 then 'PAID' else 'SHIPPED' end,
+       mod(x - 1, 5) + 1
+from system_range(1, 50);